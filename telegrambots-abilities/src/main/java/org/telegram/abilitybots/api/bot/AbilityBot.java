@@ -55,6 +55,14 @@ public abstract class AbilityBot extends BaseAbilityBot implements LongPollingBo
         super.onUpdateReceived(update);
     }
 
+    /**
+     * Stops the async execution of methods, overrides must call it to release the async http client.
+     */
+    @Override
+    public void onClosing() {
+        shutdownAsyncExecution();
+    }
+
     @Override
     public void clearWebhook() throws TelegramApiRequestException {
         WebhookUtils.clearWebhook(this);
@@ -153,6 +153,7 @@ public abstract class BaseAbilityBot extends DefaultAbsSender implements Ability
     public void onRegister() {
         registerAbilities();
         initStats();
+        prewarmConnections();
     }
 
     /**
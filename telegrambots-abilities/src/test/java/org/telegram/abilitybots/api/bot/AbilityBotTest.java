@@ -21,6 +21,7 @@ import org.telegram.abilitybots.api.util.AbilityUtils;
 import org.telegram.abilitybots.api.util.Pair;
 import org.telegram.abilitybots.api.util.Trio;
 import org.telegram.telegrambots.meta.api.methods.groupadministration.GetChatAdministrators;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Document;
 import org.telegram.telegrambots.meta.api.objects.File;
 import org.telegram.telegrambots.meta.api.objects.Message;
@@ -37,6 +38,10 @@ import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -49,6 +54,8 @@ import static org.apache.commons.lang3.ArrayUtils.addAll;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyLong;
@@ -708,6 +715,16 @@ public class AbilityBotTest {
     verify(silent, times(1)).send("second reply answer", 1);
   }
 
+  @Test
+  void stopsAsyncExecutionWhenClosing() {
+    bot.onClosing();
+
+    CompletableFuture<Message> closed = bot.executeAsync(new SendMessage("1", "closed"));
+
+    ExecutionException error = assertThrows(ExecutionException.class, () -> closed.get(1, TimeUnit.SECONDS));
+    assertInstanceOf(RejectedExecutionException.class, error.getCause());
+  }
+
   private void handlesAllUpdates(Consumer<Update> utilMethod) {
     Arrays.stream(Update.class.getMethods())
         // filter to all these methods of hasXXX (hasPoll, hasMessage, etc...)
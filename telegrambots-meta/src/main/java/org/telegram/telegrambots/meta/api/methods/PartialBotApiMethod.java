@@ -2,16 +2,23 @@ package org.telegram.telegrambots.meta.api.methods;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.CollectionType;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.type.TypeFactory;
 import org.telegram.telegrambots.meta.api.interfaces.Validable;
 import org.telegram.telegrambots.meta.api.objects.ApiResponse;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Optional;
 
 /**
  * @author Ruben Bermudez
@@ -22,6 +29,46 @@ public abstract class PartialBotApiMethod<T extends Serializable> implements Val
     @JsonIgnore
     protected static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
+    private static final ClassValue<ObjectReader> RESPONSE_READERS = new ClassValue<ObjectReader>() {
+        @Override
+        protected ObjectReader computeValue(Class<?> type) {
+            TypeFactory typeFactory = OBJECT_MAPPER.getTypeFactory();
+            return OBJECT_MAPPER.readerFor(typeFactory.constructParametricType(ApiResponse.class, type));
+        }
+    };
+    private static final ClassValue<ObjectReader> ARRAY_RESPONSE_READERS = new ClassValue<ObjectReader>() {
+        @Override
+        protected ObjectReader computeValue(Class<?> type) {
+            TypeFactory typeFactory = OBJECT_MAPPER.getTypeFactory();
+            return OBJECT_MAPPER.readerFor(typeFactory.constructParametricType(ApiResponse.class,
+                    typeFactory.constructCollectionType(ArrayList.class, type)));
+        }
+    };
+    /**
+     * Readers for the response of every method class, empty if it must be read as a String
+     */
+    private static final ClassValue<Optional<ObjectReader>> METHOD_RESPONSE_READERS = new ClassValue<Optional<ObjectReader>>() {
+        @Override
+        protected Optional<ObjectReader> computeValue(Class<?> type) {
+            try {
+                // Methods defined elsewhere may parse their answer in their own way
+                Method deserializer = type.getMethod("deserializeResponse", String.class);
+                if (!deserializer.getDeclaringClass().getName().startsWith("org.telegram.telegrambots.meta.")) {
+                    return Optional.empty();
+                }
+            } catch (NoSuchMethodException e) {
+                return Optional.empty();
+            }
+            TypeFactory typeFactory = OBJECT_MAPPER.getTypeFactory();
+            JavaType[] typeParameters = typeFactory.constructType(type).findTypeParameters(PartialBotApiMethod.class);
+            // i.e. methods answering a message or a boolean try both
+            if (typeParameters.length != 1 || typeParameters[0].hasRawClass(Serializable.class) || typeParameters[0].hasRawClass(Object.class)) {
+                return Optional.empty();
+            }
+            return Optional.of(OBJECT_MAPPER.readerFor(typeFactory.constructParametricType(ApiResponse.class, typeParameters[0])));
+        }
+    };
+
     /**
      * Deserialize a json answer to the response type to a method
      * @param answer Json answer received
@@ -29,33 +76,68 @@ public abstract class PartialBotApiMethod<T extends Serializable> implements Val
      */
     public abstract T deserializeResponse(String answer) throws TelegramApiRequestException;
 
+    /**
+     * Deserialize a json answer while it is read, without building it as a String first.
+     * The response type is found from the class of the method, those that can answer different types
+     * are read as a String and deserialized with {@link #deserializeResponse(String)}.
+     * Methods that parse their answer in their own way should override it too.
+     * @param answer Stream with the json answer
+     * @return Answer for the method
+     * @throws TelegramApiRequestException If the answer can't be parsed or it is an error
+     * @throws IOException If the stream can't be read
+     */
+    public T deserializeResponse(InputStream answer) throws TelegramApiRequestException, IOException {
+        Optional<ObjectReader> reader = METHOD_RESPONSE_READERS.get(getClass());
+        if (!reader.isPresent()) {
+            return deserializeResponse(readString(answer));
+        }
+        ApiResponse<T> result;
+        try {
+            result = reader.get().readValue(answer);
+        } catch (JsonProcessingException e) {
+            throw new TelegramApiRequestException("Unable to deserialize response", e);
+        }
+        return getResult(result);
+    }
+
     public T deserializeResponse(String answer, Class<T> returnClass) throws TelegramApiRequestException {
-        JavaType type = OBJECT_MAPPER.getTypeFactory().constructType(returnClass);
-        return deserializeResponseInternal(answer, type);
+        return deserializeResponseInternal(answer, RESPONSE_READERS.get(returnClass));
     }
 
     public <K extends Serializable> T deserializeResponseArray(String answer, Class<K> returnClass) throws TelegramApiRequestException {
-        CollectionType collectionType = OBJECT_MAPPER.getTypeFactory().constructCollectionType(ArrayList.class, returnClass);
-        return deserializeResponseInternal(answer, collectionType);
+        return deserializeResponseInternal(answer, ARRAY_RESPONSE_READERS.get(returnClass));
     }
 
     protected <K extends Serializable> T deserializeResponseSerializable(String answer, Class<K> returnClass) throws TelegramApiRequestException {
-        JavaType type = OBJECT_MAPPER.getTypeFactory().constructType(returnClass);
-        return deserializeResponseInternal(answer, type);
+        return deserializeResponseInternal(answer, RESPONSE_READERS.get(returnClass));
     }
 
-    private T deserializeResponseInternal(String answer, JavaType type) throws TelegramApiRequestException {
+    private T deserializeResponseInternal(String answer, ObjectReader reader) throws TelegramApiRequestException {
+        ApiResponse<T> result;
         try {
-            JavaType responseType = OBJECT_MAPPER.getTypeFactory().constructParametricType(ApiResponse.class, type);
-            ApiResponse<T> result = OBJECT_MAPPER.readValue(answer, responseType);
-            if (result.getOk()) {
-                return result.getResult();
-            } else {
-                throw new TelegramApiRequestException(String.format("Error executing %s query", this.getClass().getName()), result);
-            }
+            result = reader.readValue(answer);
         } catch (IOException e) {
             throw new TelegramApiRequestException("Unable to deserialize response", e);
         }
+        return getResult(result);
+    }
+
+    private T getResult(ApiResponse<T> result) throws TelegramApiRequestException {
+        if (result.getOk()) {
+            return result.getResult();
+        } else {
+            throw new TelegramApiRequestException(String.format("Error executing %s query", this.getClass().getName()), result);
+        }
+    }
+
+    private static String readString(InputStream answer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = answer.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
     }
 
     /**
@@ -1,6 +1,11 @@
 package org.telegram.telegrambots.meta.api.methods.updates;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
@@ -10,11 +15,19 @@ import lombok.Setter;
 import lombok.Singular;
 import lombok.ToString;
 import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.objects.ApiResponse;
 import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.UpdateEnvelope;
+import org.telegram.telegrambots.meta.api.objects.UpdateType;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @author Ruben Bermudez
@@ -36,6 +49,13 @@ public class GetUpdates extends BotApiMethod<ArrayList<Update>>{
     private static final String LIMIT_FIELD = "limit";
     private static final String TIMEOUT_FIELD = "timeout";
     private static final String ALLOWEDUPDATES_FIELD = "allowed_updates";
+    private static final String OK_FIELD = "ok";
+    private static final String RESULT_FIELD = "result";
+    private static final String UPDATEID_FIELD = "update_id";
+
+    private static final ObjectReader RESPONSE_READER = OBJECT_MAPPER.readerFor(OBJECT_MAPPER.getTypeFactory()
+            .constructParametricType(ApiResponse.class, OBJECT_MAPPER.getTypeFactory().constructCollectionType(ArrayList.class, Update.class)));
+    private static final ObjectReader UPDATE_READER = OBJECT_MAPPER.readerFor(Update.class);
 
     /**
      * Optional. Identifier of the first update to be returned. Must be greater by one than the
@@ -80,6 +100,115 @@ public class GetUpdates extends BotApiMethod<ArrayList<Update>>{
 
     @Override
     public ArrayList<Update> deserializeResponse(String answer) throws TelegramApiRequestException {
-        return deserializeResponseArray(answer, Update.class);
+        try {
+            ApiResponse<ArrayList<Update>> result = RESPONSE_READER.readValue(answer);
+            if (result.getOk()) {
+                return result.getResult();
+            } else {
+                throw new TelegramApiRequestException(String.format("Error executing %s query", this.getClass().getName()), result);
+            }
+        } catch (IOException e) {
+            throw new TelegramApiRequestException("Unable to deserialize response", e);
+        }
+    }
+
+    /**
+     * Deserialize the response while it is being read, handing every update to the consumer as soon as it is parsed
+     * so the whole response never needs to be held in memory.
+     * @param answer Stream with the json answer
+     * @param consumer Consumer for every update in the response
+     * @return Number of updates received
+     * @throws TelegramApiRequestException If the response can't be parsed or it is an error
+     * @throws IOException If the stream can't be read
+     */
+    public int deserializeResponse(InputStream answer, Consumer<Update> consumer) throws TelegramApiRequestException, IOException {
+        try (JsonParser parser = RESPONSE_READER.createParser(answer)) {
+            return deserializeResponse(parser, p -> consumer.accept(UPDATE_READER.readValue(p)));
+        }
+    }
+
+    /**
+     * Deserialize the response into {@link UpdateEnvelope}s, parsing only the id and type of every update.
+     * The full updates are built later, if ever, from the raw json kept in the envelopes.
+     * @param answer Stream with the json answer
+     * @param consumer Consumer for every update in the response
+     * @return Number of updates received
+     * @throws TelegramApiRequestException If the response can't be parsed or it is an error
+     * @throws IOException If the stream can't be read
+     */
+    public int deserializeEnvelopes(InputStream answer, Consumer<UpdateEnvelope> consumer) throws TelegramApiRequestException, IOException {
+        // Envelopes slice the raw json of every update out of the response, so it must be fully read
+        byte[] json = readFully(answer);
+        try (JsonParser parser = RESPONSE_READER.createParser(json)) {
+            return deserializeResponse(parser, p -> consumer.accept(readEnvelope(p, json)));
+        }
+    }
+
+    private int deserializeResponse(JsonParser parser, UpdateParser updateParser) throws TelegramApiRequestException, IOException {
+        int received = 0;
+        // Everything but the result is kept to build the error response if needed
+        ObjectNode response = OBJECT_MAPPER.createObjectNode();
+        try {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new TelegramApiRequestException("Unable to deserialize response, unexpected token " + parser.currentToken());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (RESULT_FIELD.equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        updateParser.parse(parser);
+                        received++;
+                    }
+                } else {
+                    response.set(field, parser.readValueAsTree());
+                }
+            }
+            if (!response.path(OK_FIELD).asBoolean()) {
+                ApiResponse<?> result = OBJECT_MAPPER.treeToValue(response, ApiResponse.class);
+                throw new TelegramApiRequestException(String.format("Error executing %s query", this.getClass().getName()), result);
+            }
+        } catch (JsonProcessingException e) {
+            throw new TelegramApiRequestException("Unable to deserialize response", e);
+        }
+        return received;
+    }
+
+    /**
+     * Read the update the parser is positioned at, skipping the content of every field but its id
+     */
+    private static UpdateEnvelope readEnvelope(JsonParser parser, byte[] json) throws IOException {
+        int start = (int) parser.getTokenLocation().getByteOffset();
+        int updateId = 0;
+        UpdateType type = UpdateType.UNKNOWN;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (UPDATEID_FIELD.equals(field)) {
+                updateId = parser.getIntValue();
+            } else {
+                if (type == UpdateType.UNKNOWN) {
+                    type = UpdateType.fromField(field);
+                }
+                parser.skipChildren();
+            }
+        }
+        int end = (int) parser.getCurrentLocation().getByteOffset();
+        return new UpdateEnvelope(updateId, type, Arrays.copyOfRange(json, start, end), UPDATE_READER);
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = inputStream.read(chunk)) != -1) {
+            buffer.write(chunk, 0, read);
+        }
+        return buffer.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface UpdateParser {
+        void parse(JsonParser parser) throws IOException;
     }
 }
@@ -2,7 +2,6 @@ package org.telegram.telegrambots.meta.api.objects;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
-import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
@@ -12,6 +11,8 @@ import org.telegram.telegrambots.meta.exceptions.TelegramApiValidationException;
 
 import java.io.File;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * Input file used to upload a file to Telegram server and use it afterwards
@@ -23,7 +24,6 @@ import java.io.InputStream;
 @EqualsAndHashCode(callSuper = false)
 @ToString
 @NoArgsConstructor
-@AllArgsConstructor
 public class InputFile implements Validable, BotApiObject {
 
     private String attachName;
@@ -43,12 +43,38 @@ public class InputFile implements Validable, BotApiObject {
      */
     @JsonIgnore
     private InputStream newMediaStream;
+    /**
+     * New media as a region of a file channel, only the region and the name are compared
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private FileChannel newMediaChannel;
+    @JsonIgnore
+    private long newMediaPosition;
+    @JsonIgnore
+    private long newMediaSize;
+    /**
+     * New media as a buffer, i.e. a memory-mapped file. Not compared, that would read all of it
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private ByteBuffer newMediaBuffer;
     /**
      * True if the file is new, false if it is a file_id
      */
     @JsonIgnore
     private boolean isNew;
 
+    public InputFile(String attachName, String mediaName, File newMediaFile, InputStream newMediaStream, boolean isNew) {
+        this.attachName = attachName;
+        this.mediaName = mediaName;
+        this.newMediaFile = newMediaFile;
+        this.newMediaStream = newMediaStream;
+        this.isNew = isNew;
+    }
+
     public InputFile(String attachName) {
         this();
         setMedia(attachName);
@@ -86,6 +112,32 @@ public class InputFile implements Validable, BotApiObject {
         setMedia(mediaStream, fileName);
     }
 
+    /**
+     * Constructor to set a new file as a region of a file channel.
+     * The region is read without moving the position of the channel, so it can be sent to many chats at the same time.
+     *
+     * @param mediaChannel Channel of the file to send
+     * @param position Position of the region in the file
+     * @param size Size of the region
+     * @param fileName Name of the file
+     */
+    public InputFile(FileChannel mediaChannel, long position, long size, String fileName) {
+        this();
+        setMedia(mediaChannel, position, size, fileName);
+    }
+
+    /**
+     * Constructor to set a new file as a buffer, i.e. a MappedByteBuffer.
+     * The remaining bytes of the buffer are sent, without changing its position.
+     *
+     * @param mediaBuffer File to send
+     * @param fileName Name of the file
+     */
+    public InputFile(ByteBuffer mediaBuffer, String fileName) {
+        this();
+        setMedia(mediaBuffer, fileName);
+    }
+
     /**
      * Use this setter to send new file.
      * @param mediaFile File to send
@@ -127,6 +179,38 @@ public class InputFile implements Validable, BotApiObject {
         return this;
     }
 
+    /**
+     * Use this setter to send new file as a region of a file channel.
+     * @param mediaChannel Channel of the file to send
+     * @param position Position of the region in the file
+     * @param size Size of the region
+     * @param fileName Name of the file
+     * @return This object
+     */
+    public InputFile setMedia(FileChannel mediaChannel, long position, long size, String fileName) {
+        this.newMediaChannel = mediaChannel;
+        this.newMediaPosition = position;
+        this.newMediaSize = size;
+        this.mediaName = fileName;
+        this.attachName = "attach://" + fileName;
+        this.isNew = true;
+        return this;
+    }
+
+    /**
+     * Use this setter to send new file as a buffer.
+     * @param mediaBuffer File to send
+     * @param fileName Name of the file
+     * @return This object
+     */
+    public InputFile setMedia(ByteBuffer mediaBuffer, String fileName) {
+        this.newMediaBuffer = mediaBuffer;
+        this.mediaName = fileName;
+        this.attachName = "attach://" + fileName;
+        this.isNew = true;
+        return this;
+    }
+
     public InputFile setMedia(String attachName) {
         this.attachName = attachName;
         this.isNew = false;
@@ -149,6 +233,22 @@ public class InputFile implements Validable, BotApiObject {
         return newMediaStream;
     }
 
+    public FileChannel getNewMediaChannel() {
+        return newMediaChannel;
+    }
+
+    public long getNewMediaPosition() {
+        return newMediaPosition;
+    }
+
+    public long getNewMediaSize() {
+        return newMediaSize;
+    }
+
+    public ByteBuffer getNewMediaBuffer() {
+        return newMediaBuffer;
+    }
+
     public boolean isNew() {
         return isNew;
     }
@@ -159,9 +259,12 @@ public class InputFile implements Validable, BotApiObject {
             if (mediaName == null || mediaName.isEmpty()) {
                 throw new TelegramApiValidationException("Media name can't be empty", this);
             }
-            if (newMediaFile == null && newMediaStream == null) {
+            if (newMediaFile == null && newMediaStream == null && newMediaChannel == null && newMediaBuffer == null) {
                 throw new TelegramApiValidationException("Media can't be empty", this);
             }
+            if (newMediaChannel != null && (newMediaPosition < 0 || newMediaSize < 0)) {
+                throw new TelegramApiValidationException("Media region can't be negative", this);
+            }
         } else {
             if (attachName == null || attachName.isEmpty()) {
                 throw new TelegramApiValidationException("File_id can't be empty", this);
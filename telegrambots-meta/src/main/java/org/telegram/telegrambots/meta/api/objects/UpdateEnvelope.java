@@ -0,0 +1,132 @@
+package org.telegram.telegrambots.meta.api.objects;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Update received from Telegram of which only the id and the type have been parsed.
+ *
+ * The raw json is kept and the full {@link Update} is only built the first time {@link #getUpdate()}
+ * is called, so updates can be routed or discarded by type without materializing messages, chats,
+ * users, entities...
+ */
+public final class UpdateEnvelope {
+    private final int updateId;
+    private final UpdateType type;
+    private final byte[] rawJson;
+    private final ObjectReader reader;
+    private final long receivedAt = System.nanoTime();
+    private volatile Update update;
+
+    /**
+     * @param updateId Id of the update
+     * @param type Type of the update
+     * @param rawJson Json of the update, encoded in UTF-8
+     */
+    public UpdateEnvelope(int updateId, UpdateType type, byte[] rawJson) {
+        this(updateId, type, rawJson, null);
+    }
+
+    /**
+     * @param updateId Id of the update
+     * @param type Type of the update
+     * @param rawJson Json of the update, encoded in UTF-8
+     * @param reader Reader of {@link Update}s used to parse the raw json, null for a default one
+     */
+    public UpdateEnvelope(int updateId, UpdateType type, byte[] rawJson, ObjectReader reader) {
+        this.updateId = updateId;
+        this.type = type;
+        this.rawJson = rawJson;
+        this.reader = reader;
+    }
+
+    private UpdateEnvelope(Update update) {
+        this.updateId = update.getUpdateId() != null ? update.getUpdateId() : 0;
+        this.type = UpdateType.of(update);
+        this.rawJson = null;
+        this.reader = null;
+        this.update = update;
+    }
+
+    /**
+     * @param update Update that has already been parsed
+     * @return Envelope wrapping the update, without raw json
+     */
+    public static UpdateEnvelope of(Update update) {
+        return new UpdateEnvelope(update);
+    }
+
+    public int getUpdateId() {
+        return updateId;
+    }
+
+    public UpdateType getType() {
+        return type;
+    }
+
+    public boolean is(UpdateType type) {
+        return this.type == type;
+    }
+
+    /**
+     * @return Value of {@link System#nanoTime()} when the envelope was created, i.e. when the update was received
+     */
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
+    /**
+     * @return Json of the update encoded in UTF-8, null if the envelope was created from a parsed update.
+     * The array is not copied and must not be modified.
+     */
+    public byte[] getRawJson() {
+        return rawJson;
+    }
+
+    /**
+     * @return True if the full update has already been built
+     */
+    public boolean isParsed() {
+        return update != null;
+    }
+
+    /**
+     * Parse the full update, only done the first time it is requested.
+     * @return The update
+     * @throws UncheckedIOException If the raw json can't be parsed
+     */
+    public Update getUpdate() {
+        Update parsed = update;
+        if (parsed == null) {
+            synchronized (this) {
+                parsed = update;
+                if (parsed == null) {
+                    try {
+                        parsed = (reader != null ? reader : ReaderHolder.UPDATE_READER).readValue(rawJson);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Unable to deserialize update " + updateId, e);
+                    }
+                    update = parsed;
+                }
+            }
+        }
+        return parsed;
+    }
+
+    @Override
+    public String toString() {
+        return "UpdateEnvelope(updateId=" + updateId + ", type=" + type +
+                (rawJson != null ? ", rawJson=" + new String(rawJson, StandardCharsets.UTF_8) : ", update=" + update) + ")";
+    }
+
+    /**
+     * Creating the reader is expensive, so it is only done if an envelope without a reader needs one
+     */
+    private static final class ReaderHolder {
+        private static final ObjectReader UPDATE_READER = new ObjectMapper().readerFor(Update.class);
+    }
+}
@@ -0,0 +1,88 @@
+package org.telegram.telegrambots.meta.api.objects;
+
+/**
+ * Kinds of updates, named after the optional field of {@link Update} that is present
+ */
+public enum UpdateType {
+    MESSAGE("message"),
+    INLINE_QUERY("inline_query"),
+    CHOSEN_INLINE_RESULT("chosen_inline_result"),
+    CALLBACK_QUERY("callback_query"),
+    EDITED_MESSAGE("edited_message"),
+    CHANNEL_POST("channel_post"),
+    EDITED_CHANNEL_POST("edited_channel_post"),
+    SHIPPING_QUERY("shipping_query"),
+    PRE_CHECKOUT_QUERY("pre_checkout_query"),
+    POLL("poll"),
+    POLL_ANSWER("poll_answer"),
+    MY_CHAT_MEMBER("my_chat_member"),
+    CHAT_MEMBER("chat_member"),
+    CHAT_JOIN_REQUEST("chat_join_request"),
+    /**
+     * Update of a kind not supported by this version of the library
+     */
+    UNKNOWN(null);
+
+    private final String field;
+
+    UpdateType(String field) {
+        this.field = field;
+    }
+
+    /**
+     * @return Name of the json field holding this kind of update, null for {@link #UNKNOWN}
+     */
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * @param field Name of a json field of an update
+     * @return Type of update matching the field, {@link #UNKNOWN} if none does
+     */
+    public static UpdateType fromField(String field) {
+        for (UpdateType type : values()) {
+            if (type.field != null && type.field.equals(field)) {
+                return type;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * @param update Parsed update
+     * @return Type of the update
+     */
+    public static UpdateType of(Update update) {
+        if (update.hasMessage()) {
+            return MESSAGE;
+        } else if (update.hasInlineQuery()) {
+            return INLINE_QUERY;
+        } else if (update.hasChosenInlineQuery()) {
+            return CHOSEN_INLINE_RESULT;
+        } else if (update.hasCallbackQuery()) {
+            return CALLBACK_QUERY;
+        } else if (update.hasEditedMessage()) {
+            return EDITED_MESSAGE;
+        } else if (update.hasChannelPost()) {
+            return CHANNEL_POST;
+        } else if (update.hasEditedChannelPost()) {
+            return EDITED_CHANNEL_POST;
+        } else if (update.hasShippingQuery()) {
+            return SHIPPING_QUERY;
+        } else if (update.hasPreCheckoutQuery()) {
+            return PRE_CHECKOUT_QUERY;
+        } else if (update.hasPoll()) {
+            return POLL;
+        } else if (update.hasPollAnswer()) {
+            return POLL_ANSWER;
+        } else if (update.hasMyChatMember()) {
+            return MY_CHAT_MEMBER;
+        } else if (update.hasChatMember()) {
+            return CHAT_MEMBER;
+        } else if (update.hasChatJoinRequest()) {
+            return CHAT_JOIN_REQUEST;
+        }
+        return UNKNOWN;
+    }
+}
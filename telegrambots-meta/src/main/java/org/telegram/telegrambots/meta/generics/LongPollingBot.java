@@ -1,8 +1,10 @@
 package org.telegram.telegrambots.meta.generics;
 
 import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.UpdateEnvelope;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -27,6 +29,20 @@ public interface LongPollingBot extends TelegramBot {
         updates.forEach(this::onUpdateReceived);
     }
 
+    /**
+     * This method is called instead of {@link #onUpdatesReceived(List)} when the session is configured to
+     * receive {@link UpdateEnvelope}s, whose full update is only parsed when requested.
+     * If not reimplemented - it parses all of them and sends them into {@link #onUpdatesReceived(List)}
+     * @param envelopes list of UpdateEnvelope received
+     */
+    default void onEnvelopesReceived(List<UpdateEnvelope> envelopes) {
+        List<Update> updates = new ArrayList<>(envelopes.size());
+        for (UpdateEnvelope envelope : envelopes) {
+            updates.add(envelope.getUpdate());
+        }
+        onUpdatesReceived(updates);
+    }
+
     /**
      * Gets options for current bot
      * @return BotOptions object with options information
@@ -0,0 +1,22 @@
+package org.telegram.telegrambots.meta.generics;
+
+import java.io.IOException;
+
+/**
+ * Durable storage for the long polling offset, used to resume a session after a restart.
+ * The stored value is the highest update_id whose handler has completed.
+ */
+public interface OffsetStore {
+
+    /**
+     * Load the last stored update id
+     * @return Last stored update id, or 0 if nothing has been stored yet
+     */
+    int load() throws IOException;
+
+    /**
+     * Persist the given update id, replacing the previous one
+     * @param updateId Highest update id that has been completely handled
+     */
+    void store(int updateId) throws IOException;
+}
@@ -0,0 +1,62 @@
+package org.telegram.telegrambots.meta.api.methods;
+
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.GetChatAdministrators;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.chatmember.ChatMember;
+import org.telegram.telegrambots.meta.api.objects.chatmember.ChatMemberOwner;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PartialBotApiMethodTest {
+    private static final String MESSAGE = "{\"ok\":true,\"result\":{\"message_id\":7,\"date\":0,\"text\":\"text\",\"chat\":{\"id\":1,\"type\":\"private\"}}}";
+
+    @Test
+    public void testResponseIsReadFromStream() throws Exception {
+        SendMessage sendMessage = new SendMessage("1", "text");
+        Message message = sendMessage.deserializeResponse(stream(MESSAGE));
+        assertEquals(7, message.getMessageId());
+        assertEquals(sendMessage.deserializeResponse(MESSAGE), message);
+    }
+
+    @Test
+    public void testArrayResponseIsReadFromStream() throws Exception {
+        String answer = "{\"ok\":true,\"result\":[{\"status\":\"creator\",\"user\":{\"id\":1,\"first_name\":\"Owner\",\"is_bot\":false}}]}";
+        ArrayList<ChatMember> administrators = new GetChatAdministrators("1").deserializeResponse(stream(answer));
+        assertEquals(1, administrators.size());
+        assertInstanceOf(ChatMemberOwner.class, administrators.get(0));
+    }
+
+    @Test
+    public void testMethodsWithSeveralResponseTypesAreReadFromStream() throws Exception {
+        EditMessageText editMessageText = new EditMessageText("text");
+        Serializable message = editMessageText.deserializeResponse(stream(MESSAGE));
+        assertInstanceOf(Message.class, message);
+        assertEquals(true, editMessageText.deserializeResponse(stream("{\"ok\":true,\"result\":true}")));
+    }
+
+    @Test
+    public void testErrorsAreReadFromStream() {
+        String answer = "{\"ok\":false,\"error_code\":400,\"description\":\"Bad Request: chat not found\"}";
+        TelegramApiRequestException error = assertThrows(TelegramApiRequestException.class,
+                () -> new SendMessage("1", "text").deserializeResponse(stream(answer)));
+        assertEquals(400, error.getErrorCode());
+
+        assertThrows(TelegramApiRequestException.class, () -> new SendMessage("1", "text").deserializeResponse(stream("<html>")));
+    }
+
+    private static InputStream stream(String answer) {
+        return new ByteArrayInputStream(answer.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -6,10 +6,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.telegram.telegrambots.meta.api.methods.updates.GetUpdates;
 import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.UpdateEnvelope;
+import org.telegram.telegrambots.meta.api.objects.UpdateType;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
 import org.telegram.telegrambots.meta.test.TelegramBotsHelper;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -66,4 +71,39 @@ class TestGetUpdates {
             assertEquals("Conflict: terminated by other getUpdates request; make sure that only one bot instance is running", e.getApiResponse());
         }
     }
+
+    @Test
+    void testGetUpdatesMustDeserializeCorrectResponseFromStream() throws Exception {
+        List<Update> result = new ArrayList<>();
+        int received = getUpdates.deserializeResponse(new ByteArrayInputStream(
+                TelegramBotsHelper.GetResponseWithoutError().getBytes(StandardCharsets.UTF_8)), result::add);
+        assertEquals(1, received);
+        assertEquals(1, result.size());
+        assertEquals(Integer.valueOf(10000), result.get(0).getUpdateId());
+    }
+
+    @Test
+    void testGetUpdatesMustThrowAnExceptionForInCorrectResponseFromStream() {
+        TelegramApiRequestException e = assertThrows(TelegramApiRequestException.class, () ->
+                getUpdates.deserializeResponse(new ByteArrayInputStream(
+                        TelegramBotsHelper.GetResponseWithError().getBytes(StandardCharsets.UTF_8)), update -> fail()));
+        assertNotNull(e.getParameters());
+        assertEquals(Integer.valueOf(12), e.getParameters().getRetryAfter());
+        assertEquals(Integer.valueOf(400), e.getErrorCode());
+        assertEquals("Error descriptions", e.getApiResponse());
+    }
+
+    @Test
+    void testGetUpdatesMustDeserializeEnvelopesFromStream() throws Exception {
+        byte[] response = TelegramBotsHelper.GetResponseWithoutError().getBytes(StandardCharsets.UTF_8);
+        List<UpdateEnvelope> result = new ArrayList<>();
+        int received = getUpdates.deserializeEnvelopes(new ByteArrayInputStream(response), result::add);
+        assertEquals(1, received);
+        UpdateEnvelope envelope = result.get(0);
+        assertEquals(10000, envelope.getUpdateId());
+        assertEquals(UpdateType.MESSAGE, envelope.getType());
+        assertFalse(envelope.isParsed());
+        assertEquals(getUpdates.deserializeResponse(TelegramBotsHelper.GetResponseWithoutError()).get(0), envelope.getUpdate());
+        assertTrue(envelope.isParsed());
+    }
 }
@@ -0,0 +1,45 @@
+package org.telegram.telegrambots.bots;
+
+import org.telegram.telegrambots.facilities.inflight.RequestPriority;
+
+/**
+ * Options of a single async execution, see {@link DefaultAbsSender#executeAsync(org.telegram.telegrambots.meta.api.methods.BotApiMethod, AsyncExecutionOptions)}
+ * and {@link DefaultAbsSender#executeAsync(org.telegram.telegrambots.meta.api.methods.PartialBotApiMethod, AsyncExecutionOptions)}
+ * for methods uploading files
+ */
+public class AsyncExecutionOptions {
+    /**
+     * Priority class of the method (default null, from {@link DefaultBotOptions#getAsyncPriorityClassifier()})
+     */
+    private RequestPriority priority;
+    /**
+     * Time the method has to complete, in milliseconds (default 0, no deadline)
+     */
+    private long timeout;
+
+    public RequestPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * @param priority Priority class of the method while it waits for {@link DefaultBotOptions#getMaxAsyncInFlight()},
+     *                 null for the one from {@link DefaultBotOptions#getAsyncPriorityClassifier()}
+     */
+    public void setPriority(RequestPriority priority) {
+        this.priority = priority;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @param timeout Time in milliseconds the method has to complete, including the time it waits in queues,
+     *                for the rate limiter and between retries. 0 for no deadline.
+     * @implSpec When it passes, the future fails with a TelegramApiException caused by a TimeoutException
+     * and the method is aborted as if the future was cancelled
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+}
@@ -1,20 +1,32 @@
 package org.telegram.telegrambots.bots;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.config.RequestConfig;
-import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.util.EntityUtils;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.telegram.telegrambots.facilities.KeyedExecutor;
 import org.telegram.telegrambots.facilities.TelegramHttpClientBuilder;
+import org.telegram.telegrambots.facilities.VirtualThreads;
+import org.telegram.telegrambots.facilities.coalescing.EditCoalescer;
+import org.telegram.telegrambots.facilities.ratelimiter.RateLimiter;
+import org.telegram.telegrambots.facilities.retry.RetryPolicy;
 import org.telegram.telegrambots.facilities.filedownloader.TelegramFileDownloader;
+import org.telegram.telegrambots.facilities.inflight.InFlightLimiter;
+import org.telegram.telegrambots.facilities.inflight.RequestPriority;
+import org.telegram.telegrambots.facilities.transport.ApacheTransport;
+import org.telegram.telegrambots.facilities.transport.JsonEntity;
+import org.telegram.telegrambots.facilities.transport.MultipartEncoder;
+import org.telegram.telegrambots.facilities.transport.TelegramTransport;
+import org.telegram.telegrambots.facilities.transport.TransportResponse;
+import org.telegram.telegrambots.facilities.uploadcache.UploadCache;
 import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.PartialBotApiMethod;
 import org.telegram.telegrambots.meta.api.methods.groupadministration.SetChatPhoto;
 import org.telegram.telegrambots.meta.api.methods.send.SendAnimation;
 import org.telegram.telegrambots.meta.api.methods.send.SendAudio;
@@ -33,29 +45,33 @@ import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageMe
 import org.telegram.telegrambots.meta.api.objects.File;
 import org.telegram.telegrambots.meta.api.objects.InputFile;
 import org.telegram.telegrambots.meta.api.objects.Message;
-import org.telegram.telegrambots.meta.api.objects.media.InputMedia;
-import org.telegram.telegrambots.meta.api.objects.media.InputMediaAnimation;
-import org.telegram.telegrambots.meta.api.objects.media.InputMediaAudio;
-import org.telegram.telegrambots.meta.api.objects.media.InputMediaDocument;
-import org.telegram.telegrambots.meta.api.objects.media.InputMediaVideo;
-import org.telegram.telegrambots.meta.api.objects.stickers.InputSticker;
 import org.telegram.telegrambots.meta.bots.AbsSender;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiValidationException;
 import org.telegram.telegrambots.meta.updateshandlers.DownloadFileCallback;
 import org.telegram.telegrambots.meta.updateshandlers.SentCallback;
+import org.telegram.telegrambots.util.ChatIds;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
-import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 import static org.telegram.telegrambots.Constants.SOCKET_TIMEOUT;
 
@@ -70,12 +86,23 @@ public abstract class DefaultAbsSender extends AbsSender {
     private static final ContentType TEXT_PLAIN_CONTENT_TYPE = ContentType.create("text/plain", StandardCharsets.UTF_8);
 
     protected final ExecutorService exe;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Object pendingAsyncExecutionsLock = new Object();
+    private int pendingAsyncExecutions;
     private final DefaultBotOptions options;
-    private final CloseableHttpClient httpClient;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final TelegramTransport transport;
     private final RequestConfig requestConfig;
     private final TelegramFileDownloader telegramFileDownloader;
     private final String botToken;
+    private final RateLimiter rateLimiter;
+    private final RetryPolicy retryPolicy;
+    private final Object schedulerLock = new Object();
+    private volatile ScheduledExecutorService scheduler;
+    private boolean schedulerShutdown;
+    private final KeyedExecutor sendLanes;
+    private final InFlightLimiter inFlightLimiter;
+    private final UploadCache uploadCache;
+    private final EditCoalescer editCoalescer;
 
     /**
      * If this is used getBotToken has to be overridden in order to return the bot token!
@@ -90,11 +117,14 @@ public abstract class DefaultAbsSender extends AbsSender {
         super();
         this.botToken = botToken;
 
-        this.exe = Executors.newFixedThreadPool(options.getMaxThreads());
+        this.exe = createExecutorService(options);
         this.options = options;
+        this.rateLimiter = options.getRateLimiter();
+        this.retryPolicy = options.getRetryPolicy();
+        this.sendLanes = options.isOrderedAsyncExecution() ? new KeyedExecutor(options.getOrderedAsyncQueueCapacity()) : null;
+        this.uploadCache = options.getUploadCache();
+        this.editCoalescer = options.getMaxMessageEditsPerSecond() > 0 ? new EditCoalescer(options.getMaxMessageEditsPerSecond(), getScheduler()) : null;
 
-        httpClient = TelegramHttpClientBuilder.build(options);
-        this.telegramFileDownloader = new TelegramFileDownloader(httpClient, this::getBotToken);
         configureHttpContext();
 
         final RequestConfig configFromOptions = options.getRequestConfig();
@@ -106,6 +136,20 @@ public abstract class DefaultAbsSender extends AbsSender {
                     .setConnectTimeout(SOCKET_TIMEOUT)
                     .setConnectionRequestTimeout(SOCKET_TIMEOUT).build();
         }
+        TelegramTransport customTransport = createCustomTransport(options);
+        if (customTransport != null) {
+            // The pool of the default transport would never be used
+            this.connectionManager = null;
+            this.transport = customTransport;
+        } else {
+            this.connectionManager = TelegramHttpClientBuilder.createConnectionManager(options);
+            CloseableHttpClient httpClient = TelegramHttpClientBuilder.build(options, connectionManager);
+            this.transport = new ApacheTransport(httpClient, createAsyncHttpClient(options), requestConfig, options.getHttpContext());
+        }
+        this.telegramFileDownloader = new TelegramFileDownloader(transport, this::getBotToken);
+        int maxAsyncInFlight = getMaxAsyncInFlight(options, exe, transport);
+        this.inFlightLimiter = maxAsyncInFlight > 0 ? new InFlightLimiter(maxAsyncInFlight,
+                options.getAsyncQueueCapacity(), options.getAsyncOverflowPolicy(), options.getAsyncPriorityAging()) : null;
     }
 
     /**
@@ -164,287 +208,27 @@ public abstract class DefaultAbsSender extends AbsSender {
 
     @Override
     public final Message execute(SendDocument sendDocument) throws TelegramApiException {
-        assertParamNotNull(sendDocument, "sendDocument");
-
-        sendDocument.validate();
-        try {
-            String url = getBaseUrl() + SendDocument.PATH;
-            HttpPost httppost = configuredHttpPost(url);
-
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.setLaxMode();
-            builder.setCharset(StandardCharsets.UTF_8);
-            builder.addTextBody(SendDocument.CHATID_FIELD, sendDocument.getChatId(), TEXT_PLAIN_CONTENT_TYPE);
-
-            addInputFile(builder, sendDocument.getDocument(), SendDocument.DOCUMENT_FIELD, true);
-
-            if (sendDocument.getReplyMarkup() != null) {
-                builder.addTextBody(SendDocument.REPLYMARKUP_FIELD, objectMapper.writeValueAsString(sendDocument.getReplyMarkup()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendDocument.getReplyToMessageId() != null) {
-                builder.addTextBody(SendDocument.REPLYTOMESSAGEID_FIELD, sendDocument.getReplyToMessageId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendDocument.getMessageThreadId() != null) {
-                builder.addTextBody(SendDocument.MESSAGETHREADID_FIELD, sendDocument.getMessageThreadId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendDocument.getCaption() != null) {
-                builder.addTextBody(SendDocument.CAPTION_FIELD, sendDocument.getCaption(), TEXT_PLAIN_CONTENT_TYPE);
-                if (sendDocument.getParseMode() != null) {
-                    builder.addTextBody(SendDocument.PARSEMODE_FIELD, sendDocument.getParseMode(), TEXT_PLAIN_CONTENT_TYPE);
-                }
-            }
-            if (sendDocument.getDisableNotification() != null) {
-                builder.addTextBody(SendDocument.DISABLENOTIFICATION_FIELD, sendDocument.getDisableNotification().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendDocument.getProtectContent() != null) {
-                builder.addTextBody(SendDocument.PROTECTCONTENT_FIELD, sendDocument.getProtectContent().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-
-            if (sendDocument.getAllowSendingWithoutReply() != null) {
-                builder.addTextBody(SendDocument.ALLOWSENDINGWITHOUTREPLY_FIELD, sendDocument.getAllowSendingWithoutReply().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendDocument.getDisableContentTypeDetection() != null) {
-                builder.addTextBody(SendDocument.DISABLECONTENTTYPEDETECTION_FIELD, sendDocument.getDisableContentTypeDetection().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendDocument.getCaptionEntities() != null) {
-                builder.addTextBody(SendDocument.CAPTION_ENTITIES_FIELD, objectMapper.writeValueAsString(sendDocument.getCaptionEntities()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-
-            if (sendDocument.getThumbnail() != null) {
-                addInputFile(builder, sendDocument.getThumbnail(), SendDocument.THUMBNAIL_FIELD, false);
-                builder.addTextBody(SendDocument.THUMBNAIL_FIELD, sendDocument.getThumbnail().getAttachName(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-
-            HttpEntity multipart = builder.build();
-            httppost.setEntity(multipart);
-
-            return sendDocument.deserializeResponse(sendHttpPostRequest(httppost));
-        } catch (IOException e) {
-            throw new TelegramApiException("Unable to send document", e);
-        }
+        return executeWithRetries(sendDocument, m -> buildMultipartRequest(m, "sendDocument"));
     }
 
     @Override
     public final Message execute(SendPhoto sendPhoto) throws TelegramApiException {
-        assertParamNotNull(sendPhoto, "sendPhoto");
-
-        sendPhoto.validate();
-        try {
-            String url = getBaseUrl() + SendPhoto.PATH;
-            HttpPost httppost = configuredHttpPost(url);
-
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.setLaxMode();
-            builder.setCharset(StandardCharsets.UTF_8);
-            builder.addTextBody(SendPhoto.CHATID_FIELD, sendPhoto.getChatId(), TEXT_PLAIN_CONTENT_TYPE);
-            addInputFile(builder, sendPhoto.getPhoto(), SendPhoto.PHOTO_FIELD, true);
-
-            if (sendPhoto.getReplyMarkup() != null) {
-                builder.addTextBody(SendPhoto.REPLYMARKUP_FIELD, objectMapper.writeValueAsString(sendPhoto.getReplyMarkup()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendPhoto.getReplyToMessageId() != null) {
-                builder.addTextBody(SendPhoto.REPLYTOMESSAGEID_FIELD, sendPhoto.getReplyToMessageId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendPhoto.getMessageThreadId() != null) {
-                builder.addTextBody(SendPhoto.MESSAGETHREADID_FIELD, sendPhoto.getMessageThreadId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendPhoto.getCaption() != null) {
-                builder.addTextBody(SendPhoto.CAPTION_FIELD, sendPhoto.getCaption(), TEXT_PLAIN_CONTENT_TYPE);
-                if (sendPhoto.getParseMode() != null) {
-                    builder.addTextBody(SendPhoto.PARSEMODE_FIELD, sendPhoto.getParseMode(), TEXT_PLAIN_CONTENT_TYPE);
-                }
-            }
-            if (sendPhoto.getDisableNotification() != null) {
-                builder.addTextBody(SendPhoto.DISABLENOTIFICATION_FIELD, sendPhoto.getDisableNotification().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendPhoto.getAllowSendingWithoutReply() != null) {
-                builder.addTextBody(SendPhoto.ALLOWSENDINGWITHOUTREPLY_FIELD, sendPhoto.getAllowSendingWithoutReply().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendPhoto.getProtectContent() != null) {
-                builder.addTextBody(SendPhoto.PROTECTCONTENT_FIELD, sendPhoto.getProtectContent().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendPhoto.getCaptionEntities() != null) {
-                builder.addTextBody(SendPhoto.CAPTION_ENTITIES_FIELD, objectMapper.writeValueAsString(sendPhoto.getCaptionEntities()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendPhoto.getHasSpoiler() != null) {
-                builder.addTextBody(SendPhoto.HASSPOILER_FIELD, objectMapper.writeValueAsString(sendPhoto.getHasSpoiler()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            HttpEntity multipart = builder.build();
-            httppost.setEntity(multipart);
-
-            return sendPhoto.deserializeResponse(sendHttpPostRequest(httppost));
-        } catch (IOException e) {
-            throw new TelegramApiException("Unable to send photo", e);
-        }
+        return executeWithRetries(sendPhoto, m -> buildMultipartRequest(m, "sendPhoto"));
     }
 
     @Override
     public final Message execute(SendVideo sendVideo) throws TelegramApiException {
-        assertParamNotNull(sendVideo, "sendVideo");
-
-        sendVideo.validate();
-        try {
-            String url = getBaseUrl() + SendVideo.PATH;
-            HttpPost httppost = configuredHttpPost(url);
-
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.setLaxMode();
-            builder.setCharset(StandardCharsets.UTF_8);
-            builder.addTextBody(SendVideo.CHATID_FIELD, sendVideo.getChatId(), TEXT_PLAIN_CONTENT_TYPE);
-            addInputFile(builder, sendVideo.getVideo(), SendVideo.VIDEO_FIELD, true);
-
-            if (sendVideo.getReplyMarkup() != null) {
-                builder.addTextBody(SendVideo.REPLYMARKUP_FIELD, objectMapper.writeValueAsString(sendVideo.getReplyMarkup()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideo.getReplyToMessageId() != null) {
-                builder.addTextBody(SendVideo.REPLYTOMESSAGEID_FIELD, sendVideo.getReplyToMessageId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideo.getMessageThreadId() != null) {
-                builder.addTextBody(SendVideo.MESSAGETHREADID_FIELD, sendVideo.getMessageThreadId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideo.getCaption() != null) {
-                builder.addTextBody(SendVideo.CAPTION_FIELD, sendVideo.getCaption(), TEXT_PLAIN_CONTENT_TYPE);
-                if (sendVideo.getParseMode() != null) {
-                    builder.addTextBody(SendVideo.PARSEMODE_FIELD, sendVideo.getParseMode(), TEXT_PLAIN_CONTENT_TYPE);
-                }
-            }
-            if (sendVideo.getSupportsStreaming() != null) {
-                builder.addTextBody(SendVideo.SUPPORTSSTREAMING_FIELD, sendVideo.getSupportsStreaming().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideo.getDuration() != null) {
-                builder.addTextBody(SendVideo.DURATION_FIELD, sendVideo.getDuration().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideo.getWidth() != null) {
-                builder.addTextBody(SendVideo.WIDTH_FIELD, sendVideo.getWidth().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideo.getHeight() != null) {
-                builder.addTextBody(SendVideo.HEIGHT_FIELD, sendVideo.getHeight().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideo.getDisableNotification() != null) {
-                builder.addTextBody(SendVideo.DISABLENOTIFICATION_FIELD, sendVideo.getDisableNotification().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideo.getProtectContent() != null) {
-                builder.addTextBody(SendVideo.PROTECTCONTENT_FIELD, sendVideo.getProtectContent().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideo.getThumbnail() != null) {
-                addInputFile(builder, sendVideo.getThumbnail(), SendVideo.THUMBNAIL_FIELD, false);
-                builder.addTextBody(SendVideo.THUMBNAIL_FIELD, sendVideo.getThumbnail().getAttachName(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideo.getAllowSendingWithoutReply() != null) {
-                builder.addTextBody(SendVideo.ALLOWSENDINGWITHOUTREPLY_FIELD, sendVideo.getAllowSendingWithoutReply().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideo.getCaptionEntities() != null) {
-                builder.addTextBody(SendVideo.CAPTION_ENTITIES_FIELD, objectMapper.writeValueAsString(sendVideo.getCaptionEntities()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideo.getHasSpoiler() != null) {
-                builder.addTextBody(SendVideo.HASSPOILER_FIELD, objectMapper.writeValueAsString(sendVideo.getHasSpoiler()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-
-            HttpEntity multipart = builder.build();
-            httppost.setEntity(multipart);
-
-            return sendVideo.deserializeResponse(sendHttpPostRequest(httppost));
-        } catch (IOException e) {
-            throw new TelegramApiException("Unable to send video", e);
-        }
+        return executeWithRetries(sendVideo, m -> buildMultipartRequest(m, "sendVideo"));
     }
 
     @Override
     public final Message execute(SendVideoNote sendVideoNote) throws TelegramApiException {
-        assertParamNotNull(sendVideoNote, "sendVideoNote");
-
-        sendVideoNote.validate();
-        try {
-            String url = getBaseUrl() + SendVideoNote.PATH;
-            HttpPost httppost = configuredHttpPost(url);
-
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.setLaxMode();
-            builder.setCharset(StandardCharsets.UTF_8);
-            builder.addTextBody(SendVideoNote.CHATID_FIELD, sendVideoNote.getChatId(), TEXT_PLAIN_CONTENT_TYPE);
-            addInputFile(builder, sendVideoNote.getVideoNote(), SendVideoNote.VIDEONOTE_FIELD, true);
-
-            if (sendVideoNote.getReplyMarkup() != null) {
-                builder.addTextBody(SendVideoNote.REPLYMARKUP_FIELD, objectMapper.writeValueAsString(sendVideoNote.getReplyMarkup()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideoNote.getReplyToMessageId() != null) {
-                builder.addTextBody(SendVideoNote.REPLYTOMESSAGEID_FIELD, sendVideoNote.getReplyToMessageId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideoNote.getMessageThreadId() != null) {
-                builder.addTextBody(SendVideoNote.MESSAGETHREADID_FIELD, sendVideoNote.getMessageThreadId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideoNote.getDuration() != null) {
-                builder.addTextBody(SendVideoNote.DURATION_FIELD, sendVideoNote.getDuration().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideoNote.getLength() != null) {
-                builder.addTextBody(SendVideoNote.LENGTH_FIELD, sendVideoNote.getLength().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideoNote.getDisableNotification() != null) {
-                builder.addTextBody(SendVideoNote.DISABLENOTIFICATION_FIELD, sendVideoNote.getDisableNotification().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideoNote.getProtectContent() != null) {
-                builder.addTextBody(SendVideoNote.PROTECTCONTENT_FIELD, sendVideoNote.getProtectContent().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideoNote.getThumbnail() != null) {
-                addInputFile(builder, sendVideoNote.getThumbnail(), SendVideoNote.THUMBNAIL_FIELD, false);
-                builder.addTextBody(SendVideoNote.THUMBNAIL_FIELD, sendVideoNote.getThumbnail().getAttachName(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVideoNote.getAllowSendingWithoutReply() != null) {
-                builder.addTextBody(SendVideoNote.ALLOWSENDINGWITHOUTREPLY_FIELD, sendVideoNote.getAllowSendingWithoutReply().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            HttpEntity multipart = builder.build();
-            httppost.setEntity(multipart);
-
-
-            return sendVideoNote.deserializeResponse(sendHttpPostRequest(httppost));
-        } catch (IOException e) {
-            throw new TelegramApiException("Unable to send video note", e);
-        }
+        return executeWithRetries(sendVideoNote, m -> buildMultipartRequest(m, "sendVideoNote"));
     }
 
     @Override
     public final Message execute(SendSticker sendSticker) throws TelegramApiException {
-        assertParamNotNull(sendSticker, "sendSticker");
-
-        sendSticker.validate();
-        try {
-            String url = getBaseUrl() + SendSticker.PATH;
-            HttpPost httppost = configuredHttpPost(url);
-
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.setLaxMode();
-            builder.setCharset(StandardCharsets.UTF_8);
-            builder.addTextBody(SendSticker.CHATID_FIELD, sendSticker.getChatId(), TEXT_PLAIN_CONTENT_TYPE);
-            addInputFile(builder, sendSticker.getSticker(), SendSticker.STICKER_FIELD, true);
-
-            if (sendSticker.getReplyMarkup() != null) {
-                builder.addTextBody(SendSticker.REPLYMARKUP_FIELD, objectMapper.writeValueAsString(sendSticker.getReplyMarkup()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendSticker.getReplyToMessageId() != null) {
-                builder.addTextBody(SendSticker.REPLYTOMESSAGEID_FIELD, sendSticker.getReplyToMessageId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendSticker.getMessageThreadId() != null) {
-                builder.addTextBody(SendSticker.MESSAGETHREADID_FIELD, sendSticker.getMessageThreadId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendSticker.getDisableNotification() != null) {
-                builder.addTextBody(SendSticker.DISABLENOTIFICATION_FIELD, sendSticker.getDisableNotification().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendSticker.getProtectContent() != null) {
-                builder.addTextBody(SendSticker.PROTECTCONTENT_FIELD, sendSticker.getProtectContent().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendSticker.getAllowSendingWithoutReply() != null) {
-                builder.addTextBody(SendSticker.ALLOWSENDINGWITHOUTREPLY_FIELD, sendSticker.getAllowSendingWithoutReply().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendSticker.getEmoji() != null) {
-                builder.addTextBody(SendSticker.EMOJI_FIELD, sendSticker.getEmoji(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            HttpEntity multipart = builder.build();
-            httppost.setEntity(multipart);
-
-            return sendSticker.deserializeResponse(sendHttpPostRequest(httppost));
-        } catch (IOException e) {
-            throw new TelegramApiException("Unable to send sticker", e);
-        }
+        return executeWithRetries(sendSticker, m -> buildMultipartRequest(m, "sendSticker"));
     }
 
     /**
@@ -455,66 +239,7 @@ public abstract class DefaultAbsSender extends AbsSender {
      */
     @Override
     public final Message execute(SendAudio sendAudio) throws TelegramApiException {
-        assertParamNotNull(sendAudio, "sendAudio");
-        sendAudio.validate();
-        try {
-            String url = getBaseUrl() + SendAudio.PATH;
-            HttpPost httppost = configuredHttpPost(url);
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.setLaxMode();
-            builder.setCharset(StandardCharsets.UTF_8);
-            builder.addTextBody(SendAudio.CHATID_FIELD, sendAudio.getChatId(), TEXT_PLAIN_CONTENT_TYPE);
-            addInputFile(builder, sendAudio.getAudio(), SendAudio.AUDIO_FIELD, true);
-
-            if (sendAudio.getReplyMarkup() != null) {
-                builder.addTextBody(SendAudio.REPLYMARKUP_FIELD, objectMapper.writeValueAsString(sendAudio.getReplyMarkup()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAudio.getReplyToMessageId() != null) {
-                builder.addTextBody(SendAudio.REPLYTOMESSAGEID_FIELD, sendAudio.getReplyToMessageId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAudio.getMessageThreadId() != null) {
-                builder.addTextBody(SendAudio.MESSAGETHREADID_FIELD, sendAudio.getMessageThreadId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAudio.getPerformer() != null) {
-                builder.addTextBody(SendAudio.PERFOMER_FIELD, sendAudio.getPerformer(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAudio.getTitle() != null) {
-                builder.addTextBody(SendAudio.TITLE_FIELD, sendAudio.getTitle(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if(sendAudio.getDuration() != null){
-                builder.addTextBody(SendAudio.DURATION_FIELD, sendAudio.getDuration().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAudio.getDisableNotification() != null) {
-                builder.addTextBody(SendAudio.DISABLENOTIFICATION_FIELD, sendAudio.getDisableNotification().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAudio.getCaption() != null) {
-                builder.addTextBody(SendAudio.CAPTION_FIELD, sendAudio.getCaption(), TEXT_PLAIN_CONTENT_TYPE);
-                if (sendAudio.getParseMode() != null) {
-                    builder.addTextBody(SendAudio.PARSEMODE_FIELD, sendAudio.getParseMode(), TEXT_PLAIN_CONTENT_TYPE);
-                }
-            }
-            if (sendAudio.getThumbnail() != null) {
-                addInputFile(builder, sendAudio.getThumbnail(), SendAudio.THUMBNAIL_FIELD, false);
-                builder.addTextBody(SendAudio.THUMBNAIL_FIELD, sendAudio.getThumbnail().getAttachName(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAudio.getAllowSendingWithoutReply() != null) {
-                builder.addTextBody(SendAudio.ALLOWSENDINGWITHOUTREPLY_FIELD, sendAudio.getAllowSendingWithoutReply().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAudio.getProtectContent() != null) {
-                builder.addTextBody(SendAudio.PROTECTCONTENT_FIELD, sendAudio.getProtectContent().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAudio.getCaptionEntities() != null) {
-                builder.addTextBody(SendAudio.CAPTION_ENTITIES_FIELD, objectMapper.writeValueAsString(sendAudio.getCaptionEntities()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-
-            HttpEntity multipart = builder.build();
-            httppost.setEntity(multipart);
-
-
-            return sendAudio.deserializeResponse(sendHttpPostRequest(httppost));
-        } catch (IOException e) {
-            throw new TelegramApiException("Unable to send audio", e);
-        }
+        return executeWithRetries(sendAudio, m -> buildMultipartRequest(m, "sendAudio"));
     }
 
     /**
@@ -526,548 +251,149 @@ public abstract class DefaultAbsSender extends AbsSender {
      */
     @Override
     public final Message execute(SendVoice sendVoice) throws TelegramApiException {
-        assertParamNotNull(sendVoice, "sendVoice");
-        sendVoice.validate();
-        try {
-            String url = getBaseUrl() + SendVoice.PATH;
-            HttpPost httppost = configuredHttpPost(url);
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.setLaxMode();
-            builder.setCharset(StandardCharsets.UTF_8);
-            builder.addTextBody(SendVoice.CHATID_FIELD, sendVoice.getChatId(), TEXT_PLAIN_CONTENT_TYPE);
-            addInputFile(builder, sendVoice.getVoice(), SendVoice.VOICE_FIELD, true);
-
-            if (sendVoice.getReplyMarkup() != null) {
-                builder.addTextBody(SendVoice.REPLYMARKUP_FIELD, objectMapper.writeValueAsString(sendVoice.getReplyMarkup()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVoice.getReplyToMessageId() != null) {
-                builder.addTextBody(SendVoice.REPLYTOMESSAGEID_FIELD, sendVoice.getReplyToMessageId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVoice.getMessageThreadId() != null) {
-                builder.addTextBody(SendVoice.MESSAGETHREADID_FIELD, sendVoice.getMessageThreadId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVoice.getDisableNotification() != null) {
-                builder.addTextBody(SendVoice.DISABLENOTIFICATION_FIELD, sendVoice.getDisableNotification().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVoice.getDuration() != null) {
-                builder.addTextBody(SendVoice.DURATION_FIELD, sendVoice.getDuration().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVoice.getCaption() != null) {
-                builder.addTextBody(SendVoice.CAPTION_FIELD, sendVoice.getCaption(), TEXT_PLAIN_CONTENT_TYPE);
-                if (sendVoice.getParseMode() != null) {
-                    builder.addTextBody(SendVoice.PARSEMODE_FIELD, sendVoice.getParseMode(), TEXT_PLAIN_CONTENT_TYPE);
-                }
-            }
-            if (sendVoice.getAllowSendingWithoutReply() != null) {
-                builder.addTextBody(SendVoice.ALLOWSENDINGWITHOUTREPLY_FIELD, sendVoice.getAllowSendingWithoutReply().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVoice.getProtectContent() != null) {
-                builder.addTextBody(SendVoice.PROTECTCONTENT_FIELD, sendVoice.getProtectContent().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendVoice.getCaptionEntities() != null) {
-                builder.addTextBody(SendVoice.CAPTION_ENTITIES_FIELD, objectMapper.writeValueAsString(sendVoice.getCaptionEntities()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            HttpEntity multipart = builder.build();
-            httppost.setEntity(multipart);
-
-            return sendVoice.deserializeResponse(sendHttpPostRequest(httppost));
-        } catch (IOException e) {
-            throw new TelegramApiException("Unable to send voice", e);
-        }
+        return executeWithRetries(sendVoice, m -> buildMultipartRequest(m, "sendVoice"));
     }
 
     @Override
     public Boolean execute(SetChatPhoto setChatPhoto) throws TelegramApiException {
+        return executeWithRetries(setChatPhoto, m -> buildRequest((SetChatPhoto) m));
+    }
+
+    private HttpPost buildRequest(SetChatPhoto setChatPhoto) throws TelegramApiException {
         assertParamNotNull(setChatPhoto, "setChatPhoto");
         setChatPhoto.validate();
 
-        try {
-            String url = getBaseUrl() + SetChatPhoto.PATH;
-            HttpPost httppost = configuredHttpPost(url);
-
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.setLaxMode();
-            builder.setCharset(StandardCharsets.UTF_8);
-            builder.addTextBody(SetChatPhoto.CHATID_FIELD, setChatPhoto.getChatId(), TEXT_PLAIN_CONTENT_TYPE);
-            InputFile photo = setChatPhoto.getPhoto();
-            if (photo.getNewMediaFile() != null) {
-                builder.addBinaryBody(SetChatPhoto.PHOTO_FIELD, photo.getNewMediaFile());
-            } else if (photo.getNewMediaStream() != null) {
-                builder.addBinaryBody(SetChatPhoto.PHOTO_FIELD, photo.getNewMediaStream(), ContentType.APPLICATION_OCTET_STREAM, photo.getMediaName());
-            }
-            HttpEntity multipart = builder.build();
-            httppost.setEntity(multipart);
+        String url = getBaseUrl() + SetChatPhoto.PATH;
+        HttpPost httppost = configuredHttpPost(url);
 
-            return setChatPhoto.deserializeResponse(sendHttpPostRequest(httppost));
-        } catch (IOException e) {
-            throw new TelegramApiException("Unable to set chat photo", e);
+        MultipartEntityBuilder builder = MultipartEntityBuilder.create();
+        builder.setLaxMode();
+        builder.setCharset(StandardCharsets.UTF_8);
+        builder.addTextBody(SetChatPhoto.CHATID_FIELD, setChatPhoto.getChatId(), TEXT_PLAIN_CONTENT_TYPE);
+        InputFile photo = setChatPhoto.getPhoto();
+        if (photo.getNewMediaFile() != null) {
+            builder.addBinaryBody(SetChatPhoto.PHOTO_FIELD, photo.getNewMediaFile());
+        } else if (photo.getNewMediaStream() != null) {
+            builder.addBinaryBody(SetChatPhoto.PHOTO_FIELD, photo.getNewMediaStream(), ContentType.APPLICATION_OCTET_STREAM, photo.getMediaName());
+        } else {
+            MultipartEncoder.addFileRegion(builder, SetChatPhoto.PHOTO_FIELD, photo);
         }
+        HttpEntity multipart = builder.build();
+        httppost.setEntity(multipart);
+
+        return httppost;
     }
 
     @Override
     public List<Message> execute(SendMediaGroup sendMediaGroup) throws TelegramApiException {
-        assertParamNotNull(sendMediaGroup, "sendMediaGroup");
-        sendMediaGroup.validate();
-
-        try {
-            String url = getBaseUrl() + SendMediaGroup.PATH;
-            HttpPost httppost = configuredHttpPost(url);
-
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.setLaxMode();
-            builder.setCharset(StandardCharsets.UTF_8);
-            builder.addTextBody(SendMediaGroup.CHATID_FIELD, sendMediaGroup.getChatId(), TEXT_PLAIN_CONTENT_TYPE);
-            addInputData(builder, sendMediaGroup.getMedias(), SendMediaGroup.MEDIA_FIELD);
-
-            if (sendMediaGroup.getDisableNotification() != null) {
-                builder.addTextBody(SendMediaGroup.DISABLENOTIFICATION_FIELD, sendMediaGroup.getDisableNotification().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-
-            if (sendMediaGroup.getReplyToMessageId() != null) {
-                builder.addTextBody(SendMediaGroup.REPLYTOMESSAGEID_FIELD, sendMediaGroup.getReplyToMessageId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendMediaGroup.getMessageThreadId() != null) {
-                builder.addTextBody(SendMediaGroup.MESSAGETHREADID_FIELD, sendMediaGroup.getMessageThreadId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendMediaGroup.getAllowSendingWithoutReply() != null) {
-                builder.addTextBody(SendMediaGroup.ALLOWSENDINGWITHOUTREPLY_FIELD, sendMediaGroup.getAllowSendingWithoutReply().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendMediaGroup.getProtectContent() != null) {
-                builder.addTextBody(SendMediaGroup.PROTECTCONTENT_FIELD, sendMediaGroup.getProtectContent().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-
-
-            HttpEntity multipart = builder.build();
-            httppost.setEntity(multipart);
-
-            return sendMediaGroup.deserializeResponse(sendHttpPostRequest(httppost));
-        } catch (IOException e) {
-            throw new TelegramApiException("Unable to set chat photo", e);
-        }
+        return executeWithRetries(sendMediaGroup, m -> buildMultipartRequest(m, "sendMediaGroup"));
     }
 
     @Override
     public Boolean execute(AddStickerToSet addStickerToSet) throws TelegramApiException {
-        assertParamNotNull(addStickerToSet, "addStickerToSet");
-        addStickerToSet.validate();
-        try {
-            String url = getBaseUrl() + AddStickerToSet.PATH;
-            HttpPost httppost = configuredHttpPost(url);
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.setLaxMode();
-            builder.setCharset(StandardCharsets.UTF_8);
-            builder.addTextBody(AddStickerToSet.USERID_FIELD, addStickerToSet.getUserId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            builder.addTextBody(AddStickerToSet.NAME_FIELD, addStickerToSet.getName(), TEXT_PLAIN_CONTENT_TYPE);
-
-            if (addStickerToSet.getSticker() != null) {
-                addStickers(builder, Collections.singletonList(addStickerToSet.getSticker()), AddStickerToSet.STICKER_FIELD);
-            } else {
-                // Support Deprecated
-                builder.addTextBody(AddStickerToSet.EMOJIS_FIELD, addStickerToSet.getEmojis(), TEXT_PLAIN_CONTENT_TYPE);
-                if (addStickerToSet.getPngSticker() != null) {
-                    addInputFile(builder, addStickerToSet.getPngSticker(), AddStickerToSet.PNGSTICKER_FIELD, true);
-                } else if (addStickerToSet.getTgsSticker() != null) {
-                    addInputFile(builder, addStickerToSet.getTgsSticker(), AddStickerToSet.TGSSTICKER_FIELD, true);
-                } else {
-                    addInputFile(builder, addStickerToSet.getWebmSticker(), AddStickerToSet.WEBMSTICKER_FIELD, true);
-                }
-
-                if (addStickerToSet.getMaskPosition() != null) {
-                    builder.addTextBody(AddStickerToSet.MASKPOSITION_FIELD, objectMapper.writeValueAsString(addStickerToSet.getMaskPosition()), TEXT_PLAIN_CONTENT_TYPE);
-                }
-            }
-            HttpEntity multipart = builder.build();
-            httppost.setEntity(multipart);
-
-            return addStickerToSet.deserializeResponse(sendHttpPostRequest(httppost));
-        } catch (IOException e) {
-            throw new TelegramApiException("Unable to add sticker to set", e);
-        }
+        return executeWithRetries(addStickerToSet, m -> buildMultipartRequest(m, "addStickerToSet"));
     }
 
     @Override
     public Boolean execute(SetStickerSetThumb setStickerSetThumb) throws TelegramApiException {
-        assertParamNotNull(setStickerSetThumb, "setStickerSetThumb");
-        setStickerSetThumb.validate();
-        try {
-            String url = getBaseUrl() + SetStickerSetThumb.PATH;
-            HttpPost httppost = configuredHttpPost(url);
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.setLaxMode();
-            builder.setCharset(StandardCharsets.UTF_8);
-            builder.addTextBody(SetStickerSetThumb.USERID_FIELD, setStickerSetThumb.getUserId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            builder.addTextBody(SetStickerSetThumb.NAME_FIELD, setStickerSetThumb.getName(), TEXT_PLAIN_CONTENT_TYPE);
-            if (setStickerSetThumb.getThumb() != null) {
-                addInputFile(builder, setStickerSetThumb.getThumb(), SetStickerSetThumb.THUMB_FIELD, true);
-            }
-            HttpEntity multipart = builder.build();
-            httppost.setEntity(multipart);
-
-            return setStickerSetThumb.deserializeResponse(sendHttpPostRequest(httppost));
-        } catch (IOException e) {
-            throw new TelegramApiException("Unable to set sticker set thumb", e);
-        }
+        return executeWithRetries(setStickerSetThumb, m -> buildMultipartRequest(m, "setStickerSetThumb"));
     }
 
     @Override
     public Boolean execute(CreateNewStickerSet createNewStickerSet) throws TelegramApiException {
-        assertParamNotNull(createNewStickerSet, "createNewStickerSet");
-        createNewStickerSet.validate();
-        try {
-            String url = getBaseUrl() + CreateNewStickerSet.PATH;
-            HttpPost httppost = configuredHttpPost(url);
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.setLaxMode();
-            builder.setCharset(StandardCharsets.UTF_8);
-            builder.addTextBody(CreateNewStickerSet.USERID_FIELD, createNewStickerSet.getUserId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            builder.addTextBody(CreateNewStickerSet.NAME_FIELD, createNewStickerSet.getName(), TEXT_PLAIN_CONTENT_TYPE);
-            builder.addTextBody(CreateNewStickerSet.TITLE_FIELD, createNewStickerSet.getTitle(), TEXT_PLAIN_CONTENT_TYPE);
-            builder.addTextBody(CreateNewStickerSet.STICKER_FORMAT_FIELD, createNewStickerSet.getStickerFormat(), TEXT_PLAIN_CONTENT_TYPE);
-            builder.addTextBody(CreateNewStickerSet.STICKERTYPE_FIELD, createNewStickerSet.getStickerType(), TEXT_PLAIN_CONTENT_TYPE);
-            if (createNewStickerSet.getNeedsRepainting() != null) {
-                builder.addTextBody(CreateNewStickerSet.NEEDS_REPAINTING_FIELD, createNewStickerSet.getNeedsRepainting().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (!createNewStickerSet.getStickers().isEmpty()) {
-                addStickers(builder, createNewStickerSet.getStickers(), CreateNewStickerSet.STICKERS_FIELD);
-            }
-
-            // Support Deprecated
-            builder.addTextBody(CreateNewStickerSet.EMOJIS_FIELD, createNewStickerSet.getEmojis(), TEXT_PLAIN_CONTENT_TYPE);
-            if (createNewStickerSet.getPngSticker() != null) {
-                addInputFile(builder, createNewStickerSet.getPngSticker(), CreateNewStickerSet.PNGSTICKER_FIELD, true);
-            } else if (createNewStickerSet.getTgsSticker() != null)  {
-                addInputFile(builder, createNewStickerSet.getTgsSticker(), CreateNewStickerSet.TGSSTICKER_FIELD, true);
-            } else {
-                addInputFile(builder, createNewStickerSet.getWebmSticker(), CreateNewStickerSet.WEBMSTICKER_FIELD, true);
-            }
-            if (createNewStickerSet.getMaskPosition() != null) {
-                builder.addTextBody(CreateNewStickerSet.MASKPOSITION_FIELD, objectMapper.writeValueAsString(createNewStickerSet.getMaskPosition()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-
-            HttpEntity multipart = builder.build();
-            httppost.setEntity(multipart);
-
-            return createNewStickerSet.deserializeResponse(sendHttpPostRequest(httppost));
-        } catch (IOException e) {
-            throw new TelegramApiException("Unable to create new sticker set", e);
-        }
+        return executeWithRetries(createNewStickerSet, m -> buildMultipartRequest(m, "createNewStickerSet"));
     }
 
     @Override
     public File execute(UploadStickerFile uploadStickerFile) throws TelegramApiException {
-        assertParamNotNull(uploadStickerFile, "uploadStickerFile");
-        uploadStickerFile.validate();
-        try {
-            String url = getBaseUrl() + UploadStickerFile.PATH;
-            HttpPost httppost = configuredHttpPost(url);
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.setLaxMode();
-            builder.setCharset(StandardCharsets.UTF_8);
-            builder.addTextBody(UploadStickerFile.USERID_FIELD, uploadStickerFile.getUserId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            builder.addTextBody(UploadStickerFile.STICKER_FORMAT_FIELD, uploadStickerFile.getStickerFormat(), TEXT_PLAIN_CONTENT_TYPE);
-            addInputFile(builder, uploadStickerFile.getSticker(), UploadStickerFile.STICKER_FIELD, true);
-            HttpEntity multipart = builder.build();
-            httppost.setEntity(multipart);
-
-            return uploadStickerFile.deserializeResponse(sendHttpPostRequest(httppost));
-        } catch (IOException e) {
-            throw new TelegramApiException("Unable to upload new sticker file", e);
-        }
+        return executeWithRetries(uploadStickerFile, m -> buildMultipartRequest(m, "uploadStickerFile"));
     }
 
     @Override
     public Serializable execute(EditMessageMedia editMessageMedia) throws TelegramApiException {
-        assertParamNotNull(editMessageMedia, "editMessageMedia");
-        editMessageMedia.validate();
-        try {
-            String url = getBaseUrl() + EditMessageMedia.PATH;
-            HttpPost httppost = configuredHttpPost(url);
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.setLaxMode();
-            builder.setCharset(StandardCharsets.UTF_8);
-            if (editMessageMedia.getInlineMessageId() == null) {
-                builder.addTextBody(EditMessageMedia.CHATID_FIELD, editMessageMedia.getChatId(), TEXT_PLAIN_CONTENT_TYPE);
-                builder.addTextBody(EditMessageMedia.MESSAGEID_FIELD, editMessageMedia.getMessageId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-
-            } else {
-                builder.addTextBody(EditMessageMedia.INLINE_MESSAGE_ID_FIELD, editMessageMedia.getInlineMessageId(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (editMessageMedia.getReplyMarkup() != null) {
-                builder.addTextBody(EditMessageMedia.REPLYMARKUP_FIELD, objectMapper.writeValueAsString(editMessageMedia.getReplyMarkup()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-
-            addInputData(builder, editMessageMedia.getMedia(), EditMessageMedia.MEDIA_FIELD, true);
-
-            HttpEntity multipart = builder.build();
-            httppost.setEntity(multipart);
-
-            return editMessageMedia.deserializeResponse(sendHttpPostRequest(httppost));
-        } catch (IOException e) {
-            throw new TelegramApiException("Unable to edit message media", e);
-        }
+        return executeWithRetries(editMessageMedia, m -> buildMultipartRequest(m, "editMessageMedia"));
     }
 
     @Override
     public Message execute(SendAnimation sendAnimation) throws TelegramApiException {
-        assertParamNotNull(sendAnimation, "sendAnimation");
-        sendAnimation.validate();
-        try {
-            String url = getBaseUrl() + SendAnimation.PATH;
-            HttpPost httppost = configuredHttpPost(url);
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.setLaxMode();
-            builder.setCharset(StandardCharsets.UTF_8);
-            builder.addTextBody(SendAnimation.CHATID_FIELD, sendAnimation.getChatId(), TEXT_PLAIN_CONTENT_TYPE);
-            addInputFile(builder, sendAnimation.getAnimation(), SendAnimation.ANIMATION_FIELD, true);
-
-            if (sendAnimation.getReplyMarkup() != null) {
-                builder.addTextBody(SendAnimation.REPLYMARKUP_FIELD, objectMapper.writeValueAsString(sendAnimation.getReplyMarkup()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAnimation.getReplyToMessageId() != null) {
-                builder.addTextBody(SendAnimation.REPLYTOMESSAGEID_FIELD, sendAnimation.getReplyToMessageId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAnimation.getMessageThreadId() != null) {
-                builder.addTextBody(SendAnimation.MESSAGETHREADID_FIELD, sendAnimation.getMessageThreadId().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAnimation.getDisableNotification() != null) {
-                builder.addTextBody(SendAnimation.DISABLENOTIFICATION_FIELD, sendAnimation.getDisableNotification().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAnimation.getDuration() != null) {
-                builder.addTextBody(SendAnimation.DURATION_FIELD, sendAnimation.getDuration().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAnimation.getWidth() != null) {
-                builder.addTextBody(SendAnimation.WIDTH_FIELD, sendAnimation.getWidth().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAnimation.getHeight() != null) {
-                builder.addTextBody(SendAnimation.HEIGHT_FIELD, sendAnimation.getHeight().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAnimation.getThumbnail() != null) {
-                addInputFile(builder, sendAnimation.getThumbnail(), SendAnimation.THUMBNAIL_FIELD, false);
-                builder.addTextBody(SendAnimation.THUMBNAIL_FIELD, sendAnimation.getThumbnail().getAttachName(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-
-            if (sendAnimation.getCaption() != null) {
-                builder.addTextBody(SendAnimation.CAPTION_FIELD, sendAnimation.getCaption(), TEXT_PLAIN_CONTENT_TYPE);
-                if (sendAnimation.getParseMode() != null) {
-                    builder.addTextBody(SendAnimation.PARSEMODE_FIELD, sendAnimation.getParseMode(), TEXT_PLAIN_CONTENT_TYPE);
-                }
-            }
-            if (sendAnimation.getAllowSendingWithoutReply() != null) {
-                builder.addTextBody(SendAnimation.ALLOWSENDINGWITHOUTREPLY_FIELD, sendAnimation.getAllowSendingWithoutReply().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAnimation.getProtectContent() != null) {
-                builder.addTextBody(SendAnimation.PROTECTCONTENT_FIELD, sendAnimation.getProtectContent().toString(), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAnimation.getCaptionEntities() != null) {
-                builder.addTextBody(SendAnimation.CAPTION_ENTITIES_FIELD, objectMapper.writeValueAsString(sendAnimation.getCaptionEntities()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            if (sendAnimation.getHasSpoiler() != null) {
-                builder.addTextBody(SendAnimation.HASSPOILER_FIELD, objectMapper.writeValueAsString(sendAnimation.getHasSpoiler()), TEXT_PLAIN_CONTENT_TYPE);
-            }
-            HttpEntity multipart = builder.build();
-            httppost.setEntity(multipart);
-
-            return sendAnimation.deserializeResponse(sendHttpPostRequest(httppost));
-        } catch (IOException e) {
-            throw new TelegramApiException("Unable to edit message media", e);
-        }
+        return executeWithRetries(sendAnimation, m -> buildMultipartRequest(m, "sendAnimation"));
     }
 
     // Async Methods
 
     @Override
     public CompletableFuture<Message> executeAsync(SendDocument sendDocument) {
-        CompletableFuture<Message> completableFuture = new CompletableFuture<>();
-        exe.submit(() -> {
-            try {
-                completableFuture.complete(execute(sendDocument));
-            } catch (TelegramApiException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return executeAsyncWithRetries(sendDocument, m -> buildMultipartRequest(m, "sendDocument"));
     }
 
     @Override
     public CompletableFuture<Message> executeAsync(SendPhoto sendPhoto) {
-        CompletableFuture<Message> completableFuture = new CompletableFuture<>();
-        exe.submit(() -> {
-            try {
-                completableFuture.complete(execute(sendPhoto));
-            } catch (TelegramApiException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return executeAsyncWithRetries(sendPhoto, m -> buildMultipartRequest(m, "sendPhoto"));
     }
 
     @Override
     public CompletableFuture<Message> executeAsync(SendVideo sendVideo) {
-        CompletableFuture<Message> completableFuture = new CompletableFuture<>();
-        exe.submit(() -> {
-            try {
-                completableFuture.complete(execute(sendVideo));
-            } catch (TelegramApiException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return executeAsyncWithRetries(sendVideo, m -> buildMultipartRequest(m, "sendVideo"));
     }
 
     @Override
     public CompletableFuture<Message> executeAsync(SendVideoNote sendVideoNote) {
-        CompletableFuture<Message> completableFuture = new CompletableFuture<>();
-        exe.submit(() -> {
-            try {
-                completableFuture.complete(execute(sendVideoNote));
-            } catch (TelegramApiException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return executeAsyncWithRetries(sendVideoNote, m -> buildMultipartRequest(m, "sendVideoNote"));
     }
 
     @Override
     public CompletableFuture<Message> executeAsync(SendSticker sendSticker) {
-        CompletableFuture<Message> completableFuture = new CompletableFuture<>();
-        exe.submit(() -> {
-            try {
-                completableFuture.complete(execute(sendSticker));
-            } catch (TelegramApiException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return executeAsyncWithRetries(sendSticker, m -> buildMultipartRequest(m, "sendSticker"));
     }
 
     @Override
     public CompletableFuture<Message> executeAsync(SendAudio sendAudio) {
-        CompletableFuture<Message> completableFuture = new CompletableFuture<>();
-        exe.submit(() -> {
-            try {
-                completableFuture.complete(execute(sendAudio));
-            } catch (TelegramApiException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return executeAsyncWithRetries(sendAudio, m -> buildMultipartRequest(m, "sendAudio"));
     }
 
     @Override
     public CompletableFuture<Message> executeAsync(SendVoice sendVoice) {
-        CompletableFuture<Message> completableFuture = new CompletableFuture<>();
-        exe.submit(() -> {
-            try {
-                completableFuture.complete(execute(sendVoice));
-            } catch (TelegramApiException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return executeAsyncWithRetries(sendVoice, m -> buildMultipartRequest(m, "sendVoice"));
     }
 
     @Override
     public CompletableFuture<List<Message>> executeAsync(SendMediaGroup sendMediaGroup) {
-        CompletableFuture<List<Message>> completableFuture = new CompletableFuture<>();
-        exe.submit(() -> {
-            try {
-                completableFuture.complete(execute(sendMediaGroup));
-            } catch (TelegramApiException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return executeAsyncWithRetries(sendMediaGroup, m -> buildMultipartRequest(m, "sendMediaGroup"));
     }
 
     @Override
     public CompletableFuture<Boolean> executeAsync(SetChatPhoto setChatPhoto) {
-        CompletableFuture<Boolean> completableFuture = new CompletableFuture<>();
-        exe.submit(() -> {
-            try {
-                completableFuture.complete(execute(setChatPhoto));
-            } catch (TelegramApiException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return executeAsyncWithRetries(setChatPhoto, m -> buildRequest((SetChatPhoto) m));
     }
 
     @Override
     public CompletableFuture<Boolean> executeAsync(AddStickerToSet addStickerToSet) {
-        CompletableFuture<Boolean> completableFuture = new CompletableFuture<>();
-        exe.submit(() -> {
-            try {
-                completableFuture.complete(execute(addStickerToSet));
-            } catch (TelegramApiException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return executeAsyncWithRetries(addStickerToSet, m -> buildMultipartRequest(m, "addStickerToSet"));
     }
 
     @Override
     public CompletableFuture<Boolean> executeAsync(SetStickerSetThumb setStickerSetThumb) {
-        CompletableFuture<Boolean> completableFuture = new CompletableFuture<>();
-        exe.submit(() -> {
-            try {
-                completableFuture.complete(execute(setStickerSetThumb));
-            } catch (TelegramApiException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return executeAsyncWithRetries(setStickerSetThumb, m -> buildMultipartRequest(m, "setStickerSetThumb"));
     }
 
     @Override
     public CompletableFuture<Boolean> executeAsync(CreateNewStickerSet createNewStickerSet) {
-        CompletableFuture<Boolean> completableFuture = new CompletableFuture<>();
-        exe.submit(() -> {
-            try {
-                completableFuture.complete(execute(createNewStickerSet));
-            } catch (TelegramApiException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return executeAsyncWithRetries(createNewStickerSet, m -> buildMultipartRequest(m, "createNewStickerSet"));
     }
 
     @Override
     public CompletableFuture<File> executeAsync(UploadStickerFile uploadStickerFile) {
-        CompletableFuture<File> completableFuture = new CompletableFuture<>();
-        exe.submit(() -> {
-            try {
-                completableFuture.complete(execute(uploadStickerFile));
-            } catch (TelegramApiException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return executeAsyncWithRetries(uploadStickerFile, m -> buildMultipartRequest(m, "uploadStickerFile"));
     }
 
     @Override
     public CompletableFuture<Serializable> executeAsync(EditMessageMedia editMessageMedia) {
-        CompletableFuture<Serializable> completableFuture = new CompletableFuture<>();
-        exe.submit(() -> {
-            try {
-                completableFuture.complete(execute(editMessageMedia));
-            } catch (TelegramApiException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return executeAsyncWithRetries(editMessageMedia, m -> buildMultipartRequest(m, "editMessageMedia"));
     }
 
     @Override
     public CompletableFuture<Message> executeAsync(SendAnimation sendAnimation) {
-        CompletableFuture<Message> completableFuture = new CompletableFuture<>();
-        exe.submit(() -> {
-            try {
-                completableFuture.complete(execute(sendAnimation));
-            } catch (TelegramApiException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return executeAsyncWithRetries(sendAnimation, m -> buildMultipartRequest(m, "sendAnimation"));
     }
 
 
@@ -1075,34 +401,36 @@ public abstract class DefaultAbsSender extends AbsSender {
 
     @Override
     protected final <T extends Serializable, Method extends BotApiMethod<T>, Callback extends SentCallback<T>> void sendApiMethodAsync(Method method, Callback callback) {
-        //noinspection Convert2Lambda
-        exe.submit(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    String responseContent = sendMethodRequest(method);
-                    try {
-                        callback.onResult(method, method.deserializeResponse(responseContent));
-                    } catch (TelegramApiRequestException e) {
-                        callback.onError(method, e);
-                    }
-                } catch (IOException | TelegramApiValidationException e) {
-                    callback.onException(method, e);
-                }
-
+        executeAsyncWithRetries(method, this::buildJsonRequest).whenComplete((result, error) -> {
+            if (error == null) {
+                callback.onResult(method, result);
+            } else if (error instanceof TelegramApiRequestException) {
+                callback.onError(method, (TelegramApiRequestException) error);
+            } else {
+                callback.onException(method, (Exception) unwrapIOException(error));
             }
         });
     }
 
     @Override
     protected <T extends Serializable, Method extends BotApiMethod<T>> CompletableFuture<T> sendApiMethodAsync(Method method) {
+        return sendApiMethodAsync(method, getPriority(method), 0);
+    }
+
+    private <T extends Serializable, Method extends BotApiMethod<T>> CompletableFuture<T> sendApiMethodAsync(Method method, RequestPriority priority,
+                                                                                                              long timeoutMillis) {
         CompletableFuture<T> completableFuture = new CompletableFuture<>();
-        exe.submit(() -> {
-            try {
-                String responseContent = sendMethodRequest(method);
-                completableFuture.complete(method.deserializeResponse(responseContent));
-            } catch (IOException | TelegramApiValidationException | TelegramApiRequestException e) {
-                completableFuture.completeExceptionally(e);
+        CompletableFuture<T> execution = executeAsyncWithRetries(method, priority, timeoutMillis, this::buildJsonRequest);
+        execution.whenComplete((result, error) -> {
+            if (error == null) {
+                completableFuture.complete(result);
+            } else {
+                completableFuture.completeExceptionally(unwrapIOException(error));
+            }
+        });
+        completableFuture.whenComplete((result, error) -> {
+            if (completableFuture.isCancelled()) {
+                execution.cancel(false);
             }
         });
         return completableFuture;
@@ -1110,117 +438,692 @@ public abstract class DefaultAbsSender extends AbsSender {
 
     @Override
     protected final <T extends Serializable, Method extends BotApiMethod<T>> T sendApiMethod(Method method) throws TelegramApiException {
+        return executeWithRetries(method, this::buildJsonRequest);
+    }
+
+    /**
+     * Wait until the async executions submitted so far have completed
+     * @param timeout Max time to wait
+     * @param unit Unit of the timeout
+     * @return True if all of them completed before the timeout
+     */
+    public boolean awaitAsyncExecutions(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (pendingAsyncExecutionsLock) {
+            while (pendingAsyncExecutions > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(pendingAsyncExecutionsLock, remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return Limiter of the async methods executing at the same time, null if they are not limited
+     * @see DefaultBotOptions#setMaxAsyncInFlight(int)
+     */
+    public InFlightLimiter getInFlightLimiter() {
+        return inFlightLimiter;
+    }
+
+    /**
+     * Execute the method asynchronously with the given priority class instead of the one from
+     * {@link DefaultBotOptions#getAsyncPriorityClassifier()}
+     * @param method Method to execute
+     * @param priority Priority class of the method while it waits for {@link DefaultBotOptions#getMaxAsyncInFlight()}
+     * @return Future completed with the result of the method, failed with a TelegramApiException if the method is null
+     */
+    public <T extends Serializable, Method extends BotApiMethod<T>> CompletableFuture<T> executeAsync(Method method, RequestPriority priority) {
+        AsyncExecutionOptions executionOptions = new AsyncExecutionOptions();
+        executionOptions.setPriority(priority == null ? RequestPriority.NORMAL : priority);
+        return executeAsync(method, executionOptions);
+    }
+
+    /**
+     * Execute the method asynchronously with its own priority class and deadline.
+     * Cancelling the returned future, or reaching the deadline, aborts the method: it is skipped if it didn't start yet,
+     * and its request is aborted, releasing its connection, if it is being sent.
+     * @param method Method to execute
+     * @param executionOptions Options of this execution
+     * @return Future completed with the result of the method, failed with a TelegramApiException if a parameter is null
+     */
+    public <T extends Serializable, Method extends BotApiMethod<T>> CompletableFuture<T> executeAsync(Method method, AsyncExecutionOptions executionOptions) {
+        if (method == null) {
+            return failedExecution(new TelegramApiException("Parameter method can not be null"));
+        }
+        if (executionOptions == null) {
+            return failedExecution(new TelegramApiException("Parameter executionOptions can not be null"));
+        }
+        RequestPriority priority = executionOptions.getPriority() == null ? getPriority(method) : executionOptions.getPriority();
+        return sendApiMethodAsync(method, priority, executionOptions.getTimeout());
+    }
+
+    /**
+     * Execute a method uploading files asynchronously with its own priority class and deadline,
+     * as {@link #executeAsync(BotApiMethod, AsyncExecutionOptions)} does for the other methods
+     * @param method Method to execute, i.e. a SendDocument or a SendMediaGroup
+     * @param executionOptions Options of this execution
+     * @return Future completed with the result of the method, failed with a TelegramApiException if a parameter is null
+     */
+    public <T extends Serializable> CompletableFuture<T> executeAsync(PartialBotApiMethod<T> method, AsyncExecutionOptions executionOptions) {
+        if (method == null) {
+            return failedExecution(new TelegramApiException("Parameter method can not be null"));
+        }
+        if (executionOptions == null) {
+            return failedExecution(new TelegramApiException("Parameter executionOptions can not be null"));
+        }
+        RequestBuilder request;
+        if (method instanceof SetChatPhoto) {
+            request = m -> buildRequest((SetChatPhoto) m);
+        } else if (MultipartEncoder.canEncode(method)) {
+            request = m -> buildMultipartRequest(m, "method");
+        } else if (method instanceof BotApiMethod) {
+            request = this::buildJsonRequest;
+        } else {
+            return failedExecution(new TelegramApiException("Method " + method.getMethod() + " can't be executed asynchronously"));
+        }
+        RequestPriority priority = executionOptions.getPriority() == null ? getPriority(method) : executionOptions.getPriority();
+        return executeAsyncWithRetries(method, priority, executionOptions.getTimeout(), request);
+    }
+
+    /**
+     * @return Coalescer of the async edits of the same message, null if edits are not coalesced
+     * @see DefaultBotOptions#setMaxMessageEditsPerSecond(int)
+     */
+    public EditCoalescer getEditCoalescer() {
+        return editCoalescer;
+    }
+
+    /**
+     * Stop executing async methods: the sender threads finish the methods already submitted, the scheduler of
+     * delayed attempts and deadlines is shut down, and the async http client is closed, aborting its requests
+     * still in flight. Methods can still be executed synchronously afterwards. Called when the bot is closing.
+     */
+    protected void shutdownAsyncExecution() {
+        exe.shutdown();
+        synchronized (schedulerLock) {
+            // Delayed attempts and deadlines scheduled already still run
+            schedulerShutdown = true;
+            if (scheduler != null) {
+                scheduler.shutdown();
+            }
+        }
         try {
-            String responseContent = sendMethodRequest(method);
-            return method.deserializeResponse(responseContent);
+            transport.closeAsync();
         } catch (IOException e) {
-            throw new TelegramApiException("Unable to execute " + method.getMethod() + " method", e);
+            log.warn("Unable to close the async http client", e);
+        }
+    }
+
+    /**
+     * Open the connections set in {@link DefaultBotOptions#getPrewarmConnections()}, so the first requests don't
+     * wait for the TLS handshake. Called when the bot is registered, only the default transport has them.
+     * @return Number of connections that were opened
+     */
+    public int prewarmConnections() {
+        if (options.getPrewarmConnections() <= 0 || connectionManager == null) {
+            return 0;
         }
+        int opened = TelegramHttpClientBuilder.prewarm(connectionManager, options, options.getPrewarmConnections());
+        log.debug("Opened {} connections to {}", opened, options.getBaseUrl());
+        return opened;
     }
 
     // Private methods
 
-    private void configureHttpContext() {
+    private <T> T executeWithRetries(PartialBotApiMethod<? extends T> method, RequestBuilder request) throws TelegramApiException {
+        if (uploadCache == null || method == null) {
+            return executeAttempts(method, request);
+        }
+        UploadCache.Upload upload;
+        try {
+            upload = uploadCache.prepare(method).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TelegramApiException("Interrupted while waiting to execute " + method.getMethod(), e);
+        } catch (ExecutionException e) {
+            throw new TelegramApiException("Unable to execute " + method.getMethod() + " method", e.getCause());
+        }
+        if (upload == null) {
+            return executeAttempts(method, request);
+        }
+        try {
+            T result = executeAttempts(methodToSend(upload, method), request);
+            upload.completed(result);
+            return result;
+        } catch (TelegramApiException | RuntimeException e) {
+            upload.failed(e);
+            throw e;
+        }
+    }
 
-        if (options.getProxyType() != DefaultBotOptions.ProxyType.NO_PROXY) {
-            InetSocketAddress socketAddress = new InetSocketAddress(options.getProxyHost(), options.getProxyPort());
-            options.getHttpContext().setAttribute("socketAddress", socketAddress);
+    private <T> T executeAttempts(PartialBotApiMethod<? extends T> method, RequestBuilder request) throws TelegramApiException {
+        for (int attempt = 1; ; attempt++) {
+            PartialBotApiMethod<?> target = retarget(method);
+            HttpPost httppost = request.build(target);
+            awaitRateLimit(target);
+            long delay;
+            try {
+                return sendRequest(method, httppost);
+            } catch (TelegramApiException e) {
+                delay = getRetryDelay(method, httppost, e, attempt);
+                if (delay < 0) {
+                    throw e;
+                }
+            }
+            try {
+                retryPolicy.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TelegramApiException("Interrupted while waiting to retry " + method.getMethod(), e);
+            }
         }
+    }
 
-        if (options.getProxyType() == DefaultBotOptions.ProxyType.SOCKS4) {
-            options.getHttpContext().setAttribute("socksVersion", 4);
+    private <T> CompletableFuture<T> executeAsyncWithRetries(PartialBotApiMethod<? extends T> method, RequestBuilder request) {
+        return executeAsyncWithRetries(method, getPriority(method), 0, request);
+    }
+
+    /**
+     * The returned future is the one of the caller: once it is done, cancelled or past its deadline,
+     * the layers below skip the method if it didn't start yet and abort its request otherwise.
+     */
+    private <T> CompletableFuture<T> executeAsyncWithRetries(PartialBotApiMethod<? extends T> method, RequestPriority priority,
+                                                             long timeoutMillis, RequestBuilder request) {
+        CompletableFuture<T> caller = new CompletableFuture<>();
+        if (timeoutMillis > 0) {
+            ScheduledFuture<?> deadline;
+            try {
+                deadline = getScheduler().schedule(() -> caller.completeExceptionally(new TelegramApiException(
+                        "Unable to execute " + method.getMethod() + " method within " + timeoutMillis + " ms", new TimeoutException())),
+                        timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                caller.completeExceptionally(shutdownError(method, e));
+                return caller;
+            }
+            caller.whenComplete((result, error) -> deadline.cancel(false));
         }
-        if (options.getProxyType() == DefaultBotOptions.ProxyType.SOCKS5) {
-            options.getHttpContext().setAttribute("socksVersion", 5);
+        executeAsyncCoalesced(method, priority, request, caller).whenComplete((result, error) -> {
+            if (error == null) {
+                caller.complete(result);
+            } else {
+                caller.completeExceptionally(error);
+            }
+        });
+        return caller;
+    }
+
+    private <T> CompletableFuture<T> executeAsyncCoalesced(PartialBotApiMethod<? extends T> method, RequestPriority priority,
+                                                           RequestBuilder request, CompletableFuture<?> caller) {
+        Object editKey = editCoalescer == null || method == null ? null : EditCoalescer.getKey(method);
+        if (editKey == null) {
+            return executeAsyncInLane(method, priority, request, caller);
         }
+        // Waiting for the previous edit of the message counts as pending
+        asyncExecutionStarted();
+        CompletableFuture<T> completableFuture = editCoalescer.submit(editKey, () -> executeAsyncInLane(method, priority, request, caller));
+        completableFuture.whenComplete((result, error) -> asyncExecutionCompleted());
+        return completableFuture;
+    }
 
+    private RequestPriority getPriority(PartialBotApiMethod<?> method) {
+        Function<PartialBotApiMethod<?>, RequestPriority> classifier = options.getAsyncPriorityClassifier();
+        RequestPriority priority = classifier == null || method == null ? null : classifier.apply(method);
+        return priority == null ? RequestPriority.NORMAL : priority;
     }
 
-    private <T extends Serializable, Method extends BotApiMethod<T>> String sendMethodRequest(Method method) throws TelegramApiValidationException, IOException {
-        method.validate();
-        String url = getBaseUrl() + method.getMethod();
-        HttpPost httppost = configuredHttpPost(url);
-        httppost.addHeader("charset", StandardCharsets.UTF_8.name());
-        httppost.setEntity(new StringEntity(objectMapper.writeValueAsString(method), ContentType.APPLICATION_JSON));
-        return sendHttpPostRequest(httppost);
+    /**
+     * Methods wait in the lane of their chat before the in-flight limiter, so those queued behind a previous
+     * method to their chat don't hold a permit
+     */
+    private <T> CompletableFuture<T> executeAsyncInLane(PartialBotApiMethod<? extends T> method, RequestPriority priority,
+                                                        RequestBuilder request, CompletableFuture<?> caller) {
+        String chatId = sendLanes == null || method == null ? null : ChatIds.get(method);
+        if (chatId == null) {
+            return executeAsyncInFlight(method, priority, request, caller);
+        }
+        // Waiting in the lane of its chat counts as pending
+        asyncExecutionStarted();
+        CompletableFuture<T> completableFuture = sendLanes.submit(chatId, () -> executeAsyncInFlight(method, priority, request, caller));
+        completableFuture.whenComplete((result, error) -> asyncExecutionCompleted());
+        return completableFuture;
     }
 
-    private String sendHttpPostRequest(HttpPost httppost) throws IOException {
-        try (CloseableHttpResponse response = httpClient.execute(httppost, options.getHttpContext())) {
-            return EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+    private <T> CompletableFuture<T> executeAsyncInFlight(PartialBotApiMethod<? extends T> method, RequestPriority priority,
+                                                          RequestBuilder request, CompletableFuture<?> caller) {
+        if (inFlightLimiter == null) {
+            return startAsyncExecution(method, request, caller);
+        }
+        // Waiting in the queue counts as pending
+        asyncExecutionStarted();
+        CompletableFuture<T> completableFuture;
+        try {
+            completableFuture = inFlightLimiter.submit(priority, () -> startAsyncExecution(method, request, caller));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            completableFuture = interruptedExecution(method, e);
         }
+        completableFuture.whenComplete((result, error) -> asyncExecutionCompleted());
+        return completableFuture;
     }
 
-    private HttpPost configuredHttpPost(String url) {
-        HttpPost httppost = new HttpPost(url);
-        httppost.setConfig(requestConfig);
-        return httppost;
+    private static <T> CompletableFuture<T> interruptedExecution(PartialBotApiMethod<?> method, InterruptedException e) {
+        return failedExecution(new TelegramApiException("Interrupted while waiting to execute " + method.getMethod(), e));
     }
 
-    private void addInputData(MultipartEntityBuilder builder, InputMedia media, String mediaField, boolean addField) throws JsonProcessingException {
-        if (media.isNewMedia()) {
-            if (media.getNewMediaFile() != null) {
-                builder.addBinaryBody(media.getMediaName(), media.getNewMediaFile(), ContentType.APPLICATION_OCTET_STREAM, media.getMediaName());
-            } else if (media.getNewMediaStream() != null) {
-                builder.addBinaryBody(media.getMediaName(), media.getNewMediaStream(), ContentType.APPLICATION_OCTET_STREAM, media.getMediaName());
+    private static <T> CompletableFuture<T> failedExecution(TelegramApiException e) {
+        CompletableFuture<T> completableFuture = new CompletableFuture<>();
+        completableFuture.completeExceptionally(e);
+        return completableFuture;
+    }
+
+    private <T> CompletableFuture<T> startAsyncExecution(PartialBotApiMethod<? extends T> method, RequestBuilder request,
+                                                         CompletableFuture<?> caller) {
+        if (uploadCache == null || method == null) {
+            return startAttempts(method, request, caller);
+        }
+        // Waiting for an upload of the same file counts as pending
+        asyncExecutionStarted();
+        // Relayed rather than composed, so errors reach the caller as they are and not wrapped in a CompletionException
+        CompletableFuture<T> completableFuture = new CompletableFuture<>();
+        uploadCache.prepare(method).whenComplete((upload, prepareError) -> {
+            try {
+                if (prepareError != null) {
+                    completableFuture.completeExceptionally(prepareError instanceof CompletionException && prepareError.getCause() != null
+                            ? prepareError.getCause() : prepareError);
+                    return;
+                }
+                startAttempts(methodToSend(upload, method), request, caller).whenComplete((result, error) -> {
+                    if (upload != null) {
+                        if (error == null) {
+                            upload.completed(result);
+                        } else {
+                            upload.failed(error);
+                        }
+                    }
+                    if (error == null) {
+                        completableFuture.complete(result);
+                    } else {
+                        completableFuture.completeExceptionally(error);
+                    }
+                });
+            } catch (RuntimeException e) {
+                completableFuture.completeExceptionally(e);
+            } finally {
+                asyncExecutionCompleted();
             }
+        });
+        return completableFuture;
+    }
+
+    /**
+     * @return Method to send in place of the one of the caller, a copy of it if its file was uploaded before
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> PartialBotApiMethod<? extends T> methodToSend(UploadCache.Upload upload, PartialBotApiMethod<? extends T> method) {
+        return upload == null ? method : (PartialBotApiMethod<? extends T>) upload.getMethod();
+    }
+
+    private <T> CompletableFuture<T> startAttempts(PartialBotApiMethod<? extends T> method, RequestBuilder request,
+                                                   CompletableFuture<?> caller) {
+        CompletableFuture<T> completableFuture = new CompletableFuture<>();
+        // Attempts stop once the caller is done, and the one being sent is aborted
+        caller.whenComplete((result, error) -> completableFuture.cancel(false));
+        submitAttempt(method, request, completableFuture, 1, 0);
+        return completableFuture;
+    }
+
+    /**
+     * Start an attempt to execute the method once its delay has passed and the rate limiter grants it a permit.
+     * Attempts don't hold a thread while they wait.
+     */
+    private <T> void submitAttempt(PartialBotApiMethod<? extends T> method, RequestBuilder request,
+                                   CompletableFuture<T> completableFuture, int attempt, long delayMillis) {
+        if (completableFuture.isDone()) {
+            return;
+        }
+        asyncExecutionStarted();
+        Runnable start = () -> startAttempt(method, request, completableFuture, attempt);
+        if (delayMillis > 0) {
+            scheduleAttempt(() -> startWhenPermitted(method, completableFuture, start), delayMillis, TimeUnit.MILLISECONDS,
+                    method, completableFuture, start);
+        } else {
+            startWhenPermitted(method, completableFuture, start);
+        }
+    }
+
+    private void startWhenPermitted(PartialBotApiMethod<?> method, CompletableFuture<?> completableFuture, Runnable start) {
+        RateLimiter.Reservation reservation = rateLimiter == null || method == null ? null : rateLimiter.reserve(method);
+        startWhenPermitted(reservation, method, completableFuture, start);
+    }
+
+    private void startWhenPermitted(RateLimiter.Reservation reservation, PartialBotApiMethod<?> method,
+                                    CompletableFuture<?> completableFuture, Runnable start) {
+        long wait = reservation == null ? 0 : reservation.next();
+        if (wait > 0) {
+            scheduleAttempt(() -> startWhenPermitted(reservation, method, completableFuture, start), wait, TimeUnit.NANOSECONDS,
+                    method, completableFuture, start);
+        } else {
+            start.run();
+        }
+    }
+
+    /**
+     * Run a step of an attempt after the delay. Once async execution was shut down, the method fails instead
+     * and the attempt starts right away, only to find it done.
+     */
+    private void scheduleAttempt(Runnable step, long delay, TimeUnit unit, PartialBotApiMethod<?> method,
+                                 CompletableFuture<?> completableFuture, Runnable start) {
+        try {
+            getScheduler().schedule(step, delay, unit);
+        } catch (RejectedExecutionException e) {
+            completableFuture.completeExceptionally(shutdownError(method, e));
+            start.run();
         }
+    }
+
+    private static TelegramApiException shutdownError(PartialBotApiMethod<?> method, RejectedExecutionException e) {
+        return new TelegramApiException("Unable to execute " + method.getMethod() + " method, async execution was shut down", e);
+    }
 
-        if (media instanceof InputMediaAudio) {
-            InputMediaAudio audio = (InputMediaAudio) media;
-            if (audio.getThumbnail() != null) {
-                addInputFile(builder, audio.getThumbnail(), InputMediaAudio.THUMBNAIL_FIELD, false);
+    private <T> void startAttempt(PartialBotApiMethod<? extends T> method, RequestBuilder request,
+                                  CompletableFuture<T> completableFuture, int attempt) {
+        if (completableFuture.isDone()) {
+            asyncExecutionCompleted();
+            return;
+        }
+        if (!transport.supportsAsync()) {
+            try {
+                exe.submit(() -> {
+                    try {
+                        // Methods given up while queued are not sent, and the requests of those given up later are aborted
+                        if (!completableFuture.isDone()) {
+                            executeAttempt(method, request, completableFuture, attempt);
+                        }
+                    } finally {
+                        asyncExecutionCompleted();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                completableFuture.completeExceptionally(e);
+                asyncExecutionCompleted();
             }
-        } else if (media instanceof InputMediaDocument) {
-            InputMediaDocument document = (InputMediaDocument) media;
-            if (document.getThumbnail() != null) {
-                addInputFile(builder, document.getThumbnail(), InputMediaDocument.THUMBNAIL_FIELD, false);
+            return;
+        }
+
+        HttpPost httppost;
+        try {
+            httppost = request.build(retarget(method));
+        } catch (TelegramApiException | RuntimeException e) {
+            completableFuture.completeExceptionally(e);
+            asyncExecutionCompleted();
+            return;
+        }
+        CompletableFuture<TransportResponse> exchange = transport.postAsync(httppost.getURI().toString(), httppost.getEntity());
+        exchange.whenComplete((response, error) -> {
+            try {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                // Exchanges cancelled by the caller are done already, others were cancelled by closing the client
+                if (cause != null) {
+                    attemptFailed(method, request, completableFuture, attempt, httppost,
+                            new TelegramApiException("Unable to execute " + method.getMethod() + " method", cause));
+                } else {
+                    completableFuture.complete(readResponse(method, response));
+                }
+            } catch (TelegramApiException e) {
+                attemptFailed(method, request, completableFuture, attempt, httppost, e);
+            } catch (RuntimeException e) {
+                completableFuture.completeExceptionally(e);
+            } finally {
+                asyncExecutionCompleted();
             }
-        } else if (media instanceof InputMediaVideo) {
-            InputMediaVideo video = (InputMediaVideo) media;
-            if (video.getThumbnail() != null) {
-                addInputFile(builder, video.getThumbnail(), InputMediaVideo.THUMBNAIL_FIELD, false);
+        });
+        // Aborting the exchange of a method given up releases its connection
+        completableFuture.whenComplete((result, error) -> {
+            if (completableFuture.isCancelled()) {
+                exchange.cancel(true);
             }
-        } else if (media instanceof InputMediaAnimation) {
-            InputMediaAnimation animation = (InputMediaAnimation) media;
-            if (animation.getThumbnail() != null) {
-                addInputFile(builder, animation.getThumbnail(), InputMediaAnimation.THUMBNAIL_FIELD, false);
+        });
+    }
+
+    /**
+     * Execute an attempt blocking the current thread, the permit of the rate limiter was already granted
+     */
+    private <T> void executeAttempt(PartialBotApiMethod<? extends T> method, RequestBuilder request,
+                                    CompletableFuture<T> completableFuture, int attempt) {
+        HttpPost httppost = null;
+        try {
+            httppost = request.build(retarget(method));
+            completableFuture.complete(sendRequest(method, httppost, completableFuture));
+        } catch (TelegramApiException e) {
+            attemptFailed(method, request, completableFuture, attempt, httppost, e);
+        } catch (RuntimeException e) {
+            completableFuture.completeExceptionally(e);
+        }
+    }
+
+    private <T> void attemptFailed(PartialBotApiMethod<? extends T> method, RequestBuilder request,
+                                   CompletableFuture<T> completableFuture, int attempt, HttpPost httppost, TelegramApiException error) {
+        long delay = httppost == null ? -1 : getRetryDelay(method, httppost, error, attempt);
+        if (delay < 0) {
+            completableFuture.completeExceptionally(error);
+        } else {
+            // Counted as pending before the failed attempt completes
+            submitAttempt(method, request, completableFuture, attempt + 1, delay);
+        }
+    }
+
+    /**
+     * @return Copy of the method sent to the chat its chat was migrated to, or the method itself
+     */
+    private PartialBotApiMethod<?> retarget(PartialBotApiMethod<?> method) {
+        return retryPolicy == null ? method : retryPolicy.retarget(method);
+    }
+
+    private long getRetryDelay(PartialBotApiMethod<?> method, HttpPost httppost, TelegramApiException error, int attempt) {
+        if (retryPolicy == null) {
+            return -1;
+        }
+        // i.e. uploads from an InputStream were consumed by the failed attempt
+        boolean repeatable = httppost.getEntity() == null || httppost.getEntity().isRepeatable();
+        return retryPolicy.getRetryDelay(method, error, attempt, repeatable);
+    }
+
+    private static Throwable unwrapIOException(Throwable error) {
+        // Simplified methods report network errors as they did before retries were supported
+        if (error.getClass() == TelegramApiException.class && error.getCause() instanceof IOException) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    private void awaitRateLimit(PartialBotApiMethod<?> method) throws TelegramApiException {
+        if (rateLimiter != null) {
+            try {
+                rateLimiter.acquire(method);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TelegramApiException("Interrupted while waiting to execute " + method.getClass().getSimpleName(), e);
             }
         }
+    }
 
-        if (addField) {
-            builder.addTextBody(mediaField, objectMapper.writeValueAsString(media), TEXT_PLAIN_CONTENT_TYPE);
+    private void asyncExecutionStarted() {
+        synchronized (pendingAsyncExecutionsLock) {
+            pendingAsyncExecutions++;
         }
     }
 
-    private void addInputData(MultipartEntityBuilder builder, List<InputMedia> media, String mediaField) throws JsonProcessingException {
-        for (InputMedia inputMedia : media) {
-            addInputData(builder, inputMedia, null, false);
+    private void asyncExecutionCompleted() {
+        synchronized (pendingAsyncExecutionsLock) {
+            pendingAsyncExecutions--;
+            if (pendingAsyncExecutions == 0) {
+                pendingAsyncExecutionsLock.notifyAll();
+            }
         }
+    }
 
-        builder.addTextBody(mediaField, objectMapper.writeValueAsString(media), TEXT_PLAIN_CONTENT_TYPE);
+    private static ExecutorService createExecutorService(DefaultBotOptions options) {
+        if (options.isUseVirtualThreads()) {
+            ExecutorService virtualThreadExecutor = VirtualThreads.newThreadPerTaskExecutor("Telegram Sender-");
+            if (virtualThreadExecutor != null) {
+                return virtualThreadExecutor;
+            }
+            log.warn("Virtual threads are not supported by this JVM, using {} platform threads instead", options.getMaxThreads());
+        }
+        return Executors.newFixedThreadPool(options.getMaxThreads());
     }
 
-    private void addStickers(MultipartEntityBuilder builder, List<InputSticker> stickers, String stickersField) throws JsonProcessingException {
-        for (InputSticker sticker : stickers) {
-            addInputFile(builder, sticker.getSticker(), null, false);
+    /**
+     * Async methods sent without an async http client wait again for the sender threads, first come first served.
+     * Admitting more of them than there are threads would let lower priorities take the threads ahead of higher ones.
+     * @return Max number of async methods in flight, capped to the sender threads when methods are sent in them
+     */
+    private static int getMaxAsyncInFlight(DefaultBotOptions options, ExecutorService exe, TelegramTransport transport) {
+        int maxAsyncInFlight = options.getMaxAsyncInFlight();
+        if (maxAsyncInFlight > 0 && !transport.supportsAsync() && exe instanceof ThreadPoolExecutor) {
+            int threads = ((ThreadPoolExecutor) exe).getMaximumPoolSize();
+            if (maxAsyncInFlight > threads) {
+                log.warn("Async methods are sent in {} threads, limiting the async methods in flight to {} instead of {}",
+                        threads, threads, maxAsyncInFlight);
+                return threads;
+            }
         }
+        return maxAsyncInFlight;
+    }
 
-        builder.addTextBody(stickersField, objectMapper.writeValueAsString(stickers), TEXT_PLAIN_CONTENT_TYPE);
+    private static CloseableHttpAsyncClient createAsyncHttpClient(DefaultBotOptions options) {
+        if (!options.isUseAsyncHttpClient()) {
+            return null;
+        }
+        if (options.getProxyType() == DefaultBotOptions.ProxyType.SOCKS4 || options.getProxyType() == DefaultBotOptions.ProxyType.SOCKS5) {
+            log.warn("Socks proxies are not supported by the async http client, executing async methods in {} threads instead", options.getMaxThreads());
+            return null;
+        }
+        // Started on the first async execution
+        return TelegramHttpClientBuilder.buildAsync(options);
     }
 
-    private void addInputFile(MultipartEntityBuilder builder, InputFile file, String fileField, boolean addField) {
-        if (file.isNew()) {
-            if (file.getNewMediaFile() != null) {
-                builder.addBinaryBody(file.getMediaName(), file.getNewMediaFile(), ContentType.APPLICATION_OCTET_STREAM, file.getMediaName());
-            } else if (file.getNewMediaStream() != null) {
-                builder.addBinaryBody(file.getMediaName(), file.getNewMediaStream(), ContentType.APPLICATION_OCTET_STREAM, file.getMediaName());
+    /**
+     * @return Transport created by the configured factory, null to use the default one
+     */
+    private static TelegramTransport createCustomTransport(DefaultBotOptions options) {
+        if (options.getTransportFactory() != null) {
+            try {
+                return options.getTransportFactory().create(options);
+            } catch (UnsupportedOperationException e) {
+                log.warn("Unable to use the configured transport, using the default one instead: {}", e.getMessage());
             }
         }
+        return null;
+    }
 
-        if (addField) {
-            builder.addTextBody(fileField, file.getAttachName(), TEXT_PLAIN_CONTENT_TYPE);
+    /**
+     * @return Scheduler of delayed attempts and deadlines, created on first use and shut down with async execution
+     */
+    private ScheduledExecutorService getScheduler() {
+        ScheduledExecutorService current = scheduler;
+        if (current == null) {
+            synchronized (schedulerLock) {
+                current = scheduler;
+                if (current == null) {
+                    current = createScheduler();
+                    if (schedulerShutdown) {
+                        current.shutdown();
+                    }
+                    scheduler = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static ScheduledExecutorService createScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "Telegram Sender Scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    private void configureHttpContext() {
+
+        if (options.getProxyType() != DefaultBotOptions.ProxyType.NO_PROXY) {
+            InetSocketAddress socketAddress = new InetSocketAddress(options.getProxyHost(), options.getProxyPort());
+            options.getHttpContext().setAttribute("socketAddress", socketAddress);
+        }
+
+        if (options.getProxyType() == DefaultBotOptions.ProxyType.SOCKS4) {
+            options.getHttpContext().setAttribute("socksVersion", 4);
         }
+        if (options.getProxyType() == DefaultBotOptions.ProxyType.SOCKS5) {
+            options.getHttpContext().setAttribute("socksVersion", 5);
+        }
+
+    }
+
+    private HttpPost buildJsonRequest(PartialBotApiMethod<?> method) throws TelegramApiException {
+        method.validate();
+        String url = getBaseUrl() + method.getMethod();
+        HttpPost httppost = configuredHttpPost(url);
+        httppost.addHeader("charset", StandardCharsets.UTF_8.name());
+        try {
+            httppost.setEntity(new JsonEntity(method));
+        } catch (JsonProcessingException e) {
+            throw new TelegramApiException("Unable to serialize " + method.getMethod() + " method", e);
+        }
+        return httppost;
+    }
+
+    private HttpPost buildMultipartRequest(PartialBotApiMethod<?> method, String paramName) throws TelegramApiException {
+        assertParamNotNull(method, paramName);
+        method.validate();
+        try {
+            String url = getBaseUrl() + method.getMethod();
+            HttpPost httppost = configuredHttpPost(url);
+            httppost.setEntity(MultipartEncoder.encode(method));
+            return httppost;
+        } catch (IOException e) {
+            throw new TelegramApiException("Unable to execute " + method.getMethod() + " method", e);
+        }
+    }
+
+    private <T> T sendRequest(PartialBotApiMethod<? extends T> method, HttpPost httppost) throws TelegramApiException {
+        return sendRequest(method, httppost, null);
+    }
+
+    /**
+     * @param cancellation Future whose cancellation aborts the request, null if it can't be aborted
+     */
+    private <T> T sendRequest(PartialBotApiMethod<? extends T> method, HttpPost httppost, CompletableFuture<?> cancellation)
+            throws TelegramApiException {
+        TransportResponse response;
+        try {
+            String url = httppost.getURI().toString();
+            response = cancellation == null ? transport.post(url, httppost.getEntity()) : transport.post(url, httppost.getEntity(), cancellation);
+        } catch (IOException e) {
+            throw new TelegramApiException("Unable to execute " + method.getMethod() + " method", e);
+        }
+        return readResponse(method, response);
+    }
+
+    private static <T> T readResponse(PartialBotApiMethod<? extends T> method, TransportResponse response) throws TelegramApiException {
+        try (TransportResponse closedResponse = response) {
+            return method.deserializeResponse(closedResponse.getBody());
+        } catch (IOException e) {
+            throw new TelegramApiException("Unable to execute " + method.getMethod() + " method", e);
+        }
+    }
+
+    private HttpPost configuredHttpPost(String url) {
+        HttpPost httppost = new HttpPost(url);
+        httppost.setConfig(requestConfig);
+        return httppost;
     }
 
     private void assertParamNotNull(Object param, String paramName) throws TelegramApiException {
@@ -1228,4 +1131,13 @@ public abstract class DefaultAbsSender extends AbsSender {
             throw new TelegramApiException("Parameter " + paramName + " can not be null");
         }
     }
+
+    @FunctionalInterface
+    private interface RequestBuilder {
+        /**
+         * @param method Method of the attempt, a copy of the executed one if it is sent to a migrated chat
+         * @return Request of a single attempt, built again for every retry
+         */
+        HttpPost build(PartialBotApiMethod<?> method) throws TelegramApiException;
+    }
 }
@@ -3,11 +3,26 @@ package org.telegram.telegrambots.bots;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.protocol.HttpContext;
+import org.telegram.telegrambots.facilities.inflight.OverflowPolicy;
+import org.telegram.telegrambots.facilities.inflight.RequestPriority;
+import org.telegram.telegrambots.facilities.ratelimiter.RateLimiter;
+import org.telegram.telegrambots.facilities.retry.RetryPolicy;
+import org.telegram.telegrambots.facilities.transport.TelegramTransportFactory;
+import org.telegram.telegrambots.facilities.uploadcache.UploadCache;
 import org.telegram.telegrambots.meta.ApiConstants;
+import org.telegram.telegrambots.meta.api.methods.PartialBotApiMethod;
+import org.telegram.telegrambots.meta.api.objects.UpdateType;
 import org.telegram.telegrambots.meta.generics.BotOptions;
 import org.telegram.telegrambots.meta.generics.BackOff;
+import org.telegram.telegrambots.meta.generics.LongPollingBot;
+import org.telegram.telegrambots.meta.generics.OffsetStore;
+import org.telegram.telegrambots.updatesreceivers.ChatUpdateKeyExtractor;
+import org.telegram.telegrambots.updatesreceivers.UpdateKeyExtractor;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * @author Ruben Bermudez
@@ -23,6 +38,7 @@ public class DefaultBotOptions implements BotOptions {
     private RequestConfig requestConfig;
     private volatile HttpContext httpContext;
     private BackOff backOff;
+    private OffsetStore offsetStore;
     private Integer maxWebhookConnections;
     private String baseUrl;
     private List<String> allowedUpdates;
@@ -31,6 +47,118 @@ public class DefaultBotOptions implements BotOptions {
     private int proxyPort;
     private int getUpdatesTimeout;
     private int getUpdatesLimit;
+    /**
+     * Max number of received updates waiting to be handled (default unbounded)
+     */
+    private int updatesBufferCapacity;
+    /**
+     * Number of lanes used to handle updates in parallel (default 0, all updates are handled in one thread)
+     */
+    private int updatesHandlerParallelism;
+    /**
+     * Max number of pending batches in each handler lane (default 100)
+     */
+    private int updatesHandlerQueueCapacity;
+    /**
+     * Key used to keep updates ordered when handled in parallel (default to the chat of the update)
+     */
+    private UpdateKeyExtractor updateKeyExtractor;
+    /**
+     * Use virtual threads for update handler lanes and async methods executions when the JVM supports them (default false)
+     */
+    private boolean useVirtualThreads;
+    /**
+     * Deliver received updates as envelopes parsed on demand through {@link LongPollingBot#onEnvelopesReceived} (default false)
+     */
+    private boolean useUpdateEnvelopes;
+    /**
+     * Types of updates handled ahead of the rest (default none)
+     */
+    private Set<UpdateType> priorityUpdateTypes;
+    /**
+     * Max time in milliseconds to finish handling received updates when the session is stopped (default 0, no drain)
+     */
+    private int shutdownDrainTimeout;
+    /**
+     * Tune the limit and timeout of getUpdates to the speed of the handlers (default false)
+     */
+    private boolean adaptivePolling;
+    /**
+     * Rate limiter applied to requests sent by the bot (default null, not limited)
+     */
+    private RateLimiter rateLimiter;
+    /**
+     * Policy to send failed requests again (default null, no retries)
+     */
+    private RetryPolicy retryPolicy;
+    /**
+     * Execute async methods on a non-blocking http client instead of the sender threads (default false)
+     */
+    private boolean useAsyncHttpClient;
+    /**
+     * Max number of pooled connections to the same host (default 100)
+     */
+    private int maxConnectionsPerRoute;
+    /**
+     * Max number of pooled connections (default 100)
+     */
+    private int maxConnectionsTotal;
+    /**
+     * Milliseconds a pooled connection can stay unused before it is checked again when leased (default 2000)
+     */
+    private int validateConnectionAfterInactivity;
+    /**
+     * Milliseconds a pooled connection can stay unused before it is closed (default 60000)
+     */
+    private long maxIdleConnectionTime;
+    /**
+     * Milliseconds a connection is kept alive when Telegram doesn't say for how long (default 60000)
+     */
+    private long keepAliveDuration;
+    /**
+     * Number of connections opened when the bot is registered (default 0)
+     */
+    private int prewarmConnections;
+    /**
+     * Creates the transport used to send requests (default null, Apache HttpClient is used)
+     */
+    private TelegramTransportFactory transportFactory;
+    /**
+     * Execute async methods to the same chat one after the other, in the order they were called (default false)
+     */
+    private boolean orderedAsyncExecution;
+    /**
+     * Max number of async methods waiting for a previous one to the same chat (default 1000)
+     */
+    private int orderedAsyncQueueCapacity;
+    /**
+     * Max number of async methods executing at the same time (default 0, unlimited)
+     */
+    private int maxAsyncInFlight;
+    /**
+     * Max number of async methods waiting to execute when {@link #maxAsyncInFlight} is reached (default 10000)
+     */
+    private int asyncQueueCapacity;
+    /**
+     * What to do with new async methods when the queue is full (default {@link OverflowPolicy#BLOCK})
+     */
+    private OverflowPolicy asyncOverflowPolicy;
+    /**
+     * Priority class of async methods executed without one (default null, all of them are {@link RequestPriority#NORMAL})
+     */
+    private Function<PartialBotApiMethod<?>, RequestPriority> asyncPriorityClassifier;
+    /**
+     * Time after which queued async methods of a priority class compete as the class above it (default 1000 ms)
+     */
+    private long asyncPriorityAging;
+    /**
+     * Cache of the file ids of uploaded files (default null, files are always uploaded)
+     */
+    private UploadCache uploadCache;
+    /**
+     * Max number of async edits sent per second to the same message (default 0, edits are not coalesced)
+     */
+    private int maxMessageEditsPerSecond;
 
     public enum ProxyType {
         NO_PROXY,
@@ -46,6 +174,20 @@ public class DefaultBotOptions implements BotOptions {
         proxyType = ProxyType.NO_PROXY;
         getUpdatesTimeout = ApiConstants.GETUPDATES_TIMEOUT;
         getUpdatesLimit = 100;
+        updatesBufferCapacity = Integer.MAX_VALUE;
+        updatesHandlerParallelism = 0;
+        updatesHandlerQueueCapacity = 100;
+        updateKeyExtractor = ChatUpdateKeyExtractor.INSTANCE;
+        priorityUpdateTypes = EnumSet.noneOf(UpdateType.class);
+        maxConnectionsPerRoute = 100;
+        maxConnectionsTotal = 100;
+        validateConnectionAfterInactivity = 2000;
+        maxIdleConnectionTime = 60_000;
+        keepAliveDuration = 60_000;
+        orderedAsyncQueueCapacity = 1000;
+        asyncQueueCapacity = 10_000;
+        asyncOverflowPolicy = OverflowPolicy.BLOCK;
+        asyncPriorityAging = 1000;
     }
 
     @Override
@@ -113,6 +255,21 @@ public class DefaultBotOptions implements BotOptions {
         this.backOff = BackOff;
     }
 
+    public OffsetStore getOffsetStore() {
+        return offsetStore;
+    }
+
+    /**
+     * @param offsetStore Store used to checkpoint the last handled update in long polling sessions
+     * @implSpec When set, the session resumes from the stored offset on start, and it only confirms to Telegram the
+     * updates that have been handled, along with every update before them, so updates are processed at least once
+     * across restarts. Polling goes on while updates are handled, and the offset is stored by the handlers as it
+     * moves forward. Default is null, updates are confirmed as soon as they are received.
+     */
+    public void setOffsetStore(OffsetStore offsetStore) {
+        this.offsetStore = offsetStore;
+    }
+
     public ProxyType getProxyType() {
         return proxyType;
     }
@@ -152,4 +309,354 @@ public class DefaultBotOptions implements BotOptions {
     public void setGetUpdatesLimit(int getUpdatesLimit) {
         this.getUpdatesLimit = getUpdatesLimit;
     }
+
+    public int getUpdatesBufferCapacity() {
+        return updatesBufferCapacity;
+    }
+
+    /**
+     * @param updatesBufferCapacity Max number of received updates waiting to be handled
+     * @implSpec When the buffer is full, no more updates are requested to Telegram until the handlers catch up
+     */
+    public void setUpdatesBufferCapacity(int updatesBufferCapacity) {
+        this.updatesBufferCapacity = updatesBufferCapacity;
+    }
+
+    public int getUpdatesHandlerParallelism() {
+        return updatesHandlerParallelism;
+    }
+
+    /**
+     * @param updatesHandlerParallelism Number of lanes used to handle updates
+     * @implSpec Updates with the same key (see {@link #setUpdateKeyExtractor(UpdateKeyExtractor)}) are always
+     * handled in order by the same lane, while different keys are spread across lanes. Use 0 to handle all updates
+     * in a single thread.
+     */
+    public void setUpdatesHandlerParallelism(int updatesHandlerParallelism) {
+        this.updatesHandlerParallelism = updatesHandlerParallelism;
+    }
+
+    public int getUpdatesHandlerQueueCapacity() {
+        return updatesHandlerQueueCapacity;
+    }
+
+    public void setUpdatesHandlerQueueCapacity(int updatesHandlerQueueCapacity) {
+        this.updatesHandlerQueueCapacity = updatesHandlerQueueCapacity;
+    }
+
+    public UpdateKeyExtractor getUpdateKeyExtractor() {
+        return updateKeyExtractor;
+    }
+
+    public void setUpdateKeyExtractor(UpdateKeyExtractor updateKeyExtractor) {
+        this.updateKeyExtractor = updateKeyExtractor;
+    }
+
+    public boolean isUseVirtualThreads() {
+        return useVirtualThreads;
+    }
+
+    /**
+     * @param useVirtualThreads True to run handler lanes and async methods in virtual threads
+     * @implSpec Requires JDK 21 or newer, on older JVMs platform threads are used instead.
+     * When enabled, async methods executions are no longer limited by {@link #getMaxThreads()}.
+     */
+    public void setUseVirtualThreads(boolean useVirtualThreads) {
+        this.useVirtualThreads = useVirtualThreads;
+    }
+
+    public boolean isUseUpdateEnvelopes() {
+        return useUpdateEnvelopes;
+    }
+
+    /**
+     * @param useUpdateEnvelopes True to only parse the id and type of received updates and deliver them
+     *                           through {@link LongPollingBot#onEnvelopesReceived}
+     * @implSpec Ordered parallel handling needs the key of every update, so unless the {@link UpdateKeyExtractor}
+     * works on envelopes, updates are fully parsed to be dispatched.
+     */
+    public void setUseUpdateEnvelopes(boolean useUpdateEnvelopes) {
+        this.useUpdateEnvelopes = useUpdateEnvelopes;
+    }
+
+    public Set<UpdateType> getPriorityUpdateTypes() {
+        return priorityUpdateTypes;
+    }
+
+    /**
+     * @param priorityUpdateTypes Types of updates, like {@link UpdateType#PRE_CHECKOUT_QUERY}, to handle ahead of
+     *                            the rest of updates already received
+     * @implSpec Priority only reorders updates of different chats: a priority update still waits for the updates
+     * of its chat received before it (see {@link #setUpdateKeyExtractor(UpdateKeyExtractor)}).
+     */
+    public void setPriorityUpdateTypes(Set<UpdateType> priorityUpdateTypes) {
+        this.priorityUpdateTypes = priorityUpdateTypes;
+    }
+
+    public int getShutdownDrainTimeout() {
+        return shutdownDrainTimeout;
+    }
+
+    /**
+     * @param shutdownDrainTimeout Max time in milliseconds that stopping the session waits for received updates to be
+     *                             handled and async method executions to complete, 0 to drop them
+     * @implSpec Polling stops immediately, {@link LongPollingBot#onClosing()} is called once the drain finishes or
+     * times out. Offsets of updates that were not handled are not stored.
+     */
+    public void setShutdownDrainTimeout(int shutdownDrainTimeout) {
+        this.shutdownDrainTimeout = shutdownDrainTimeout;
+    }
+
+    public boolean isAdaptivePolling() {
+        return adaptivePolling;
+    }
+
+    /**
+     * @param adaptivePolling True to size every getUpdates request to what the handlers can process and skip
+     *                        the wait after empty long polls
+     * @implSpec {@link #getGetUpdatesLimit()} and {@link #getGetUpdatesTimeout()} are used as upper bounds.
+     */
+    public void setAdaptivePolling(boolean adaptivePolling) {
+        this.adaptivePolling = adaptivePolling;
+    }
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * @param rateLimiter Rate limiter for execute and executeAsync calls, null to send requests right away
+     * @implSpec Synchronous calls wait in the calling thread, async ones are submitted once their permit is granted.
+     * The rate limiter can be shared by several bots, so it is not closed with them.
+     */
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * @param retryPolicy Policy to send again requests that failed, null to report failures right away
+     * @implSpec Synchronous calls wait in the calling thread, async ones are scheduled again
+     * without holding a sender thread.
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public boolean isUseAsyncHttpClient() {
+        return useAsyncHttpClient;
+    }
+
+    /**
+     * @param useAsyncHttpClient True to execute async methods on a non-blocking http client, so they don't need a
+     *                           sender thread each while they wait for Telegram
+     * @implSpec Futures are completed from the I/O threads of the client, dependent actions that block must use the
+     * async variants of CompletableFuture. Not supported with socks proxies, where the sender threads are used.
+     */
+    public void setUseAsyncHttpClient(boolean useAsyncHttpClient) {
+        this.useAsyncHttpClient = useAsyncHttpClient;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     * @param maxConnectionsPerRoute Max number of pooled connections to the same host. Every request goes to the
+     *                               api host, so this is the actual limit of parallel requests.
+     */
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+    }
+
+    public int getValidateConnectionAfterInactivity() {
+        return validateConnectionAfterInactivity;
+    }
+
+    /**
+     * @param validateConnectionAfterInactivity Milliseconds a pooled connection can stay unused before it is checked
+     *                                          for staleness when leased, negative to never check it
+     */
+    public void setValidateConnectionAfterInactivity(int validateConnectionAfterInactivity) {
+        this.validateConnectionAfterInactivity = validateConnectionAfterInactivity;
+    }
+
+    public long getMaxIdleConnectionTime() {
+        return maxIdleConnectionTime;
+    }
+
+    /**
+     * @param maxIdleConnectionTime Milliseconds a pooled connection can stay unused before it is closed,
+     *                              0 to keep it until it expires
+     */
+    public void setMaxIdleConnectionTime(long maxIdleConnectionTime) {
+        this.maxIdleConnectionTime = maxIdleConnectionTime;
+    }
+
+    public long getKeepAliveDuration() {
+        return keepAliveDuration;
+    }
+
+    /**
+     * @param keepAliveDuration Milliseconds a connection is kept alive when the response has no Keep-Alive header.
+     *                          Shorter durations sent by Telegram are honored.
+     */
+    public void setKeepAliveDuration(long keepAliveDuration) {
+        this.keepAliveDuration = keepAliveDuration;
+    }
+
+    public int getPrewarmConnections() {
+        return prewarmConnections;
+    }
+
+    /**
+     * @param prewarmConnections Number of connections opened when the bot is registered, so the first requests
+     *                           don't wait for the TLS handshake
+     * @implSpec Connections are opened one after the other in the thread registering the bot and are kept in
+     * the pool of the sender. Failures are logged and don't prevent the registration.
+     */
+    public void setPrewarmConnections(int prewarmConnections) {
+        this.prewarmConnections = prewarmConnections;
+    }
+
+    public TelegramTransportFactory getTransportFactory() {
+        return transportFactory;
+    }
+
+    /**
+     * @param transportFactory Creates the transport used to send requests and download files,
+     *                         i.e. {@code JdkHttpTransport::new} to send them over HTTP/2. Null to use Apache HttpClient.
+     * @implSpec If the transport can't be created, the default one is used. {@link #setUseAsyncHttpClient},
+     * the connection pool options and {@link #setPrewarmConnections} only apply to the default transport.
+     * Updates are still received and webhooks set with Apache HttpClient.
+     */
+    public void setTransportFactory(TelegramTransportFactory transportFactory) {
+        this.transportFactory = transportFactory;
+    }
+
+    public boolean isOrderedAsyncExecution() {
+        return orderedAsyncExecution;
+    }
+
+    /**
+     * @param orderedAsyncExecution True to execute async methods to the same chat one after the other, so they reach
+     *                              Telegram in the order they were called. Methods to different chats still run in parallel.
+     * @implSpec A method starts once the previous one to its chat has completed, including its retries. Methods
+     * without a chat id and synchronous calls are not ordered.
+     */
+    public void setOrderedAsyncExecution(boolean orderedAsyncExecution) {
+        this.orderedAsyncExecution = orderedAsyncExecution;
+    }
+
+    public int getOrderedAsyncQueueCapacity() {
+        return orderedAsyncQueueCapacity;
+    }
+
+    /**
+     * @param orderedAsyncQueueCapacity Max number of async methods waiting for a previous one to the same chat,
+     *                                  when it is reached new methods to the chat fail with a QueueFullException
+     */
+    public void setOrderedAsyncQueueCapacity(int orderedAsyncQueueCapacity) {
+        this.orderedAsyncQueueCapacity = orderedAsyncQueueCapacity;
+    }
+
+    public int getMaxAsyncInFlight() {
+        return maxAsyncInFlight;
+    }
+
+    /**
+     * @param maxAsyncInFlight Max number of async methods executing at the same time, 0 for no limit.
+     *                         Methods over it wait in a queue of {@link #getAsyncQueueCapacity()} methods.
+     * @implSpec A method is executing from the moment it leaves the queue until its future completes, including
+     * its retries. With {@link #setOrderedAsyncExecution}, a method only enters the queue once the previous methods
+     * to its chat have completed, so the methods waiting for them don't take the room of methods to other chats.
+     * Without an async http client, methods are sent in {@link #getMaxThreads()} threads, and the limit is capped to
+     * them so methods leaving the queue by priority don't wait again for a thread behind others.
+     */
+    public void setMaxAsyncInFlight(int maxAsyncInFlight) {
+        this.maxAsyncInFlight = maxAsyncInFlight;
+    }
+
+    public int getAsyncQueueCapacity() {
+        return asyncQueueCapacity;
+    }
+
+    public void setAsyncQueueCapacity(int asyncQueueCapacity) {
+        this.asyncQueueCapacity = asyncQueueCapacity;
+    }
+
+    public OverflowPolicy getAsyncOverflowPolicy() {
+        return asyncOverflowPolicy;
+    }
+
+    /**
+     * @param asyncOverflowPolicy What to do with new async methods when the queue is full: wait for room,
+     *                            fail them or drop the oldest ones in the queue
+     */
+    public void setAsyncOverflowPolicy(OverflowPolicy asyncOverflowPolicy) {
+        this.asyncOverflowPolicy = asyncOverflowPolicy;
+    }
+
+    public Function<PartialBotApiMethod<?>, RequestPriority> getAsyncPriorityClassifier() {
+        return asyncPriorityClassifier;
+    }
+
+    /**
+     * @param asyncPriorityClassifier Priority class of async methods executed without an explicit one,
+     *                                null for {@link RequestPriority#NORMAL}
+     * @implSpec Priorities only order the methods waiting in the queue of {@link #setMaxAsyncInFlight(int)},
+     * all classes share the same rate limiter once they leave it
+     */
+    public void setAsyncPriorityClassifier(Function<PartialBotApiMethod<?>, RequestPriority> asyncPriorityClassifier) {
+        this.asyncPriorityClassifier = asyncPriorityClassifier;
+    }
+
+    public long getAsyncPriorityAging() {
+        return asyncPriorityAging;
+    }
+
+    /**
+     * @param asyncPriorityAging Time in milliseconds after which queued async methods of a priority class compete
+     *                           as the class above it, so lower classes are not starved
+     */
+    public void setAsyncPriorityAging(long asyncPriorityAging) {
+        this.asyncPriorityAging = asyncPriorityAging;
+    }
+
+    public UploadCache getUploadCache() {
+        return uploadCache;
+    }
+
+    /**
+     * @param uploadCache Cache of the file ids of uploaded files, local files already uploaded are sent with their file id
+     * @implSpec Only the main file of single media methods like SendPhoto or SendDocument is cached, a file id rejected
+     * by Telegram is evicted so the file is uploaded again next time
+     */
+    public void setUploadCache(UploadCache uploadCache) {
+        this.uploadCache = uploadCache;
+    }
+
+    public int getMaxMessageEditsPerSecond() {
+        return maxMessageEditsPerSecond;
+    }
+
+    /**
+     * @param maxMessageEditsPerSecond Max number of async edits sent per second to the same message, 0 to send all of them
+     * @implSpec Edits waiting to be sent are replaced by newer edits of the same message with the same method,
+     * the futures of replaced edits complete exceptionally with an EditCoalescedException
+     */
+    public void setMaxMessageEditsPerSecond(int maxMessageEditsPerSecond) {
+        this.maxMessageEditsPerSecond = maxMessageEditsPerSecond;
+    }
 }
@@ -36,13 +36,25 @@ public abstract class TelegramLongPollingBot extends DefaultAbsSender implements
         super(options, botToken);
     }
 
+    /**
+     * Opens the connections set in {@link DefaultBotOptions#getPrewarmConnections()},
+     * overrides must call it to keep them.
+     */
+    @Override
+    public void onRegister() {
+        prewarmConnections();
+    }
+
     @Override
     public void clearWebhook() throws TelegramApiRequestException {
       WebhookUtils.clearWebhook(this);
     }
 
+    /**
+     * Stops the async execution of methods, overrides must call it to release the async http client.
+     */
     @Override
     public void onClosing() {
-        exe.shutdown();
+        shutdownAsyncExecution();
     }
 }
\ No newline at end of file
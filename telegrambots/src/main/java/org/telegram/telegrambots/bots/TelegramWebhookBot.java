@@ -39,6 +39,15 @@ public abstract class TelegramWebhookBot extends DefaultAbsSender implements Web
     super(options, botToken);
   }
 
+  /**
+   * Opens the connections set in {@link DefaultBotOptions#getPrewarmConnections()},
+   * overrides must call it to keep them.
+   */
+  @Override
+  public void onRegister() {
+    prewarmConnections();
+  }
+
   @Override
   public void setWebhook(SetWebhook setWebhook) throws TelegramApiException {
     WebhookUtils.setWebhook(this, this, setWebhook);
@@ -0,0 +1,148 @@
+package org.telegram.telegrambots.facilities;
+
+import org.telegram.telegrambots.facilities.inflight.QueueFullException;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs asynchronous tasks one after the other for the same key, and in parallel for different keys.
+ * A task starts once the future of the previous task with its key has completed, so tasks that send
+ * requests reach Telegram in the order they were submitted.
+ *
+ * It has no threads of its own, tasks are started from the thread that submits them or completes the previous one.
+ * Keys only have a queue while they have tasks pending, so idle keys don't take any memory.
+ * When the queue of a key is full, new tasks with the key fail right away. Submitting never blocks, since tasks
+ * are also submitted from the threads completing other tasks, which would otherwise wait on each other.
+ */
+public class KeyedExecutor {
+    private final int queueCapacity;
+    private final ConcurrentMap<Object, Lane> lanes = new ConcurrentHashMap<>();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param queueCapacity Max number of tasks waiting for the same key
+     */
+    public KeyedExecutor(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be bigger than 0");
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Start the task after the previous tasks with the same key have completed
+     * @param key Key of the task, i.e. a chat id
+     * @param task Task to start, returning the future of its result
+     * @return Future completed with the result of the task, or with a {@link QueueFullException} if the queue of the key
+     * was full and the task was not run
+     */
+    public <T> CompletableFuture<T> submit(Object key, Supplier<? extends CompletableFuture<? extends T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Task pending = () -> {
+            CompletableFuture<? extends T> future;
+            try {
+                future = task.get();
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return result;
+            }
+            future.whenComplete((value, error) -> {
+                if (error == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(error);
+                }
+            });
+            return future;
+        };
+
+        while (true) {
+            Lane lane = lanes.computeIfAbsent(key, k -> new Lane());
+            synchronized (lane) {
+                if (lane.retired) {
+                    // Dropped by the last task while it was taken, the next one is new
+                    continue;
+                }
+                if (lane.running) {
+                    if (lane.queue.size() >= queueCapacity) {
+                        rejected.incrementAndGet();
+                        result.completeExceptionally(new QueueFullException("Too many requests waiting for the same chat"));
+                    } else {
+                        lane.queue.add(pending);
+                    }
+                    return result;
+                }
+                lane.running = true;
+            }
+            run(key, lane, pending);
+            return result;
+        }
+    }
+
+    /**
+     * @return Number of keys with tasks running or waiting
+     */
+    public int getActiveKeys() {
+        return lanes.size();
+    }
+
+    /**
+     * @return Number of tasks waiting for a previous task with the same key
+     */
+    public int getQueuedTasks() {
+        int queued = 0;
+        for (Lane lane : lanes.values()) {
+            synchronized (lane) {
+                queued += lane.queue.size();
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * @return Number of tasks that failed because the queue of their key was full
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    private void run(Object key, Lane lane, Task task) {
+        while (task != null) {
+            CompletableFuture<?> future = task.start();
+            if (!future.isDone()) {
+                future.whenComplete((value, error) -> run(key, lane, next(key, lane)));
+                return;
+            }
+            // Completed already, looping instead of chaining keeps the stack flat
+            task = next(key, lane);
+        }
+    }
+
+    private Task next(Object key, Lane lane) {
+        synchronized (lane) {
+            Task next = lane.queue.poll();
+            if (next == null) {
+                lane.running = false;
+                lane.retired = true;
+                lanes.remove(key, lane);
+            }
+            return next;
+        }
+    }
+
+    private interface Task {
+        CompletableFuture<?> start();
+    }
+
+    private static class Lane {
+        private final Queue<Task> queue = new ArrayDeque<>();
+        private boolean running;
+        private boolean retired;
+    }
+}
@@ -1,55 +1,156 @@
 package org.telegram.telegrambots.facilities;
 
-import org.apache.http.config.Registry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.ssl.SSLContexts;
+import org.telegram.telegrambots.Constants;
 import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.facilities.proxysocketfactorys.HttpConnectionSocketFactory;
 import org.telegram.telegrambots.facilities.proxysocketfactorys.HttpSSLConnectionSocketFactory;
 import org.telegram.telegrambots.facilities.proxysocketfactorys.SocksSSLConnectionSocketFactory;
 import org.telegram.telegrambots.facilities.proxysocketfactorys.SocksConnectionSocketFactory;
 
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by bvn13 on 17.04.2018.
  */
+@Slf4j
 public class TelegramHttpClientBuilder {
 
     public static CloseableHttpClient build(DefaultBotOptions options) {
+        return build(options, createConnectionManager(options));
+    }
+
+    /**
+     * Build a client on the given pool, closing the client shuts the pool down
+     */
+    public static CloseableHttpClient build(DefaultBotOptions options, HttpClientConnectionManager connectionManager) {
+        long keepAliveDuration = options.getKeepAliveDuration();
         HttpClientBuilder httpClientBuilder = HttpClientBuilder.create()
                 .setSSLHostnameVerifier(new NoopHostnameVerifier())
-                .setConnectionManager(createConnectionManager(options))
-                .setConnectionTimeToLive(70, TimeUnit.SECONDS)
-                .setMaxConnTotal(100);
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy((response, context) -> {
+                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveDuration) : keepAliveDuration;
+                })
+                .evictExpiredConnections();
+        if (options.getMaxIdleConnectionTime() > 0) {
+            httpClientBuilder.evictIdleConnections(options.getMaxIdleConnectionTime(), TimeUnit.MILLISECONDS);
+        }
         return httpClientBuilder.build();
     }
 
-    private static HttpClientConnectionManager createConnectionManager(DefaultBotOptions options) {
-        Registry<ConnectionSocketFactory> registry;
+    /**
+     * Build a non-blocking client, not started yet. Socks proxies are not supported.
+     */
+    public static CloseableHttpAsyncClient buildAsync(DefaultBotOptions options) {
+        AtomicInteger threads = new AtomicInteger();
+        HttpAsyncClientBuilder httpClientBuilder = HttpAsyncClients.custom()
+                .setSSLHostnameVerifier(new NoopHostnameVerifier())
+                .setDefaultIOReactorConfig(IOReactorConfig.custom().setSoKeepAlive(true).build())
+                .setMaxConnTotal(options.getMaxConnectionsTotal())
+                .setMaxConnPerRoute(options.getMaxConnectionsPerRoute())
+                .setThreadFactory(runnable -> {
+                    Thread thread = new Thread(runnable, "Telegram Async Sender-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        if (options.getProxyType() == DefaultBotOptions.ProxyType.HTTP) {
+            httpClientBuilder.setProxy(new HttpHost(options.getProxyHost(), options.getProxyPort()));
+        }
+        return httpClientBuilder.build();
+    }
+
+    /**
+     * Create the connection pool for the proxy type of the options, sized from the options
+     */
+    public static PoolingHttpClientConnectionManager createConnectionManager(DefaultBotOptions options) {
+        RegistryBuilder<ConnectionSocketFactory> registry = RegistryBuilder.create();
         switch (options.getProxyType()) {
-            case NO_PROXY:
-                return null;
             case HTTP:
-                registry = RegistryBuilder.<ConnectionSocketFactory> create()
-                        .register("http", new HttpConnectionSocketFactory())
-                        .register("https", new HttpSSLConnectionSocketFactory(SSLContexts.createSystemDefault())).build();
-                return new PoolingHttpClientConnectionManager(registry);
+                registry.register("http", new HttpConnectionSocketFactory())
+                        .register("https", new HttpSSLConnectionSocketFactory(SSLContexts.createSystemDefault()));
+                break;
             case SOCKS4:
             case SOCKS5:
-                registry = RegistryBuilder.<ConnectionSocketFactory> create()
-                        .register("http", new SocksConnectionSocketFactory())
-                        .register("https", new SocksSSLConnectionSocketFactory(SSLContexts.createSystemDefault()))
-                        .build();
-                return new PoolingHttpClientConnectionManager(registry);
+                registry.register("http", new SocksConnectionSocketFactory())
+                        .register("https", new SocksSSLConnectionSocketFactory(SSLContexts.createSystemDefault()));
+                break;
+            default:
+                registry.register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", new SSLConnectionSocketFactory(SSLContexts.createDefault(), NoopHostnameVerifier.INSTANCE));
+                break;
         }
-        return null;
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                registry.build(), null, null, null, 70, TimeUnit.SECONDS);
+        connectionManager.setMaxTotal(options.getMaxConnectionsTotal());
+        connectionManager.setDefaultMaxPerRoute(options.getMaxConnectionsPerRoute());
+        connectionManager.setValidateAfterInactivity(options.getValidateConnectionAfterInactivity());
+        return connectionManager;
     }
 
+    /**
+     * Open connections to the api host and leave them in the pool
+     * @param connections Number of connections to open
+     * @return Number of connections that were opened
+     */
+    public static int prewarm(HttpClientConnectionManager connectionManager, DefaultBotOptions options, int connections) {
+        URI uri = URI.create(options.getBaseUrl());
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() > 0 ? uri.getPort() : (secure ? 443 : 80);
+        HttpRoute route = new HttpRoute(new HttpHost(uri.getHost(), port, uri.getScheme()), null, secure);
+        // The proxy socket factories read the proxy address from the context
+        HttpContext context = new BasicHttpContext(options.getHttpContext());
+        int timeout = options.getRequestConfig() != null && options.getRequestConfig().getConnectTimeout() > 0
+                ? options.getRequestConfig().getConnectTimeout() : Constants.SOCKET_TIMEOUT;
+
+        List<HttpClientConnection> leased = new ArrayList<>();
+        int opened = 0;
+        try {
+            // All of them are leased first, so every one is a new connection
+            for (int i = 0; i < connections; i++) {
+                HttpClientConnection connection = connectionManager.requestConnection(route, null).get(timeout, TimeUnit.MILLISECONDS);
+                leased.add(connection);
+                if (!connection.isOpen()) {
+                    connectionManager.connect(connection, route, timeout, context);
+                    connectionManager.routeComplete(connection, route, context);
+                    opened++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | ExecutionException e) {
+            log.warn("Unable to open connections to {}, {} were opened", route.getTargetHost(), opened, e);
+        } finally {
+            for (HttpClientConnection connection : leased) {
+                connectionManager.releaseConnection(connection, null, options.getKeepAliveDuration(), TimeUnit.MILLISECONDS);
+            }
+        }
+        return opened;
+    }
 }
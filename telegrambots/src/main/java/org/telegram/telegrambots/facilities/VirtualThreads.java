@@ -0,0 +1,84 @@
+package org.telegram.telegrambots.facilities;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads (JDK 21+) without requiring them at compile time.
+ * On older runtimes {@link #isSupported()} returns false and callers are expected to
+ * fall back to platform threads.
+ */
+@Slf4j
+public final class VirtualThreads {
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+    private static final Method NAME = findMethod("java.lang.Thread$Builder", "name", String.class, long.class);
+    private static final Method FACTORY = findMethod("java.lang.Thread$Builder", "factory");
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR = findMethod(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+    private static final boolean SUPPORTED = newThreadFactory("virtual-thread-probe-") != null;
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return True if the running JVM can create virtual threads
+     */
+    public static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    /**
+     * @param namePrefix Prefix for the name of the threads, followed by a counter
+     * @return Factory of virtual threads, null if they are not supported
+     */
+    public static ThreadFactory newThreadFactory(String namePrefix) {
+        if (OF_VIRTUAL == null || NAME == null || FACTORY == null) {
+            return null;
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = NAME.invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // i.e. preview feature not enabled in JDK 19/20
+            log.debug("Virtual threads not available", e);
+            return null;
+        }
+    }
+
+    /**
+     * @param namePrefix Prefix for the name of the threads, followed by a counter
+     * @return Executor that starts a new virtual thread for each task, null if they are not supported
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        ThreadFactory threadFactory = newThreadFactory(namePrefix);
+        if (threadFactory == null || NEW_THREAD_PER_TASK_EXECUTOR == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Virtual threads not available", e);
+            return null;
+        }
+    }
+
+    private static Method findMethod(String className, String name, Class<?>... parameterTypes) {
+        try {
+            return findMethod(Class.forName(className), name, parameterTypes);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Method findMethod(Class<?> clazz, String name, Class<?>... parameterTypes) {
+        try {
+            return clazz.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
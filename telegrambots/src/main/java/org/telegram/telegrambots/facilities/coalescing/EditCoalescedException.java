@@ -0,0 +1,12 @@
+package org.telegram.telegrambots.facilities.coalescing;
+
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+/**
+ * An async edit was not sent because a newer edit of the same message replaced it in the {@link EditCoalescer}
+ */
+public class EditCoalescedException extends TelegramApiException {
+    public EditCoalescedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,203 @@
+package org.telegram.telegrambots.facilities.coalescing;
+
+import org.telegram.telegrambots.meta.api.methods.PartialBotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageCaption;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageLiveLocation;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageMedia;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageReplyMarkup;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Sends at most a number of edits per second to the same message, keeping only the latest one while it waits.
+ * Edits are keyed by their method, chat and message, so edits of the text and of the keyboard of a message
+ * don't replace each other.
+ *
+ * An edit replaced by a newer one is not sent, its future completes exceptionally with an {@link EditCoalescedException}.
+ * The next edit of a message is sent once the previous one has completed and the interval has passed,
+ * so edits never overtake each other.
+ */
+public class EditCoalescer {
+    private final long minIntervalNanos;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentMap<Object, Slot> slots = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * @param maxEditsPerSecond Max number of edits sent per second to the same message
+     * @param scheduler Scheduler to send waiting edits with
+     */
+    public EditCoalescer(int maxEditsPerSecond, ScheduledExecutorService scheduler) {
+        if (maxEditsPerSecond < 1) {
+            throw new IllegalArgumentException("Max edits per second must be bigger than 0");
+        }
+        this.minIntervalNanos = TimeUnit.SECONDS.toNanos(1) / maxEditsPerSecond;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @return Key of the message edited by the method, null if the method is not an edit
+     */
+    public static Object getKey(PartialBotApiMethod<?> method) {
+        if (method instanceof EditMessageText) {
+            EditMessageText edit = (EditMessageText) method;
+            return getKey(edit.getMethod(), edit.getChatId(), edit.getMessageId(), edit.getInlineMessageId());
+        } else if (method instanceof EditMessageReplyMarkup) {
+            EditMessageReplyMarkup edit = (EditMessageReplyMarkup) method;
+            return getKey(edit.getMethod(), edit.getChatId(), edit.getMessageId(), edit.getInlineMessageId());
+        } else if (method instanceof EditMessageCaption) {
+            EditMessageCaption edit = (EditMessageCaption) method;
+            return getKey(edit.getMethod(), edit.getChatId(), edit.getMessageId(), edit.getInlineMessageId());
+        } else if (method instanceof EditMessageMedia) {
+            EditMessageMedia edit = (EditMessageMedia) method;
+            return getKey(edit.getMethod(), edit.getChatId(), edit.getMessageId(), edit.getInlineMessageId());
+        } else if (method instanceof EditMessageLiveLocation) {
+            EditMessageLiveLocation edit = (EditMessageLiveLocation) method;
+            return getKey(edit.getMethod(), edit.getChatId(), edit.getMessageId(), edit.getInlineMessageId());
+        }
+        return null;
+    }
+
+    private static Object getKey(String method, String chatId, Integer messageId, String inlineMessageId) {
+        if (inlineMessageId != null) {
+            return method + ':' + inlineMessageId;
+        }
+        if (chatId == null || messageId == null) {
+            return null;
+        }
+        return method + ':' + chatId + ':' + messageId;
+    }
+
+    /**
+     * Send the edit once the previous edit with the same key has completed and the interval has passed,
+     * unless a newer edit with the same key replaces it before
+     * @param key Key of the edited message, see {@link #getKey}
+     * @param edit Edit to send, returning the future of its result
+     * @return Future completed with the result of the edit, or with an {@link EditCoalescedException} if it was replaced
+     */
+    public <T> CompletableFuture<T> submit(Object key, Supplier<? extends CompletableFuture<? extends T>> edit) {
+        Edit<T> pending = new Edit<>(edit);
+        while (true) {
+            Slot slot = slots.computeIfAbsent(key, k -> new Slot());
+            Edit<?> superseded;
+            long delay = -1;
+            synchronized (slot) {
+                if (slot.retired) {
+                    // Dropped while it was taken, the next one is new
+                    continue;
+                }
+                superseded = slot.pending;
+                slot.pending = pending;
+                if (!slot.sending && !slot.scheduled) {
+                    slot.scheduled = true;
+                    delay = Math.max(0, slot.lastSent + minIntervalNanos - System.nanoTime());
+                }
+            }
+            if (superseded != null) {
+                coalesced.incrementAndGet();
+                superseded.result.completeExceptionally(new EditCoalescedException("Replaced by a newer edit of the same message"));
+            }
+            if (delay >= 0) {
+                sendLater(key, slot, delay);
+            }
+            return pending.result;
+        }
+    }
+
+    /**
+     * @return Number of edits replaced by newer ones
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return Number of messages with edits being sent or waiting
+     */
+    public int getActiveMessages() {
+        return slots.size();
+    }
+
+    private void sendLater(Object key, Slot slot, long delayNanos) {
+        if (delayNanos > 0) {
+            try {
+                scheduler.schedule(() -> sendNext(key, slot), delayNanos, TimeUnit.NANOSECONDS);
+                return;
+            } catch (RejectedExecutionException e) {
+                // The scheduler was shut down, i.e. with the sender, the edit fails there without waiting
+            }
+        }
+        sendNext(key, slot);
+    }
+
+    private void sendNext(Object key, Slot slot) {
+        Edit<?> edit;
+        synchronized (slot) {
+            slot.scheduled = false;
+            edit = slot.pending;
+            slot.pending = null;
+            if (edit == null) {
+                // Idle for a whole interval, the next edit can be sent right away
+                slot.retired = true;
+                slots.remove(key, slot);
+                return;
+            }
+            slot.sending = true;
+            slot.lastSent = System.nanoTime();
+        }
+        edit.start().whenComplete((value, error) -> sent(key, slot));
+    }
+
+    private void sent(Object key, Slot slot) {
+        long delay;
+        synchronized (slot) {
+            slot.sending = false;
+            slot.scheduled = true;
+            delay = Math.max(0, slot.lastSent + minIntervalNanos - System.nanoTime());
+        }
+        sendLater(key, slot, delay);
+    }
+
+    private static class Edit<T> {
+        private final Supplier<? extends CompletableFuture<? extends T>> edit;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Edit(Supplier<? extends CompletableFuture<? extends T>> edit) {
+            this.edit = edit;
+        }
+
+        private CompletableFuture<?> start() {
+            CompletableFuture<? extends T> future;
+            try {
+                future = edit.get();
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return result;
+            }
+            future.whenComplete((value, error) -> {
+                if (error == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(error);
+                }
+            });
+            return future;
+        }
+    }
+
+    private static class Slot {
+        private Edit<?> pending;
+        private boolean sending;
+        private boolean scheduled;
+        private boolean retired;
+        private long lastSent = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+    }
+}
@@ -1,9 +1,10 @@
 package org.telegram.telegrambots.facilities.filedownloader;
 
-import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.HttpClients;
+import org.telegram.telegrambots.facilities.transport.ApacheTransport;
+import org.telegram.telegrambots.facilities.transport.TelegramTransport;
+import org.telegram.telegrambots.facilities.transport.TransportResponse;
 import org.telegram.telegrambots.meta.api.objects.File;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.meta.updateshandlers.DownloadFileCallback;
@@ -24,17 +25,21 @@ import static org.apache.http.HttpStatus.SC_OK;
  * @version 1.0
  */
 public class TelegramFileDownloader {
-    private final HttpClient httpClient;
+    private final TelegramTransport transport;
     //TODO Replace with concrete token once deprecations are removed
     private final Supplier<String> botTokenSupplier;
 
     public TelegramFileDownloader(final Supplier<String> botTokenSupplier) {
         this.botTokenSupplier = botTokenSupplier;
-        httpClient = HttpClients.createDefault();
+        transport = new ApacheTransport(HttpClients.createDefault());
     }
 
     public TelegramFileDownloader(final HttpClient httpClient, final Supplier<String> botTokenSupplier) {
-        this.httpClient = httpClient;
+        this(new ApacheTransport(httpClient), botTokenSupplier);
+    }
+
+    public TelegramFileDownloader(final TelegramTransport transport, final Supplier<String> botTokenSupplier) {
+        this.transport = transport;
         this.botTokenSupplier = botTokenSupplier;
     }
 
@@ -157,11 +162,12 @@ public class TelegramFileDownloader {
     private CompletableFuture<InputStream> getFileDownloadStreamFuture(final String url) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                HttpResponse response = httpClient.execute(new HttpGet(url));
-                final int statusCode = response.getStatusLine().getStatusCode();
+                TransportResponse response = transport.get(url);
+                final int statusCode = response.getStatusCode();
                 if (statusCode == SC_OK) {
-                    return response.getEntity().getContent();
+                    return response.getBody();
                 } else {
+                    response.close();
                     throw new TelegramApiException("Unexpected Status code while downloading file. Expected 200 got " + statusCode);
                 }
             } catch (IOException | TelegramApiException e) {
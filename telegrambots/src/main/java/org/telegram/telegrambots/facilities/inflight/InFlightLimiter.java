@@ -0,0 +1,322 @@
+package org.telegram.telegrambots.facilities.inflight;
+
+import org.telegram.telegrambots.util.LatencyHistogram;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of async tasks running at the same time. Tasks over the limit wait in a bounded queue,
+ * and the {@link OverflowPolicy} decides what happens when it is full.
+ *
+ * A task runs until its future completes, and the next one in the queue is started from the thread completing it.
+ * That thread never waits for room in the queue, so tasks submitted while completing another one, i.e. from its
+ * callbacks, fail right away when the queue is full even with {@link OverflowPolicy#BLOCK}.
+ *
+ * Every task has a {@link RequestPriority}. Waiting tasks of a higher class are started first, and tasks of the
+ * same class in the order they were submitted. To keep lower classes from starving, a class moves up one class
+ * for every aging interval both its oldest task waited and the class went without starting a task.
+ * Every class keeps a histogram of the time its tasks waited in the queue.
+ */
+public class InFlightLimiter {
+    private static final long DEFAULT_AGING = TimeUnit.SECONDS.toMillis(1);
+    private static final RequestPriority[] PRIORITIES = RequestPriority.values();
+
+    private final int maxInFlight;
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final long agingNanos;
+    private final Map<RequestPriority, Deque<Task>> queues = new EnumMap<>(RequestPriority.class);
+    private final Map<RequestPriority, LatencyHistogram> queueTimes = new EnumMap<>(RequestPriority.class);
+    private final long[] lastStarted = new long[PRIORITIES.length];
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final ThreadLocal<Boolean> completing = ThreadLocal.withInitial(() -> false);
+    private int inFlight;
+    private int queued;
+
+    /**
+     * @param maxInFlight Max number of tasks running at the same time
+     * @param queueCapacity Max number of tasks waiting to run
+     * @param overflowPolicy What to do with new tasks when the queue is full
+     */
+    public InFlightLimiter(int maxInFlight, int queueCapacity, OverflowPolicy overflowPolicy) {
+        this(maxInFlight, queueCapacity, overflowPolicy, DEFAULT_AGING);
+    }
+
+    /**
+     * @param maxInFlight Max number of tasks running at the same time
+     * @param queueCapacity Max number of tasks waiting to run
+     * @param overflowPolicy What to do with new tasks when the queue is full
+     * @param agingMillis Time after which waiting tasks of a class compete as the class above it
+     */
+    public InFlightLimiter(int maxInFlight, int queueCapacity, OverflowPolicy overflowPolicy, long agingMillis) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Max in flight must be bigger than 0");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("Queue capacity can't be negative");
+        }
+        if (agingMillis < 1) {
+            throw new IllegalArgumentException("Aging must be bigger than 0");
+        }
+        this.maxInFlight = maxInFlight;
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.agingNanos = TimeUnit.MILLISECONDS.toNanos(agingMillis);
+        long now = System.nanoTime();
+        for (RequestPriority priority : PRIORITIES) {
+            queues.put(priority, new ArrayDeque<>());
+            queueTimes.put(priority, new LatencyHistogram());
+            lastStarted[priority.ordinal()] = now;
+        }
+    }
+
+    /**
+     * Run the task now if there is room for it, queue it with a {@link RequestPriority#NORMAL} priority otherwise
+     * @see #submit(RequestPriority, Supplier)
+     */
+    public <T> CompletableFuture<T> submit(Supplier<? extends CompletableFuture<? extends T>> task) throws InterruptedException {
+        return submit(RequestPriority.NORMAL, task);
+    }
+
+    /**
+     * Run the task now if there is room for it, queue it otherwise
+     * @param priority Priority class of the task while it waits in the queue
+     * @param task Task to run, returning the future of its result
+     * @return Future completed with the result of the task, or with a {@link QueueFullException} if it was not run
+     * @throws InterruptedException If interrupted while waiting for room in the queue
+     */
+    public <T> CompletableFuture<T> submit(RequestPriority priority, Supplier<? extends CompletableFuture<? extends T>> task) throws InterruptedException {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Task pending = new Task(priority, result, () -> {
+            CompletableFuture<? extends T> future;
+            try {
+                future = task.get();
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return result;
+            }
+            future.whenComplete((value, error) -> whileCompleting(() -> {
+                if (error == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(error);
+                }
+            }));
+            return future;
+        });
+
+        Task droppedTask = null;
+        synchronized (this) {
+            if (inFlight < maxInFlight) {
+                inFlight++;
+            } else {
+                if (queued >= queueCapacity) {
+                    switch (overflowPolicy) {
+                        case BLOCK:
+                            if (completing.get()) {
+                                // Waiting here could hold the completion that would make room
+                                return reject(result, "Too many requests waiting to be executed, "
+                                        + "unable to wait for room while completing another request");
+                            }
+                            while (queued >= queueCapacity && inFlight >= maxInFlight) {
+                                wait();
+                            }
+                            break;
+                        case FAIL:
+                            return reject(result, "Too many requests waiting to be executed");
+                        case DROP_OLDEST:
+                            droppedTask = pollLowest(priority);
+                            if (droppedTask == null) {
+                                // Only higher classes are queued, the new task is the lowest one
+                                dropped.incrementAndGet();
+                                result.completeExceptionally(new QueueFullException("Dropped, only requests of higher priority are waiting"));
+                                return result;
+                            }
+                            break;
+                        default:
+                            throw new IllegalStateException("Unknown overflow policy " + overflowPolicy);
+                    }
+                }
+                if (inFlight < maxInFlight) {
+                    inFlight++;
+                } else {
+                    queues.get(priority).addLast(pending);
+                    queued++;
+                    pending = null;
+                }
+            }
+            if (pending != null) {
+                lastStarted[priority.ordinal()] = pending.submittedAt;
+            }
+        }
+        if (droppedTask != null) {
+            dropped.incrementAndGet();
+            droppedTask.result.completeExceptionally(new QueueFullException("Dropped to make room for newer requests"));
+        }
+        if (pending != null) {
+            queueTimes.get(priority).recordNanos(0);
+            run(pending);
+        }
+        return result;
+    }
+
+    /**
+     * @return Number of tasks running
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return Number of tasks waiting to run
+     */
+    public synchronized int getQueued() {
+        return queued;
+    }
+
+    /**
+     * @return Max number of tasks running at the same time
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * @return Number of tasks of the priority class waiting to run
+     */
+    public synchronized int getQueued(RequestPriority priority) {
+        return queues.get(priority).size();
+    }
+
+    /**
+     * @return Time tasks of the priority class waited before they started, tasks started right away count as 0
+     */
+    public LatencyHistogram getQueueTime(RequestPriority priority) {
+        return queueTimes.get(priority);
+    }
+
+    /**
+     * @return Number of tasks that failed because the queue was full
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * @return Number of tasks dropped from the queue to make room for newer ones
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private void run(Task task) {
+        while (task != null) {
+            CompletableFuture<?> future = task.start.get();
+            if (!future.isDone()) {
+                future.whenComplete((value, error) -> whileCompleting(() -> run(next())));
+                return;
+            }
+            // Completed already, looping instead of chaining keeps the stack flat
+            task = next();
+        }
+    }
+
+    /**
+     * Run the action marking the current thread as completing a task, so it doesn't wait for room in the queue
+     */
+    private void whileCompleting(Runnable action) {
+        if (completing.get()) {
+            action.run();
+            return;
+        }
+        completing.set(true);
+        try {
+            action.run();
+        } finally {
+            completing.remove();
+        }
+    }
+
+    private <T> CompletableFuture<T> reject(CompletableFuture<T> result, String message) {
+        rejected.incrementAndGet();
+        result.completeExceptionally(new QueueFullException(message));
+        return result;
+    }
+
+    private Task next() {
+        Task next;
+        long now = System.nanoTime();
+        synchronized (this) {
+            next = pollNext(now);
+            if (next == null) {
+                inFlight--;
+            } else {
+                queued--;
+                lastStarted[next.priority.ordinal()] = now;
+            }
+            notifyAll();
+        }
+        if (next != null) {
+            queueTimes.get(next.priority).recordNanos(now - next.submittedAt);
+        }
+        return next;
+    }
+
+    /**
+     * Take the oldest task of the class with the best rank: its position, moved up one for every aging interval
+     * its oldest task waited and it went without starting a task. Ties go to the higher class.
+     */
+    private Task pollNext(long now) {
+        Deque<Task> best = null;
+        long bestRank = Long.MAX_VALUE;
+        for (RequestPriority priority : PRIORITIES) {
+            Deque<Task> queue = queues.get(priority);
+            Task oldest = queue.peekFirst();
+            if (oldest == null) {
+                continue;
+            }
+            long age = Math.min(now - oldest.submittedAt, now - lastStarted[priority.ordinal()]);
+            long rank = priority.ordinal() - age / agingNanos;
+            if (rank < bestRank) {
+                best = queue;
+                bestRank = rank;
+            }
+        }
+        return best == null ? null : best.pollFirst();
+    }
+
+    /**
+     * Take the oldest task of the lowest class, unless that class is higher than the given one
+     */
+    private Task pollLowest(RequestPriority atMost) {
+        for (int i = PRIORITIES.length - 1; i >= atMost.ordinal(); i--) {
+            Task oldest = queues.get(PRIORITIES[i]).pollFirst();
+            if (oldest != null) {
+                queued--;
+                return oldest;
+            }
+        }
+        return null;
+    }
+
+    private static class Task {
+        private final RequestPriority priority;
+        private final long submittedAt = System.nanoTime();
+        private final CompletableFuture<?> result;
+        private final Supplier<CompletableFuture<?>> start;
+
+        private Task(RequestPriority priority, CompletableFuture<?> result, Supplier<CompletableFuture<?>> start) {
+            this.priority = priority;
+            this.result = result;
+            this.start = start;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.telegram.telegrambots.facilities.inflight;
+
+/**
+ * What to do with a new async method when the queue of the {@link InFlightLimiter} is full
+ */
+public enum OverflowPolicy {
+    /**
+     * The caller waits until there is room in the queue. Methods executed while completing another one, i.e. from
+     * its callbacks, fail right away with a {@link QueueFullException} instead, since they could hold the completion
+     * that would make room.
+     */
+    BLOCK,
+    /**
+     * The new method fails right away with a {@link QueueFullException}
+     */
+    FAIL,
+    /**
+     * The oldest method of the lowest {@link RequestPriority} among the queued ones and the new one fails with a
+     * {@link QueueFullException} to make room. If only methods of higher classes than the new one are queued, the new
+     * one is the one dropped.
+     */
+    DROP_OLDEST
+}
@@ -0,0 +1,13 @@
+package org.telegram.telegrambots.facilities.inflight;
+
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+/**
+ * An async method was not executed because the queue it had to wait in was full: the one of the
+ * {@link InFlightLimiter}, or the one of its chat when async methods are ordered
+ */
+public class QueueFullException extends TelegramApiException {
+    public QueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package org.telegram.telegrambots.facilities.inflight;
+
+/**
+ * Priority class of an async method waiting in the queue of the {@link InFlightLimiter}.
+ * Methods of a higher class are taken before those of lower ones, the declaration order is from highest to lowest.
+ */
+public enum RequestPriority {
+    /**
+     * Direct replies to users waiting for them, like answers to commands or callback queries
+     */
+    INTERACTIVE,
+    /**
+     * Default class of every method
+     */
+    NORMAL,
+    /**
+     * Traffic nobody is waiting for, like newsletters and broadcasts
+     */
+    BULK
+}
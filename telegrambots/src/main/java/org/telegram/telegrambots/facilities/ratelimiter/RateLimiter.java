@@ -0,0 +1,216 @@
+package org.telegram.telegrambots.facilities.ratelimiter;
+
+import org.telegram.telegrambots.meta.api.methods.PartialBotApiMethod;
+import org.telegram.telegrambots.util.ChatIds;
+import org.telegram.telegrambots.util.LatencyHistogram;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps requests to chats within the limits of Telegram: about 30 messages per second overall,
+ * 1 message per second to the same private chat and 20 messages per minute to the same group or channel.
+ *
+ * Every method with a chat id, other than the getX ones, takes a permit from the bucket of its chat
+ * and, once it is granted, one from the global bucket. Taking the global permit earlier would count the request
+ * as sent before it actually is, letting more requests through than the global limit when it is.
+ * Methods without a chat id, i.e. answers to callback and inline queries or edits of inline messages,
+ * only take a permit from the global bucket.
+ * Chat ids starting with '-' or '@' are groups or channels.
+ * Buckets are lock-free and chats are kept in a concurrent map, so senders don't contend on a shared lock.
+ * Buckets of chats that were not used for a while are dropped by a task running every minute,
+ * {@link #close()} stops it.
+ */
+public class RateLimiter implements AutoCloseable {
+    private static final long CLEANUP_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private final int privateChatPermits;
+    private final long privateChatPeriod;
+    private final int groupChatPermits;
+    private final long groupChatPeriod;
+    private final TokenBucket global;
+    private final ConcurrentMap<String, TokenBucket> chats = new ConcurrentHashMap<>();
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final ScheduledExecutorService ownScheduler;
+    private final ScheduledFuture<?> cleanup;
+
+    /**
+     * Rate limiter with the limits documented by Telegram
+     */
+    public RateLimiter() {
+        this(30, 1, 20);
+    }
+
+    /**
+     * @param globalPerSecond Max requests per second overall
+     * @param privateChatPerSecond Max requests per second to the same private chat
+     * @param groupChatPerMinute Max requests per minute to the same group or channel
+     */
+    public RateLimiter(int globalPerSecond, int privateChatPerSecond, int groupChatPerMinute) {
+        this(globalPerSecond, privateChatPerSecond, groupChatPerMinute, null);
+    }
+
+    /**
+     * @param globalPerSecond Max requests per second overall
+     * @param privateChatPerSecond Max requests per second to the same private chat
+     * @param groupChatPerMinute Max requests per minute to the same group or channel
+     * @param scheduler Scheduler to drop idle chat buckets with, null to create one that {@link #close()} shuts down
+     */
+    public RateLimiter(int globalPerSecond, int privateChatPerSecond, int groupChatPerMinute, ScheduledExecutorService scheduler) {
+        this.global = new TokenBucket(globalPerSecond, 1, TimeUnit.SECONDS);
+        this.privateChatPermits = privateChatPerSecond;
+        this.privateChatPeriod = TimeUnit.SECONDS.toNanos(1);
+        // Groups don't get a burst of a full minute, requests are spread over it
+        this.groupChatPermits = 1;
+        this.groupChatPeriod = TimeUnit.MINUTES.toNanos(1) / groupChatPerMinute;
+        this.ownScheduler = scheduler == null ? createScheduler() : null;
+        this.cleanup = (scheduler == null ? ownScheduler : scheduler).scheduleWithFixedDelay(this::dropIdleBuckets,
+                CLEANUP_INTERVAL, CLEANUP_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop dropping idle chat buckets, and shut down the scheduler if it was created by the rate limiter.
+     * Permits can still be reserved afterwards.
+     */
+    @Override
+    public void close() {
+        cleanup.cancel(false);
+        if (ownScheduler != null) {
+            ownScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * @return Time requests waited for a permit, only those that had to wait are recorded
+     */
+    public LatencyHistogram getWaitTime() {
+        return waitTime;
+    }
+
+    /**
+     * @return True if requests of this method are rate limited
+     */
+    public boolean isLimited(PartialBotApiMethod<?> method) {
+        return !isGetter(method);
+    }
+
+    /**
+     * Reserve the chat permit for the method, or only the global one if it has no chat id
+     * @return Reservation of the permits, null if the method is not rate limited
+     */
+    public Reservation reserve(PartialBotApiMethod<?> method) {
+        if (isGetter(method)) {
+            return null;
+        }
+        String chatId = ChatIds.get(method);
+        return chatId == null ? new Reservation(null, 0, System.nanoTime()) : reserve(chatId);
+    }
+
+    /**
+     * Reserve the chat permit for a request to the given chat
+     * @return Reservation of the permits
+     */
+    public Reservation reserve(String chatId) {
+        long now = System.nanoTime();
+        TokenBucket chat = getBucket(chatId);
+        long chatState = chat.reserveState(now);
+        while (chats.get(chatId) != chat) {
+            // Dropped as idle meanwhile, the permit went away with it
+            chat = getBucket(chatId);
+            chatState = chat.reserveState(now);
+        }
+        return new Reservation(chat, chatState, now);
+    }
+
+    /**
+     * Wait until the method can be sent
+     */
+    public void acquire(PartialBotApiMethod<?> method) throws InterruptedException {
+        Reservation reservation = reserve(method);
+        if (reservation != null) {
+            long wait;
+            while ((wait = reservation.next()) > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+    }
+
+    /**
+     * Permits of a request: the permit of its chat, reserved by {@link #reserve(String)}, and the global one,
+     * taken once the chat permit is granted. Requests without a chat only take the global one.
+     */
+    public final class Reservation {
+        private final TokenBucket chat;
+        private final long chatState;
+        private final long reservedAt;
+        private final long chatGrantedAt;
+        private long grantedAt = -1;
+        private boolean globalTaken;
+
+        private Reservation(TokenBucket chat, long chatState, long reservedAt) {
+            this.chat = chat;
+            this.chatState = chatState;
+            this.reservedAt = reservedAt;
+            this.chatGrantedAt = chat == null ? reservedAt : chat.grantedAt(chatState, reservedAt);
+        }
+
+        /**
+         * Take the next permit of the request. Must be called again after the returned time.
+         * @return Nanoseconds to wait for the chat or the global permit, 0 once the request can be sent
+         */
+        public synchronized long next() {
+            long now = System.nanoTime();
+            if (!globalTaken) {
+                if (chatGrantedAt - now > 0) {
+                    return chatGrantedAt - now;
+                }
+                globalTaken = true;
+                grantedAt = global.reserve(now);
+                if (chat != null && grantedAt - now > 0) {
+                    // The chat permit would be used later than it was granted, so the next request to the chat
+                    // could follow this one too closely. Move it to the global grant, or take another one if
+                    // newer requests of the chat reserved after it.
+                    chat.cancel(chatState, reservedAt);
+                    grantedAt = Math.max(grantedAt, chat.reserve(grantedAt));
+                }
+                if (chatGrantedAt - reservedAt > 0 || grantedAt - now > 0) {
+                    waitTime.recordNanos(grantedAt - reservedAt);
+                }
+            }
+            return Math.max(0, grantedAt - now);
+        }
+    }
+
+    private void dropIdleBuckets() {
+        long now = System.nanoTime();
+        chats.values().removeIf(bucket -> bucket.isIdle(now));
+    }
+
+    private static ScheduledExecutorService createScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "Telegram Rate Limiter Cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    private TokenBucket getBucket(String chatId) {
+        return chats.computeIfAbsent(chatId, id -> isGroup(id)
+                ? new TokenBucket(groupChatPermits, groupChatPeriod, TimeUnit.NANOSECONDS)
+                : new TokenBucket(privateChatPermits, privateChatPeriod, TimeUnit.NANOSECONDS));
+    }
+
+    private static boolean isGroup(String chatId) {
+        return chatId.startsWith("-") || chatId.startsWith("@");
+    }
+
+    private static boolean isGetter(PartialBotApiMethod<?> method) {
+        return method.getClass().getSimpleName().startsWith("Get");
+    }
+}
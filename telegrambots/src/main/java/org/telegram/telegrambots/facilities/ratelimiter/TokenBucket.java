@@ -0,0 +1,77 @@
+package org.telegram.telegrambots.facilities.ratelimiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket.
+ *
+ * Implemented as a generic cell rate algorithm: the only state is the time at which the bucket will be full again,
+ * updated with a single compare and set. Permits are reserved in advance, so callers are told how long to wait
+ * instead of being rejected.
+ */
+public class TokenBucket {
+    private final long interval;
+    private final long tolerance;
+    private final AtomicLong fullAt;
+
+    /**
+     * @param permits Number of permits refilled every period, also the size of the bucket
+     * @param period Duration of the period
+     * @param unit Unit of the period
+     */
+    public TokenBucket(int permits, long period, TimeUnit unit) {
+        if (permits < 1 || period < 1) {
+            throw new IllegalArgumentException("Permits and period must be bigger than 0");
+        }
+        this.interval = Math.max(1, unit.toNanos(period) / permits);
+        this.tolerance = interval * (permits - 1);
+        this.fullAt = new AtomicLong(System.nanoTime() - interval);
+    }
+
+    /**
+     * Reserve a permit
+     * @param at Time, as in {@link System#nanoTime()}, from which the permit is needed
+     * @return Time at which the permit is granted, never before {@code at}
+     */
+    public long reserve(long at) {
+        return grantedAt(reserveState(at), at);
+    }
+
+    /**
+     * Reserve a permit that can be given back with {@link #cancel(long, long)}
+     * @param at Time, as in {@link System#nanoTime()}, from which the permit is needed
+     * @return State of the bucket before the reservation
+     */
+    long reserveState(long at) {
+        while (true) {
+            long current = fullAt.get();
+            if (fullAt.compareAndSet(current, Math.max(current, at) + interval)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * @return Time at which the permit reserved with {@link #reserveState(long)} is granted
+     */
+    long grantedAt(long state, long at) {
+        return Math.max(at, state - tolerance);
+    }
+
+    /**
+     * Give back a permit reserved with {@link #reserveState(long)}, only possible while no other permit was
+     * reserved after it
+     * @return True if the permit was given back
+     */
+    boolean cancel(long state, long at) {
+        return fullAt.compareAndSet(Math.max(state, at) + interval, state);
+    }
+
+    /**
+     * @return True if the bucket is full at the given time, so dropping it loses no state
+     */
+    public boolean isIdle(long now) {
+        return fullAt.get() - now <= 0;
+    }
+}
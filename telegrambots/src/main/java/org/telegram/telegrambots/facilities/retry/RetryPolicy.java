@@ -0,0 +1,323 @@
+package org.telegram.telegrambots.facilities.retry;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.methods.PartialBotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.GetFile;
+import org.telegram.telegrambots.meta.api.methods.GetMe;
+import org.telegram.telegrambots.meta.api.methods.GetUserProfilePhotos;
+import org.telegram.telegrambots.meta.api.methods.SetPassportDataErrors;
+import org.telegram.telegrambots.meta.api.methods.adminrights.GetMyDefaultAdministratorRights;
+import org.telegram.telegrambots.meta.api.methods.adminrights.SetMyDefaultAdministratorRights;
+import org.telegram.telegrambots.meta.api.methods.commands.DeleteMyCommands;
+import org.telegram.telegrambots.meta.api.methods.commands.GetMyCommands;
+import org.telegram.telegrambots.meta.api.methods.commands.SetMyCommands;
+import org.telegram.telegrambots.meta.api.methods.description.GetMyDescription;
+import org.telegram.telegrambots.meta.api.methods.description.GetMyShortDescription;
+import org.telegram.telegrambots.meta.api.methods.description.SetMyDescription;
+import org.telegram.telegrambots.meta.api.methods.description.SetMyShortDescription;
+import org.telegram.telegrambots.meta.api.methods.forum.DeleteForumTopic;
+import org.telegram.telegrambots.meta.api.methods.forum.EditForumTopic;
+import org.telegram.telegrambots.meta.api.methods.forum.EditGeneralForumTopic;
+import org.telegram.telegrambots.meta.api.methods.forum.GetForumTopicIconStickers;
+import org.telegram.telegrambots.meta.api.methods.games.GetGameHighScores;
+import org.telegram.telegrambots.meta.api.methods.games.SetGameScore;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.DeleteChatPhoto;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.DeleteChatStickerSet;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.EditChatInviteLink;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.GetChat;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.GetChatAdministrators;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.GetChatMember;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.GetChatMemberCount;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.SetChatAdministratorCustomTitle;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.SetChatDescription;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.SetChatPermissions;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.SetChatPhoto;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.SetChatStickerSet;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.SetChatTitle;
+import org.telegram.telegrambots.meta.api.methods.menubutton.GetChatMenuButton;
+import org.telegram.telegrambots.meta.api.methods.menubutton.SetChatMenuButton;
+import org.telegram.telegrambots.meta.api.methods.stickers.DeleteStickerFromSet;
+import org.telegram.telegrambots.meta.api.methods.stickers.GetCustomEmojiStickers;
+import org.telegram.telegrambots.meta.api.methods.stickers.GetStickerSet;
+import org.telegram.telegrambots.meta.api.methods.stickers.SetCustomEmojiStickerSetThumbnail;
+import org.telegram.telegrambots.meta.api.methods.stickers.SetStickerPositionInSet;
+import org.telegram.telegrambots.meta.api.methods.stickers.SetStickerSetThumb;
+import org.telegram.telegrambots.meta.api.methods.updates.DeleteWebhook;
+import org.telegram.telegrambots.meta.api.methods.updates.GetWebhookInfo;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.DeleteMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageCaption;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageLiveLocation;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageMedia;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageReplyMarkup;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiValidationException;
+import org.telegram.telegrambots.util.ChatIds;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Decides when failed requests are sent again.
+ *
+ * <ul>
+ *     <li>Requests rejected with retry_after (flood control) were not processed, so any method is sent again
+ *     once that time has passed, as long as it is not longer than {@link #getMaxRetryAfter()}.</li>
+ *     <li>Requests to a group that was migrated to a supergroup (migrate_to_chat_id) are sent again right away
+ *     to the new chat. The migration is remembered and later requests to the old chat go to the new one.</li>
+ *     <li>Network errors and server errors are only retried for idempotent methods, since Telegram may have
+ *     processed the request already. By default these are the get, set, delete and edit methods of the api
+ *     other than getUpdates, not subclasses of them.</li>
+ * </ul>
+ * Requests whose body can't be sent twice, like uploads from an InputStream, are never retried.
+ */
+@Slf4j
+public class RetryPolicy {
+    private static final Set<Class<?>> DEFAULT_IDEMPOTENT_METHODS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            GetFile.class,
+            GetMe.class,
+            GetUserProfilePhotos.class,
+            SetPassportDataErrors.class,
+            GetMyDefaultAdministratorRights.class,
+            SetMyDefaultAdministratorRights.class,
+            DeleteMyCommands.class,
+            GetMyCommands.class,
+            SetMyCommands.class,
+            GetMyDescription.class,
+            GetMyShortDescription.class,
+            SetMyDescription.class,
+            SetMyShortDescription.class,
+            DeleteForumTopic.class,
+            EditForumTopic.class,
+            EditGeneralForumTopic.class,
+            GetForumTopicIconStickers.class,
+            GetGameHighScores.class,
+            SetGameScore.class,
+            DeleteChatPhoto.class,
+            DeleteChatStickerSet.class,
+            EditChatInviteLink.class,
+            GetChat.class,
+            GetChatAdministrators.class,
+            GetChatMember.class,
+            GetChatMemberCount.class,
+            SetChatAdministratorCustomTitle.class,
+            SetChatDescription.class,
+            SetChatPermissions.class,
+            SetChatPhoto.class,
+            SetChatStickerSet.class,
+            SetChatTitle.class,
+            GetChatMenuButton.class,
+            SetChatMenuButton.class,
+            DeleteStickerFromSet.class,
+            GetCustomEmojiStickers.class,
+            GetStickerSet.class,
+            SetCustomEmojiStickerSetThumbnail.class,
+            SetStickerPositionInSet.class,
+            SetStickerSetThumb.class,
+            DeleteWebhook.class,
+            GetWebhookInfo.class,
+            SetWebhook.class,
+            DeleteMessage.class,
+            EditMessageCaption.class,
+            EditMessageLiveLocation.class,
+            EditMessageMedia.class,
+            EditMessageReplyMarkup.class,
+            EditMessageText.class)));
+    private static final Predicate<PartialBotApiMethod<?>> DEFAULT_IDEMPOTENT = method -> DEFAULT_IDEMPOTENT_METHODS.contains(method.getClass());
+
+    private final ConcurrentMap<String, String> migratedChats = new ConcurrentHashMap<>();
+    private final AtomicLong retryAfterRetries = new AtomicLong();
+    private final AtomicLong migrationRetries = new AtomicLong();
+    private final AtomicLong errorRetries = new AtomicLong();
+    private final AtomicLong exhaustedRetries = new AtomicLong();
+
+    private int maxAttempts = 3;
+    private int maxRetryAfter = 60;
+    private long errorBackOff = 500;
+    private Predicate<PartialBotApiMethod<?>> idempotent = DEFAULT_IDEMPOTENT;
+    private Sleeper sleeper = TimeUnit.MILLISECONDS::sleep;
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param maxAttempts Max number of times a request is sent, including the first one (default 3)
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public int getMaxRetryAfter() {
+        return maxRetryAfter;
+    }
+
+    /**
+     * @param maxRetryAfter Max retry_after in seconds to wait for, longer ones fail right away (default 60)
+     */
+    public void setMaxRetryAfter(int maxRetryAfter) {
+        this.maxRetryAfter = maxRetryAfter;
+    }
+
+    public long getErrorBackOff() {
+        return errorBackOff;
+    }
+
+    /**
+     * @param errorBackOff Milliseconds to wait before retrying after a network or server error,
+     *                     doubled on every attempt (default 500)
+     */
+    public void setErrorBackOff(long errorBackOff) {
+        this.errorBackOff = errorBackOff;
+    }
+
+    /**
+     * @param idempotent Methods that can be sent twice without side effects
+     */
+    public void setIdempotent(Predicate<PartialBotApiMethod<?>> idempotent) {
+        this.idempotent = idempotent;
+    }
+
+    /**
+     * @param sleeper Waits for the delay of retries of requests executed synchronously (default Thread.sleep)
+     */
+    public void setSleeper(Sleeper sleeper) {
+        this.sleeper = sleeper;
+    }
+
+    /**
+     * Wait for the delay of a retry in the current thread
+     * @param millis Delay returned by {@link #getRetryDelay(PartialBotApiMethod, TelegramApiException, int, boolean)}
+     */
+    public void sleep(long millis) throws InterruptedException {
+        sleeper.sleep(millis);
+    }
+
+    /**
+     * @return Number of requests sent again after a retry_after
+     */
+    public long getRetryAfterRetries() {
+        return retryAfterRetries.get();
+    }
+
+    /**
+     * @return Number of requests sent again to a migrated chat
+     */
+    public long getMigrationRetries() {
+        return migrationRetries.get();
+    }
+
+    /**
+     * @return Number of requests sent again after a network or server error
+     */
+    public long getErrorRetries() {
+        return errorRetries.get();
+    }
+
+    /**
+     * @return Number of requests that failed after using all their attempts
+     */
+    public long getExhaustedRetries() {
+        return exhaustedRetries.get();
+    }
+
+    /**
+     * Send the method to the new chat if its chat was migrated. The method itself is left as it is.
+     * @return Copy of the method with the chat id of the new chat, or the method if its chat was not migrated
+     */
+    public <M extends PartialBotApiMethod<?>> M retarget(M method) {
+        if (migratedChats.isEmpty() || method == null) {
+            return method;
+        }
+        String chatId = ChatIds.get(method);
+        String migratedChatId = chatId == null ? null : migratedChats.get(chatId);
+        if (migratedChatId == null) {
+            return method;
+        }
+        M copy = ChatIds.withChatId(method, migratedChatId);
+        return copy != null ? copy : method;
+    }
+
+    /**
+     * @param method Method that failed
+     * @param error Error of the attempt
+     * @param attempt Number of the attempt that failed, starting at 1
+     * @param repeatable False if the body of the request can't be sent again
+     * @return Milliseconds to wait before the next attempt, -1 to fail with the error
+     */
+    public long getRetryDelay(PartialBotApiMethod<?> method, TelegramApiException error, int attempt, boolean repeatable) {
+        if (method == null || error instanceof TelegramApiValidationException || !repeatable) {
+            return -1;
+        }
+        ResponseParameters parameters = error instanceof TelegramApiRequestException
+                ? ((TelegramApiRequestException) error).getParameters() : null;
+        String chatId = null;
+        String migratedChatId = null;
+        AtomicLong retries;
+        long delay;
+        if (parameters != null && parameters.getRetryAfter() != null) {
+            if (parameters.getRetryAfter() > maxRetryAfter) {
+                return -1;
+            }
+            retries = retryAfterRetries;
+            delay = TimeUnit.SECONDS.toMillis(parameters.getRetryAfter());
+        } else if (parameters != null && parameters.getMigrateToChatId() != null) {
+            chatId = ChatIds.get(method);
+            if (chatId == null) {
+                return -1;
+            }
+            migratedChatId = parameters.getMigrateToChatId().toString();
+            retries = migrationRetries;
+            delay = 0;
+        } else if (isTransient(error) && idempotent.test(method)) {
+            retries = errorRetries;
+            delay = errorBackOff << Math.min(attempt - 1, 16);
+        } else {
+            return -1;
+        }
+
+        if (attempt >= maxAttempts) {
+            exhaustedRetries.incrementAndGet();
+            return -1;
+        }
+        if (migratedChatId != null) {
+            if (!ChatIds.isSettable(method)) {
+                return -1;
+            }
+            // The next attempt is retargeted to it
+            migratedChats.put(chatId, migratedChatId);
+        }
+        retries.incrementAndGet();
+        log.debug("Retrying {} in {}ms after attempt {} failed: {}", method.getMethod(), delay, attempt, error.getMessage());
+        return delay;
+    }
+
+    private static boolean isTransient(TelegramApiException error) {
+        if (error instanceof TelegramApiRequestException) {
+            Integer errorCode = ((TelegramApiRequestException) error).getErrorCode();
+            return errorCode != null && errorCode >= 500;
+        }
+        // Entities that serialize while they are sent would fail the same way again
+        return error.getCause() instanceof IOException && !(error.getCause() instanceof JsonProcessingException);
+    }
+
+    /**
+     * Waits for the delay of a retry
+     */
+    @FunctionalInterface
+    public interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+}
@@ -0,0 +1,145 @@
+package org.telegram.telegrambots.facilities.transport;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * Transport on Apache HttpClient, the default one. Async requests are supported when a non-blocking client is given.
+ */
+public class ApacheTransport implements TelegramTransport {
+    private final HttpClient httpClient;
+    private final CloseableHttpAsyncClient asyncHttpClient;
+    private final RequestConfig requestConfig;
+    private final HttpContext httpContext;
+
+    public ApacheTransport(HttpClient httpClient) {
+        this(httpClient, null, null, null);
+    }
+
+    /**
+     * @param httpClient Client for blocking requests
+     * @param asyncHttpClient Non-blocking client for async requests, started on the first one. Null to not support them.
+     * @param requestConfig Config of the requests, null for the one of the client
+     * @param httpContext Context shared by the requests, i.e. with the proxy settings
+     */
+    public ApacheTransport(HttpClient httpClient, CloseableHttpAsyncClient asyncHttpClient,
+                           RequestConfig requestConfig, HttpContext httpContext) {
+        this.httpClient = httpClient;
+        this.asyncHttpClient = asyncHttpClient;
+        this.requestConfig = requestConfig;
+        this.httpContext = httpContext;
+    }
+
+    @Override
+    public TransportResponse post(String url, HttpEntity body) throws IOException {
+        return toTransportResponse(httpClient.execute(createPost(url, body), httpContext));
+    }
+
+    @Override
+    public TransportResponse post(String url, HttpEntity body, CompletableFuture<?> cancellation) throws IOException {
+        HttpPost httppost = createPost(url, body);
+        // Aborting the request closes its connection, which makes the blocked thread fail and returns it to the pool
+        cancellation.whenComplete((result, error) -> {
+            if (cancellation.isCancelled()) {
+                httppost.abort();
+            }
+        });
+        return toTransportResponse(httpClient.execute(httppost, httpContext));
+    }
+
+    @Override
+    public TransportResponse get(String url) throws IOException {
+        return toTransportResponse(httpClient.execute(new HttpGet(url)));
+    }
+
+    @Override
+    public boolean supportsAsync() {
+        return asyncHttpClient != null;
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> postAsync(String url, HttpEntity body) {
+        if (asyncHttpClient == null) {
+            return TelegramTransport.super.postAsync(url, body);
+        }
+        if (!asyncHttpClient.isRunning()) {
+            asyncHttpClient.start();
+        }
+        CompletableFuture<TransportResponse> future = new CompletableFuture<>();
+        // Requests run concurrently, each one gets its own context on top of the shared one
+        HttpContext context = httpContext == null ? null : new BasicHttpContext(httpContext);
+        Future<HttpResponse> exchange = asyncHttpClient.execute(createPost(url, body), context, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    future.complete(toTransportResponse(response));
+                } catch (IOException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        });
+        // Cancelling the exchange aborts the request and releases its connection
+        future.whenComplete((response, error) -> {
+            if (future.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void closeAsync() throws IOException {
+        if (asyncHttpClient != null) {
+            asyncHttpClient.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (httpClient instanceof Closeable) {
+            ((Closeable) httpClient).close();
+        }
+        closeAsync();
+    }
+
+    private HttpPost createPost(String url, HttpEntity body) {
+        HttpPost httppost = new HttpPost(url);
+        if (requestConfig != null) {
+            httppost.setConfig(requestConfig);
+        }
+        httppost.setEntity(body);
+        return httppost;
+    }
+
+    private static TransportResponse toTransportResponse(HttpResponse response) throws IOException {
+        HttpEntity entity = response.getEntity();
+        // Closing the content of the entity releases the connection
+        InputStream body = entity == null ? new ByteArrayInputStream(new byte[0]) : entity.getContent();
+        return new TransportResponse(response.getStatusLine().getStatusCode(), body);
+    }
+}
@@ -0,0 +1,151 @@
+package org.telegram.telegrambots.facilities.transport;
+
+import org.apache.http.HttpEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a body that can only be written, for clients that read the bodies they send.
+ * The body is written in another thread a few chunks ahead of the reader, so it is never held in memory as a whole.
+ * Errors writing it are thrown by the reader, and closing the reader stops the writer.
+ */
+final class BodyPipe extends InputStream {
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final int MAX_CHUNKS = 4;
+    private static final byte[] END = new byte[0];
+    private static final ExecutorService WRITERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "Telegram Body Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(MAX_CHUNKS);
+    private volatile boolean closed;
+    private volatile IOException error;
+    private byte[] chunk;
+    private int position;
+
+    private BodyPipe() {
+    }
+
+    /**
+     * @return Stream with the body, written in another thread while it is read
+     */
+    static InputStream open(HttpEntity body) {
+        BodyPipe pipe = new BodyPipe();
+        WRITERS.execute(() -> pipe.write(body));
+        return pipe;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (chunk == null || (position == chunk.length && chunk != END)) {
+            try {
+                chunk = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading the body");
+            }
+            position = 0;
+        }
+        if (chunk == END) {
+            if (error != null) {
+                throw error;
+            }
+            return -1;
+        }
+        int read = Math.min(length, chunk.length - position);
+        System.arraycopy(chunk, position, buffer, offset, read);
+        position += read;
+        return read;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        chunks.clear();
+    }
+
+    private void write(HttpEntity body) {
+        try (OutputStream out = new ChunkOutputStream()) {
+            body.writeTo(out);
+        } catch (IOException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new IOException("Unable to write the body", e);
+        }
+        try {
+            put(END);
+        } catch (IOException e) {
+            // Closed by the reader
+        }
+    }
+
+    private void put(byte[] chunk) throws IOException {
+        try {
+            while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    throw new IOException("The body is not read anymore");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the body");
+        }
+    }
+
+    private class ChunkOutputStream extends OutputStream {
+        private byte[] buffer = new byte[CHUNK_SIZE];
+        private int count;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (closed) {
+                    throw new IOException("The body is not read anymore");
+                }
+                int copied = Math.min(length, buffer.length - count);
+                System.arraycopy(bytes, offset, buffer, count, copied);
+                count += copied;
+                offset += copied;
+                length -= copied;
+                if (count == buffer.length) {
+                    put(buffer);
+                    buffer = new byte[CHUNK_SIZE];
+                    count = 0;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (count > 0) {
+                put(Arrays.copyOf(buffer, count));
+                count = 0;
+            }
+        }
+    }
+}
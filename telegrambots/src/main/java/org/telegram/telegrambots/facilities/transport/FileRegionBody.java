@@ -0,0 +1,119 @@
+package org.telegram.telegrambots.facilities.transport;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Multipart body of a region of a file channel or of a buffer, i.e. a memory-mapped file.
+ *
+ * Regions are written with {@link FileChannel#transferTo}, which lets the kernel copy the file straight to
+ * the target when it is a file or socket channel, and reads the file without going through a FileInputStream
+ * otherwise. Neither the position of the channel nor the one of the buffer is changed,
+ * so the same file can be sent to many chats at the same time and every attempt sends all of it.
+ */
+public class FileRegionBody extends AbstractContentBody {
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final long position;
+    private final long size;
+    private final ByteBuffer buffer;
+    private final String filename;
+
+    /**
+     * @param channel Channel of the file
+     * @param position Position of the region in the file
+     * @param size Size of the region
+     */
+    public FileRegionBody(FileChannel channel, long position, long size, ContentType contentType, String filename) {
+        super(contentType);
+        this.channel = channel;
+        this.position = position;
+        this.size = size;
+        this.buffer = null;
+        this.filename = filename;
+    }
+
+    /**
+     * @param buffer Buffer with the file in its remaining bytes
+     */
+    public FileRegionBody(ByteBuffer buffer, ContentType contentType, String filename) {
+        super(contentType);
+        this.channel = null;
+        this.position = 0;
+        this.size = buffer.remaining();
+        this.buffer = buffer;
+        this.filename = filename;
+    }
+
+    @Override
+    public String getFilename() {
+        return filename;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        if (channel == null) {
+            writeBuffer(out);
+        } else {
+            writeTo(Channels.newChannel(out));
+        }
+    }
+
+    /**
+     * Write the body straight to a channel, without copying it through the heap when the target
+     * is a file or socket channel
+     */
+    public void writeTo(WritableByteChannel target) throws IOException {
+        if (channel == null) {
+            ByteBuffer source = buffer.duplicate();
+            while (source.hasRemaining()) {
+                target.write(source);
+            }
+            return;
+        }
+        long written = 0;
+        while (written < size) {
+            long transferred = channel.transferTo(position + written, size - written, target);
+            if (transferred <= 0) {
+                if (position + written >= channel.size()) {
+                    throw new IOException("File region ends after the end of " + filename);
+                }
+                continue;
+            }
+            written += transferred;
+        }
+    }
+
+    @Override
+    public String getTransferEncoding() {
+        return MIME.ENC_BINARY;
+    }
+
+    @Override
+    public long getContentLength() {
+        return size;
+    }
+
+    private void writeBuffer(OutputStream out) throws IOException {
+        ByteBuffer source = buffer.duplicate();
+        if (source.hasArray()) {
+            out.write(source.array(), source.arrayOffset() + source.position(), source.remaining());
+            return;
+        }
+        byte[] chunk = new byte[(int) Math.min(CHUNK_SIZE, source.remaining())];
+        while (source.hasRemaining()) {
+            int length = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+    }
+}
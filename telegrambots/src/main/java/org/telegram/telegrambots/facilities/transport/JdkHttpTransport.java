@@ -0,0 +1,223 @@
+package org.telegram.telegrambots.facilities.transport;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import static org.telegram.telegrambots.Constants.SOCKET_TIMEOUT;
+
+/**
+ * Transport on the java.net.http client of JDK 11+, which multiplexes concurrent requests over
+ * a few HTTP/2 connections. Async requests don't block any thread.
+ *
+ * The client is reached through method handles looked up once, so the library still runs on Java 8, where creating
+ * this transport throws UnsupportedOperationException. Socks proxies are not supported either.
+ * JSON bodies are read from memory, other bodies are streamed to the client while they are written.
+ */
+public class JdkHttpTransport implements TelegramTransport {
+    private static final MethodHandle NEW_CLIENT_BUILDER = findMethod("java.net.http.HttpClient", "newBuilder");
+    private static final MethodHandle CLIENT_VERSION = findMethod("java.net.http.HttpClient$Builder", "version", "java.net.http.HttpClient$Version");
+    private static final MethodHandle CLIENT_CONNECT_TIMEOUT = findMethod("java.net.http.HttpClient$Builder", "connectTimeout", Duration.class);
+    private static final MethodHandle CLIENT_PROXY = findMethod("java.net.http.HttpClient$Builder", "proxy", ProxySelector.class);
+    private static final MethodHandle BUILD_CLIENT = findMethod("java.net.http.HttpClient$Builder", "build");
+    private static final MethodHandle PROXY_SELECTOR_OF = findMethod(ProxySelector.class.getName(), "of", InetSocketAddress.class);
+    private static final MethodHandle NEW_REQUEST_BUILDER = findMethod("java.net.http.HttpRequest", "newBuilder", URI.class);
+    private static final MethodHandle REQUEST_HEADER = findMethod("java.net.http.HttpRequest$Builder", "header", String.class, String.class);
+    private static final MethodHandle REQUEST_TIMEOUT = findMethod("java.net.http.HttpRequest$Builder", "timeout", Duration.class);
+    private static final MethodHandle REQUEST_POST = findMethod("java.net.http.HttpRequest$Builder", "POST", "java.net.http.HttpRequest$BodyPublisher");
+    private static final MethodHandle REQUEST_GET = findMethod("java.net.http.HttpRequest$Builder", "GET");
+    private static final MethodHandle BUILD_REQUEST = findMethod("java.net.http.HttpRequest$Builder", "build");
+    private static final MethodHandle OF_INPUT_STREAM_PUBLISHER = findMethod("java.net.http.HttpRequest$BodyPublishers", "ofInputStream", Supplier.class);
+    private static final MethodHandle SEND = findMethod("java.net.http.HttpClient", "send", "java.net.http.HttpRequest", "java.net.http.HttpResponse$BodyHandler");
+    private static final MethodHandle SEND_ASYNC = findMethod("java.net.http.HttpClient", "sendAsync", "java.net.http.HttpRequest", "java.net.http.HttpResponse$BodyHandler");
+    private static final MethodHandle STATUS_CODE = findMethod("java.net.http.HttpResponse", "statusCode");
+    private static final MethodHandle RESPONSE_BODY = findMethod("java.net.http.HttpResponse", "body");
+    private static final Object HTTP_2 = findConstant("java.net.http.HttpClient$Version", "HTTP_2");
+    // Stateless, shared by all the requests
+    private static final Object OF_INPUT_STREAM_HANDLER = invokeStatic(findMethod("java.net.http.HttpResponse$BodyHandlers", "ofInputStream"));
+
+    private final Object httpClient;
+    private final Duration requestTimeout;
+
+    /**
+     * @throws UnsupportedOperationException If java.net.http is not available or the options use a socks proxy
+     */
+    public JdkHttpTransport(DefaultBotOptions options) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("java.net.http is not available, it requires Java 11 or newer");
+        }
+        if (options.getProxyType() == DefaultBotOptions.ProxyType.SOCKS4 || options.getProxyType() == DefaultBotOptions.ProxyType.SOCKS5) {
+            throw new UnsupportedOperationException("Socks proxies are not supported by java.net.http");
+        }
+        RequestConfig requestConfig = options.getRequestConfig();
+        int connectTimeout = requestConfig != null && requestConfig.getConnectTimeout() > 0 ? requestConfig.getConnectTimeout() : SOCKET_TIMEOUT;
+        int socketTimeout = requestConfig != null && requestConfig.getSocketTimeout() > 0 ? requestConfig.getSocketTimeout() : SOCKET_TIMEOUT;
+        this.requestTimeout = Duration.ofMillis(socketTimeout);
+        try {
+            Object builder = (Object) NEW_CLIENT_BUILDER.invokeExact();
+            builder = (Object) CLIENT_VERSION.invokeExact(builder, HTTP_2);
+            builder = (Object) CLIENT_CONNECT_TIMEOUT.invokeExact(builder, (Object) Duration.ofMillis(connectTimeout));
+            if (options.getProxyType() == DefaultBotOptions.ProxyType.HTTP) {
+                Object proxySelector = (Object) PROXY_SELECTOR_OF.invokeExact((Object) new InetSocketAddress(options.getProxyHost(), options.getProxyPort()));
+                builder = (Object) CLIENT_PROXY.invokeExact(builder, proxySelector);
+            }
+            this.httpClient = (Object) BUILD_CLIENT.invokeExact(builder);
+        } catch (Throwable e) {
+            throw new UnsupportedOperationException("Unable to create the java.net.http client", e);
+        }
+    }
+
+    /**
+     * @return True if the running JVM has java.net.http
+     */
+    public static boolean isSupported() {
+        return HTTP_2 != null && NEW_CLIENT_BUILDER != null && SEND_ASYNC != null && PROXY_SELECTOR_OF != null
+                && OF_INPUT_STREAM_PUBLISHER != null && OF_INPUT_STREAM_HANDLER != null;
+    }
+
+    @Override
+    public TransportResponse post(String url, HttpEntity body) throws IOException {
+        return send(createPost(url, body));
+    }
+
+    @Override
+    public TransportResponse get(String url) throws IOException {
+        Object request;
+        try {
+            Object builder = (Object) NEW_REQUEST_BUILDER.invokeExact((Object) URI.create(url));
+            builder = (Object) REQUEST_TIMEOUT.invokeExact(builder, (Object) requestTimeout);
+            request = (Object) BUILD_REQUEST.invokeExact((Object) REQUEST_GET.invokeExact(builder));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IOException("Unable to create the request", e);
+        }
+        return send(request);
+    }
+
+    @Override
+    public boolean supportsAsync() {
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> postAsync(String url, HttpEntity body) {
+        CompletableFuture<?> exchange;
+        try {
+            exchange = (CompletableFuture<?>) (Object) SEND_ASYNC.invokeExact(httpClient, createPost(url, body), OF_INPUT_STREAM_HANDLER);
+        } catch (Throwable e) {
+            CompletableFuture<TransportResponse> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e instanceof IOException ? e : new IOException("Unable to send the request", e));
+            return failed;
+        }
+        CompletableFuture<TransportResponse> future = exchange.thenApply(JdkHttpTransport::toTransportResponse);
+        // Cancelling a dependent future doesn't reach the exchange, which is aborted on JDK 16+ when cancelled itself
+        future.whenComplete((response, error) -> {
+            if (future.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void close() {
+        // The client has no close method before JDK 21, its connections are released once it is unreachable
+    }
+
+    private Object createPost(String url, HttpEntity body) throws IOException {
+        // Read by the client when it sends the request, again if it has to send it twice
+        Supplier<InputStream> content = () -> {
+            if (body instanceof JsonEntity) {
+                return ((JsonEntity) body).getContent();
+            }
+            return BodyPipe.open(body);
+        };
+        try {
+            Object builder = (Object) NEW_REQUEST_BUILDER.invokeExact((Object) URI.create(url));
+            builder = (Object) REQUEST_TIMEOUT.invokeExact(builder, (Object) requestTimeout);
+            Header contentType = body.getContentType();
+            if (contentType != null) {
+                builder = (Object) REQUEST_HEADER.invokeExact(builder, (Object) contentType.getName(), (Object) contentType.getValue());
+            }
+            builder = (Object) REQUEST_POST.invokeExact(builder, (Object) OF_INPUT_STREAM_PUBLISHER.invokeExact((Object) content));
+            return (Object) BUILD_REQUEST.invokeExact(builder);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IOException("Unable to create the request", e);
+        }
+    }
+
+    private TransportResponse send(Object request) throws IOException {
+        Object response;
+        try {
+            response = (Object) SEND.invokeExact(httpClient, request, OF_INPUT_STREAM_HANDLER);
+        } catch (IOException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException("Interrupted while waiting for the response");
+            interrupted.initCause(e);
+            throw interrupted;
+        } catch (Throwable e) {
+            throw new IOException("Unable to send the request", e);
+        }
+        return toTransportResponse(response);
+    }
+
+    private static TransportResponse toTransportResponse(Object response) {
+        try {
+            return new TransportResponse((Integer) (Object) STATUS_CODE.invokeExact(response), (InputStream) (Object) RESPONSE_BODY.invokeExact(response));
+        } catch (Throwable e) {
+            throw new CompletionException(new IOException("Unable to read the response", e));
+        }
+    }
+
+    /**
+     * @return Handle of the public method taking and returning Objects, null if it doesn't exist
+     */
+    private static MethodHandle findMethod(String className, String name, Object... parameterTypes) {
+        try {
+            Class<?>[] types = new Class<?>[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                types[i] = parameterTypes[i] instanceof Class ? (Class<?>) parameterTypes[i] : Class.forName((String) parameterTypes[i]);
+            }
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(Class.forName(className).getMethod(name, types));
+            return handle.asType(MethodType.genericMethodType(handle.type().parameterCount()));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Object invokeStatic(MethodHandle handle) {
+        try {
+            return handle == null ? null : (Object) handle.invokeExact();
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    private static Object findConstant(String className, String name) {
+        try {
+            return Class.forName(className).getField(name).get(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
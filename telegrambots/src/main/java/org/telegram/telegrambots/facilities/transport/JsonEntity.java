@@ -0,0 +1,65 @@
+package org.telegram.telegrambots.facilities.transport;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Body with the JSON of an object, serialized when the entity is created so its length is known and the request
+ * isn't sent chunked. Writers are created once per class, Jackson serializes into its own recycled buffers and
+ * the result is copied once into the body.
+ *
+ * Serialization errors are thrown by the constructor, before the request is sent, so they are never taken for
+ * errors of the connection.
+ */
+public class JsonEntity extends AbstractHttpEntity {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ClassValue<ObjectWriter> WRITERS = new ClassValue<ObjectWriter>() {
+        @Override
+        protected ObjectWriter computeValue(Class<?> type) {
+            return OBJECT_MAPPER.writerFor(type);
+        }
+    };
+
+    private final byte[] content;
+
+    /**
+     * @throws JsonProcessingException If the object can't be serialized
+     */
+    public JsonEntity(Object value) throws JsonProcessingException {
+        this.content = WRITERS.get(value.getClass()).writeValueAsBytes(value);
+        setContentType(ContentType.APPLICATION_JSON.toString());
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return content.length;
+    }
+
+    @Override
+    public InputStream getContent() {
+        return new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        outStream.write(content);
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+}
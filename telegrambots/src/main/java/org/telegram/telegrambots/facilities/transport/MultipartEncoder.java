@@ -0,0 +1,399 @@
+package org.telegram.telegrambots.facilities.transport;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.SetChatPhoto;
+import org.telegram.telegrambots.meta.api.methods.stickers.AddStickerToSet;
+import org.telegram.telegrambots.meta.api.methods.stickers.CreateNewStickerSet;
+import org.telegram.telegrambots.meta.api.methods.send.SendMediaGroup;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageMedia;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.media.InputMedia;
+import org.telegram.telegrambots.meta.api.objects.media.InputMediaAnimation;
+import org.telegram.telegrambots.meta.api.objects.media.InputMediaAudio;
+import org.telegram.telegrambots.meta.api.objects.media.InputMediaDocument;
+import org.telegram.telegrambots.meta.api.objects.media.InputMediaVideo;
+import org.telegram.telegrambots.meta.api.objects.stickers.InputSticker;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Encodes api methods that upload files as multipart/form-data.
+ *
+ * The parts of every method class are found once from its fields: the name of a part is the @JsonProperty of its field,
+ * or the field name in snake case, and fields are only sent if the class declares that name in one of its *_FIELD constants.
+ * Afterwards, fields are read with method handles, so encoding a method is a single pass over its parts without reflection.
+ * Parts whose field is null are not sent.
+ * New files are added as binary parts named after the file and referenced with attach:// from their field,
+ * media and stickers are added as JSON with their files as binary parts, and other objects are added as JSON.
+ */
+public final class MultipartEncoder {
+    private static final ContentType TEXT_PLAIN_CONTENT_TYPE = ContentType.create("text/plain", StandardCharsets.UTF_8);
+    private static final ObjectWriter JSON_WRITER = new ObjectMapper().writer();
+    private static final PropertyNamingStrategies.NamingBase SNAKE_CASE = new PropertyNamingStrategies.SnakeCaseStrategy();
+    private static final String CAPTION_FIELD = "caption";
+    private static final String PARSEMODE_FIELD = "parse_mode";
+    /**
+     * Methods with files that are built elsewhere
+     */
+    private static final Set<Class<?>> OWN_BUILDERS = new HashSet<>(Arrays.asList(SetChatPhoto.class, SetWebhook.class));
+    /**
+     * Names of the parts whose field isn't named after them
+     */
+    private static final Map<Class<?>, Map<String, String>> NAMES = new HashMap<>();
+    /**
+     * Conditions of the parts that are only sent along with, or without, other fields
+     */
+    private static final Map<Class<?>, Map<String, Predicate<Object>>> CONDITIONS = new HashMap<>();
+    private static final ClassValue<Part[]> PARTS = new ClassValue<Part[]>() {
+        @Override
+        protected Part[] computeValue(Class<?> type) {
+            return createParts(type);
+        }
+    };
+
+    static {
+        name(SendMediaGroup.class, "medias", SendMediaGroup.MEDIA_FIELD);
+        condition(CreateNewStickerSet.class, CreateNewStickerSet.STICKERS_FIELD, m -> m.getStickers() != null && !m.getStickers().isEmpty());
+        // Only the first of the deprecated sticker files is sent, and none of them along with a sticker
+        condition(CreateNewStickerSet.class, CreateNewStickerSet.TGSSTICKER_FIELD, m -> m.getPngSticker() == null);
+        condition(CreateNewStickerSet.class, CreateNewStickerSet.WEBMSTICKER_FIELD, m -> m.getPngSticker() == null && m.getTgsSticker() == null);
+        condition(AddStickerToSet.class, AddStickerToSet.EMOJIS_FIELD, m -> m.getSticker() == null);
+        condition(AddStickerToSet.class, AddStickerToSet.MASKPOSITION_FIELD, m -> m.getSticker() == null);
+        condition(AddStickerToSet.class, AddStickerToSet.PNGSTICKER_FIELD, m -> m.getSticker() == null);
+        condition(AddStickerToSet.class, AddStickerToSet.TGSSTICKER_FIELD, m -> m.getSticker() == null && m.getPngSticker() == null);
+        condition(AddStickerToSet.class, AddStickerToSet.WEBMSTICKER_FIELD,
+                m -> m.getSticker() == null && m.getPngSticker() == null && m.getTgsSticker() == null);
+        condition(EditMessageMedia.class, EditMessageMedia.CHATID_FIELD, m -> m.getInlineMessageId() == null);
+        condition(EditMessageMedia.class, EditMessageMedia.MESSAGEID_FIELD, m -> m.getInlineMessageId() == null);
+    }
+
+    private MultipartEncoder() {
+    }
+
+    /**
+     * @return True if the method is an api method that uploads files, other than SetChatPhoto and SetWebhook
+     */
+    public static boolean canEncode(Object method) {
+        return PARTS.get(method.getClass()) != null;
+    }
+
+    /**
+     * @param method Api method that uploads files
+     * @return Multipart entity with the non-null parts of the method
+     * @throws IOException If a field can't be serialized
+     * @throws IllegalArgumentException If the method doesn't upload files
+     */
+    public static HttpEntity encode(Object method) throws IOException {
+        Part[] parts = PARTS.get(method.getClass());
+        if (parts == null) {
+            throw new IllegalArgumentException("Method " + method.getClass().getName() + " is not sent as multipart");
+        }
+        MultipartEntityBuilder builder = MultipartEntityBuilder.create();
+        builder.setLaxMode();
+        builder.setCharset(StandardCharsets.UTF_8);
+        for (Part part : parts) {
+            part.add(builder, method);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Add the file as a binary part if it is new, and its field referencing it
+     * @param fileField Name of the field, null to only add the file
+     */
+    public static void addInputFile(MultipartEntityBuilder builder, InputFile file, String fileField) {
+        if (file.isNew()) {
+            if (file.getNewMediaFile() != null) {
+                builder.addBinaryBody(file.getMediaName(), file.getNewMediaFile(), ContentType.APPLICATION_OCTET_STREAM, file.getMediaName());
+            } else if (file.getNewMediaStream() != null) {
+                builder.addBinaryBody(file.getMediaName(), file.getNewMediaStream(), ContentType.APPLICATION_OCTET_STREAM, file.getMediaName());
+            } else {
+                addFileRegion(builder, file.getMediaName(), file);
+            }
+        }
+
+        if (fileField != null) {
+            builder.addTextBody(fileField, file.getAttachName(), TEXT_PLAIN_CONTENT_TYPE);
+        }
+    }
+
+    /**
+     * Add a file backed by a file channel region or a buffer as a binary part
+     * @param name Name of the part
+     */
+    public static void addFileRegion(MultipartEntityBuilder builder, String name, InputFile file) {
+        if (file.getNewMediaChannel() != null) {
+            builder.addPart(name, new FileRegionBody(file.getNewMediaChannel(), file.getNewMediaPosition(), file.getNewMediaSize(),
+                    ContentType.APPLICATION_OCTET_STREAM, file.getMediaName()));
+        } else if (file.getNewMediaBuffer() != null) {
+            builder.addPart(name, new FileRegionBody(file.getNewMediaBuffer(), ContentType.APPLICATION_OCTET_STREAM, file.getMediaName()));
+        }
+    }
+
+    private static void addInputMedia(MultipartEntityBuilder builder, InputMedia media) {
+        if (media.isNewMedia()) {
+            if (media.getNewMediaFile() != null) {
+                builder.addBinaryBody(media.getMediaName(), media.getNewMediaFile(), ContentType.APPLICATION_OCTET_STREAM, media.getMediaName());
+            } else if (media.getNewMediaStream() != null) {
+                builder.addBinaryBody(media.getMediaName(), media.getNewMediaStream(), ContentType.APPLICATION_OCTET_STREAM, media.getMediaName());
+            }
+        }
+
+        InputFile thumbnail = null;
+        if (media instanceof InputMediaAudio) {
+            thumbnail = ((InputMediaAudio) media).getThumbnail();
+        } else if (media instanceof InputMediaDocument) {
+            thumbnail = ((InputMediaDocument) media).getThumbnail();
+        } else if (media instanceof InputMediaVideo) {
+            thumbnail = ((InputMediaVideo) media).getThumbnail();
+        } else if (media instanceof InputMediaAnimation) {
+            thumbnail = ((InputMediaAnimation) media).getThumbnail();
+        }
+        if (thumbnail != null) {
+            // Referenced from the JSON of the media
+            addInputFile(builder, thumbnail, null);
+        }
+    }
+
+    private static void addJson(MultipartEntityBuilder builder, String name, Object value) throws IOException {
+        builder.addTextBody(name, JSON_WRITER.writeValueAsString(value), TEXT_PLAIN_CONTENT_TYPE);
+    }
+
+    private static <M> void name(Class<M> type, String field, String name) {
+        NAMES.computeIfAbsent(type, t -> new HashMap<>()).put(field, name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <M> void condition(Class<M> type, String name, Predicate<M> condition) {
+        CONDITIONS.computeIfAbsent(type, t -> new HashMap<>()).put(name, (Predicate<Object>) condition);
+    }
+
+    /**
+     * @return Parts of the method class, null if it doesn't upload files
+     */
+    private static Part[] createParts(Class<?> type) {
+        if (OWN_BUILDERS.contains(type)) {
+            return null;
+        }
+        Set<String> names = getFieldNames(type);
+        List<Part> parts = new ArrayList<>();
+        boolean hasFiles = false;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            Map<String, String> renamed = NAMES.getOrDefault(current, Collections.emptyMap());
+            Map<String, Predicate<Object>> conditions = CONDITIONS.getOrDefault(current, Collections.emptyMap());
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())
+                        || field.isAnnotationPresent(JsonIgnore.class)) {
+                    continue;
+                }
+                String name = getName(field, renamed);
+                if (!names.contains(name)) {
+                    continue;
+                }
+                Kind kind = getKind(field);
+                hasFiles |= kind != Kind.TEXT && kind != Kind.JSON;
+                try {
+                    field.setAccessible(true);
+                    MethodHandle getter = lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+                    parts.add(new Part(name, kind, getter, conditions.get(name)));
+                } catch (IllegalAccessException | RuntimeException e) {
+                    throw new IllegalStateException("Unable to read field " + field.getName() + " of " + type.getName(), e);
+                }
+            }
+        }
+        if (!hasFiles) {
+            return null;
+        }
+        // As with JSON methods, the parse mode only applies to a caption
+        Part caption = parts.stream().filter(part -> CAPTION_FIELD.equals(part.name)).findFirst().orElse(null);
+        if (caption != null) {
+            for (int i = 0; i < parts.size(); i++) {
+                Part part = parts.get(i);
+                if (PARSEMODE_FIELD.equals(part.name) && part.condition == null) {
+                    parts.set(i, new Part(part.name, part.kind, part.getter, method -> caption.get(method) != null));
+                }
+            }
+        }
+        return parts.toArray(new Part[0]);
+    }
+
+    /**
+     * @return Values of the public *_FIELD constants of the class and its superclasses
+     */
+    private static Set<String> getFieldNames(Class<?> type) {
+        Set<String> names = new HashSet<>();
+        for (Field field : type.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class && field.getName().endsWith("_FIELD")) {
+                try {
+                    field.setAccessible(true);
+                    names.add((String) field.get(null));
+                } catch (IllegalAccessException | RuntimeException e) {
+                    throw new IllegalStateException("Unable to read constant " + field.getName() + " of " + type.getName(), e);
+                }
+            }
+        }
+        return names;
+    }
+
+    private static String getName(Field field, Map<String, String> renamed) {
+        JsonProperty property = field.getAnnotation(JsonProperty.class);
+        if (property != null && !property.value().isEmpty()) {
+            return property.value();
+        }
+        return renamed.getOrDefault(field.getName(), SNAKE_CASE.translate(field.getName()));
+    }
+
+    private static Kind getKind(Field field) {
+        Class<?> type = field.getType();
+        if (InputFile.class.isAssignableFrom(type)) {
+            return Kind.FILE;
+        } else if (InputMedia.class.isAssignableFrom(type)) {
+            return Kind.MEDIA;
+        } else if (InputSticker.class.isAssignableFrom(type)) {
+            return Kind.STICKER;
+        } else if (Collection.class.isAssignableFrom(type)) {
+            Class<?> elementType = getElementType(field.getGenericType());
+            if (InputMedia.class.isAssignableFrom(elementType)) {
+                return Kind.MEDIA_LIST;
+            } else if (InputSticker.class.isAssignableFrom(elementType)) {
+                return Kind.STICKER_LIST;
+            }
+            return Kind.JSON;
+        } else if (type.isPrimitive() || CharSequence.class.isAssignableFrom(type) || Number.class.isAssignableFrom(type)
+                || Boolean.class == type || Character.class == type) {
+            return Kind.TEXT;
+        }
+        return Kind.JSON;
+    }
+
+    private static Class<?> getElementType(Type type) {
+        if (type instanceof ParameterizedType) {
+            Type element = ((ParameterizedType) type).getActualTypeArguments()[0];
+            if (element instanceof Class) {
+                return (Class<?>) element;
+            } else if (element instanceof ParameterizedType) {
+                return (Class<?>) ((ParameterizedType) element).getRawType();
+            }
+        }
+        return Object.class;
+    }
+
+    private enum Kind {
+        /**
+         * Strings and booleans are sent as they are, only numbers need a string of their own
+         */
+        TEXT {
+            @Override
+            void add(MultipartEntityBuilder builder, String name, Object value) {
+                builder.addTextBody(name, value instanceof String ? (String) value : value.toString(), TEXT_PLAIN_CONTENT_TYPE);
+            }
+        },
+        FILE {
+            @Override
+            void add(MultipartEntityBuilder builder, String name, Object value) {
+                addInputFile(builder, (InputFile) value, name);
+            }
+        },
+        MEDIA {
+            @Override
+            void add(MultipartEntityBuilder builder, String name, Object value) throws IOException {
+                addInputMedia(builder, (InputMedia) value);
+                addJson(builder, name, value);
+            }
+        },
+        MEDIA_LIST {
+            @Override
+            void add(MultipartEntityBuilder builder, String name, Object value) throws IOException {
+                for (Object media : (Collection<?>) value) {
+                    addInputMedia(builder, (InputMedia) media);
+                }
+                addJson(builder, name, value);
+            }
+        },
+        /**
+         * A single sticker is sent as a list of one sticker
+         */
+        STICKER {
+            @Override
+            void add(MultipartEntityBuilder builder, String name, Object value) throws IOException {
+                addInputFile(builder, ((InputSticker) value).getSticker(), null);
+                addJson(builder, name, Collections.singletonList(value));
+            }
+        },
+        STICKER_LIST {
+            @Override
+            void add(MultipartEntityBuilder builder, String name, Object value) throws IOException {
+                for (Object sticker : (Collection<?>) value) {
+                    addInputFile(builder, ((InputSticker) sticker).getSticker(), null);
+                }
+                addJson(builder, name, value);
+            }
+        },
+        JSON {
+            @Override
+            void add(MultipartEntityBuilder builder, String name, Object value) throws IOException {
+                addJson(builder, name, value);
+            }
+        };
+
+        abstract void add(MultipartEntityBuilder builder, String name, Object value) throws IOException;
+    }
+
+    private static final class Part {
+        private final String name;
+        private final Kind kind;
+        private final MethodHandle getter;
+        private final Predicate<Object> condition;
+
+        private Part(String name, Kind kind, MethodHandle getter, Predicate<Object> condition) {
+            this.name = name;
+            this.kind = kind;
+            this.getter = getter;
+            this.condition = condition;
+        }
+
+        private Object get(Object method) {
+            try {
+                return getter.invokeExact(method);
+            } catch (Error | RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Unable to read field " + name, e);
+            }
+        }
+
+        private void add(MultipartEntityBuilder builder, Object method) throws IOException {
+            Object value = get(method);
+            if (value != null && (condition == null || condition.test(method))) {
+                kind.add(builder, name, value);
+            }
+        }
+    }
+}
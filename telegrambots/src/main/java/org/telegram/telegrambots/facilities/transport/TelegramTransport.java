@@ -0,0 +1,68 @@
+package org.telegram.telegrambots.facilities.transport;
+
+import org.apache.http.HttpEntity;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends the requests of a bot to Telegram. Bodies are built as {@link HttpEntity}, JSON and multipart alike,
+ * and the transport only has to write them and give back the response.
+ *
+ * @see ApacheTransport
+ * @see JdkHttpTransport
+ */
+public interface TelegramTransport extends Closeable {
+    /**
+     * POST a body and wait for the response
+     * @param url Url of the method
+     * @param body Body of the request, with its content type
+     * @return Response, must be closed by the caller
+     */
+    TransportResponse post(String url, HttpEntity body) throws IOException;
+
+    /**
+     * POST a body and wait for the response, unless the request is aborted meanwhile.
+     * Transports that can't abort a blocking request send it until the end.
+     * @param url Url of the method
+     * @param body Body of the request, with its content type
+     * @param cancellation Future whose cancellation aborts the request and releases its connection
+     * @return Response, must be closed by the caller
+     */
+    default TransportResponse post(String url, HttpEntity body, CompletableFuture<?> cancellation) throws IOException {
+        return post(url, body);
+    }
+
+    /**
+     * GET an url and wait for the response, used to download files
+     * @param url Url of the file
+     * @return Response, must be closed by the caller
+     */
+    TransportResponse get(String url) throws IOException;
+
+    /**
+     * @return True if {@link #postAsync} sends requests without blocking a thread
+     */
+    default boolean supportsAsync() {
+        return false;
+    }
+
+    /**
+     * POST a body without blocking the calling thread, only called when {@link #supportsAsync()} is true
+     * @param url Url of the method
+     * @param body Body of the request, with its content type
+     * @return Future completed with the response, completed with an IOException if it could not be sent.
+     * Cancelling it should abort the request and release its connection.
+     */
+    default CompletableFuture<TransportResponse> postAsync(String url, HttpEntity body) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " can't send requests asynchronously");
+    }
+
+    /**
+     * Release what only async requests use, requests still in flight are aborted.
+     * Blocking requests can still be sent afterwards, {@link #close()} releases everything.
+     */
+    default void closeAsync() throws IOException {
+    }
+}
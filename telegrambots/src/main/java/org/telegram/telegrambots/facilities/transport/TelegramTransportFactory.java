@@ -0,0 +1,16 @@
+package org.telegram.telegrambots.facilities.transport;
+
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+
+/**
+ * Creates the transport of a bot from its options, i.e. {@code JdkHttpTransport::new}
+ */
+@FunctionalInterface
+public interface TelegramTransportFactory {
+    /**
+     * @param options Options of the bot
+     * @return New transport
+     * @throws UnsupportedOperationException If the transport can't be used with these options or in this JVM
+     */
+    TelegramTransport create(DefaultBotOptions options);
+}
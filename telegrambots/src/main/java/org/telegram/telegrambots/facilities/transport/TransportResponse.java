@@ -0,0 +1,34 @@
+package org.telegram.telegrambots.facilities.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Response received by a {@link TelegramTransport}. Closing it releases the connection.
+ */
+public class TransportResponse implements Closeable {
+    private final int statusCode;
+    private final InputStream body;
+
+    public TransportResponse(int statusCode, InputStream body) {
+        this.statusCode = statusCode;
+        this.body = body;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return Body of the response, read once
+     */
+    public InputStream getBody() {
+        return body;
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
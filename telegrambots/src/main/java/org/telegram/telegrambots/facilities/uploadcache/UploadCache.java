@@ -0,0 +1,307 @@
+package org.telegram.telegrambots.facilities.uploadcache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.methods.PartialBotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendAnimation;
+import org.telegram.telegrambots.meta.api.methods.send.SendAudio;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendMediaBotMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.methods.send.SendSticker;
+import org.telegram.telegrambots.meta.api.methods.send.SendVideo;
+import org.telegram.telegrambots.meta.api.methods.send.SendVideoNote;
+import org.telegram.telegrambots.meta.api.methods.send.SendVoice;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.PhotoSize;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.util.MethodCopies;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Remembers the file id Telegram gave to every local file sent, so the next time the same file is sent
+ * its file id is used instead of uploading it again.
+ *
+ * Files are identified by their path, size and last modification time, so a file changed in place is uploaded again.
+ * Only files sent with SendPhoto, SendDocument, SendVideo, SendAudio, SendVoice, SendAnimation, SendVideoNote and
+ * SendSticker are cached, files sent from an InputStream are always uploaded.
+ * The most recently used file ids are kept in memory, and an optional {@link UploadCacheStore} keeps all of them.
+ * While a file is being uploaded, other methods sending the same file wait for its file id.
+ * Methods of the caller are never changed, a cached file id is sent with a copy of the method.
+ */
+@Slf4j
+public class UploadCache {
+    private static final Map<Class<?>, Media<?>> MEDIA = new HashMap<>();
+
+    static {
+        register(SendPhoto.class, SendPhoto::setPhoto, message -> {
+            List<PhotoSize> sizes = message.getPhoto();
+            // Sizes are sorted from the smallest to the biggest
+            return sizes == null || sizes.isEmpty() ? null : sizes.get(sizes.size() - 1).getFileId();
+        });
+        register(SendDocument.class, SendDocument::setDocument, message -> message.getDocument() == null ? null : message.getDocument().getFileId());
+        register(SendVideo.class, SendVideo::setVideo, message -> message.getVideo() == null ? null : message.getVideo().getFileId());
+        register(SendAudio.class, SendAudio::setAudio, message -> message.getAudio() == null ? null : message.getAudio().getFileId());
+        register(SendVoice.class, SendVoice::setVoice, message -> message.getVoice() == null ? null : message.getVoice().getFileId());
+        register(SendAnimation.class, SendAnimation::setAnimation, message -> message.getAnimation() == null ? null : message.getAnimation().getFileId());
+        register(SendVideoNote.class, SendVideoNote::setVideoNote, message -> message.getVideoNote() == null ? null : message.getVideoNote().getFileId());
+        register(SendSticker.class, SendSticker::setSticker, message -> message.getSticker() == null ? null : message.getSticker().getFileId());
+    }
+
+    private final int maxEntries;
+    private final UploadCacheStore store;
+    private final Map<String, String> fileIds;
+    private final ConcurrentMap<String, CompletableFuture<Void>> uploading = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong uploads = new AtomicLong();
+
+    /**
+     * Cache of the last 10000 files sent, kept in memory only
+     */
+    public UploadCache() {
+        this(10_000, null);
+    }
+
+    /**
+     * @param maxEntries Max number of file ids kept in memory, the least recently used are evicted
+     * @param store Storage for the file ids, null to keep them in memory only
+     */
+    public UploadCache(int maxEntries, UploadCacheStore store) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Max entries must be bigger than 0");
+        }
+        this.maxEntries = maxEntries;
+        this.store = store;
+        this.fileIds = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > UploadCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return Key of a local file
+     */
+    public static String getKey(File file) {
+        return file.getAbsolutePath() + ':' + file.length() + ':' + file.lastModified();
+    }
+
+    /**
+     * @param key Key of a local file
+     * @return File id of the file, null if it was not uploaded yet
+     */
+    public String getFileId(String key) {
+        synchronized (fileIds) {
+            String fileId = fileIds.get(key);
+            if (fileId != null || store == null) {
+                return fileId;
+            }
+        }
+        String fileId = store.get(key);
+        if (fileId != null) {
+            synchronized (fileIds) {
+                fileIds.put(key, fileId);
+            }
+        }
+        return fileId;
+    }
+
+    /**
+     * @param key Key of a local file
+     * @param fileId File id Telegram gave to it
+     */
+    public void put(String key, String fileId) {
+        synchronized (fileIds) {
+            fileIds.put(key, fileId);
+        }
+        if (store != null) {
+            store.put(key, fileId);
+        }
+    }
+
+    /**
+     * Forget the file id of a local file, it will be uploaded again
+     */
+    public void evict(String key) {
+        synchronized (fileIds) {
+            fileIds.remove(key);
+        }
+        if (store != null) {
+            store.remove(key);
+        }
+    }
+
+    /**
+     * @return Number of file ids kept in memory
+     */
+    public int size() {
+        synchronized (fileIds) {
+            return fileIds.size();
+        }
+    }
+
+    /**
+     * @return Number of files sent with their file id instead of uploading them
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Number of files uploaded and added to the cache
+     */
+    public long getUploads() {
+        return uploads.get();
+    }
+
+    /**
+     * Find the file id of the local file of the method if it was uploaded before.
+     * If the same file is being uploaded by another method, it waits for that upload to complete first.
+     * @param method Method about to be sent, it is left as it is
+     * @return Future completed when the method can be sent, with the upload to send it with and report its result to,
+     * or null if its file is not cached
+     */
+    public CompletableFuture<Upload> prepare(PartialBotApiMethod<?> method) {
+        Media<?> media = MEDIA.get(method.getClass());
+        if (media == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        InputFile inputFile = ((SendMediaBotMethod<?>) method).getFile();
+        if (inputFile == null || !inputFile.isNew() || inputFile.getNewMediaFile() == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String key = getKey(inputFile.getNewMediaFile());
+        String fileId = getFileId(key);
+        if (fileId != null) {
+            PartialBotApiMethod<?> copy = MethodCopies.copy(method);
+            if (copy != null) {
+                media.setFile(copy, new InputFile(fileId));
+                hits.incrementAndGet();
+                return CompletableFuture.completedFuture(new Upload(key, media, copy, null));
+            }
+        }
+        CompletableFuture<Void> uploaded = new CompletableFuture<>();
+        CompletableFuture<Void> inFlight = uploading.putIfAbsent(key, uploaded);
+        if (inFlight == null) {
+            return CompletableFuture.completedFuture(new Upload(key, media, method, uploaded));
+        }
+        // Another method is uploading the same file, its file id is used once it is done
+        return inFlight.thenCompose(done -> prepare(method));
+    }
+
+    /**
+     * @return True if the error is a 400 about the file id, i.e. "wrong file identifier" or an expired "file reference"
+     */
+    private static boolean isFileIdRejected(Throwable error) {
+        if (!(error instanceof TelegramApiRequestException)) {
+            return false;
+        }
+        TelegramApiRequestException requestError = (TelegramApiRequestException) error;
+        String description = requestError.getApiResponse();
+        if (!Integer.valueOf(400).equals(requestError.getErrorCode()) || description == null) {
+            return false;
+        }
+        description = description.toLowerCase(Locale.ROOT);
+        return description.contains("wrong file identifier") || description.contains("file reference");
+    }
+
+    private static <M extends SendMediaBotMethod<Message>> void register(Class<M> type, BiConsumer<M, InputFile> setter,
+                                                                         Function<Message, String> fileId) {
+        MEDIA.put(type, new Media<>(type, setter, fileId));
+    }
+
+    /**
+     * Method with a local file that was about to be sent
+     */
+    public class Upload {
+        private final String key;
+        private final Media<?> media;
+        private final PartialBotApiMethod<?> method;
+        private final CompletableFuture<Void> uploaded;
+
+        private Upload(String key, Media<?> media, PartialBotApiMethod<?> method, CompletableFuture<Void> uploaded) {
+            this.key = key;
+            this.media = media;
+            this.method = method;
+            this.uploaded = uploaded;
+        }
+
+        /**
+         * @return Method to send: a copy with the file id if it is cached, the prepared method itself otherwise
+         */
+        public PartialBotApiMethod<?> getMethod() {
+            return method;
+        }
+
+        /**
+         * @return True if the file id was used instead of uploading the file
+         */
+        public boolean isCached() {
+            return uploaded == null;
+        }
+
+        /**
+         * Remember the file id of the uploaded file
+         * @param result Result of the method
+         */
+        public void completed(Object result) {
+            if (uploaded == null) {
+                return;
+            }
+            String fileId = result instanceof Message ? media.fileId.apply((Message) result) : null;
+            if (fileId != null) {
+                put(key, fileId);
+                uploads.incrementAndGet();
+            }
+            uploadDone();
+        }
+
+        /**
+         * Forget the file id if Telegram rejected it. Other errors, i.e. a bad caption, keep it.
+         * @param error Error of the method
+         */
+        public void failed(Throwable error) {
+            if (uploaded != null) {
+                // Methods waiting for this upload try to upload the file themselves
+                uploadDone();
+            } else if (isFileIdRejected(error)) {
+                log.debug("File id of {} was rejected, it will be uploaded again", key);
+                evict(key);
+            }
+        }
+
+        private void uploadDone() {
+            uploading.remove(key, uploaded);
+            uploaded.complete(null);
+        }
+    }
+
+    private static class Media<M> {
+        private final Class<M> type;
+        private final BiConsumer<M, InputFile> setter;
+        private final Function<Message, String> fileId;
+
+        private Media(Class<M> type, BiConsumer<M, InputFile> setter, Function<Message, String> fileId) {
+            this.type = type;
+            this.setter = setter;
+            this.fileId = fileId;
+        }
+
+        private void setFile(Object method, InputFile inputFile) {
+            setter.accept(type.cast(method), inputFile);
+        }
+    }
+}
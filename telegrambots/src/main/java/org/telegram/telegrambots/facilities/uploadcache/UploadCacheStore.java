@@ -0,0 +1,24 @@
+package org.telegram.telegrambots.facilities.uploadcache;
+
+/**
+ * Persistent storage for the file ids of an {@link UploadCache}, so uploads are remembered across restarts.
+ * Calls are made from the sender threads and must be thread safe.
+ */
+public interface UploadCacheStore {
+    /**
+     * @param key Key of the local file
+     * @return File id of the file in Telegram, null if it is unknown
+     */
+    String get(String key);
+
+    /**
+     * @param key Key of the local file
+     * @param fileId File id of the file in Telegram
+     */
+    void put(String key, String fileId);
+
+    /**
+     * @param key Key of a local file whose file id is no longer valid
+     */
+    void remove(String key);
+}
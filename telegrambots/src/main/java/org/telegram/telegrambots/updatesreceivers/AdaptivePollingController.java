@@ -0,0 +1,162 @@
+package org.telegram.telegrambots.updatesreceivers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.objects.UpdateEnvelope;
+import org.telegram.telegrambots.util.LatencyHistogram;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tunes the limit and timeout of every getUpdates request of a {@link DefaultBotSession}.
+ *
+ * <ul>
+ *     <li>The limit is sized to what the handlers can process in about a second, measured from the time
+ *     they spend per update, minus what is already buffered. Fetching more than that would only make
+ *     updates wait in memory instead of on Telegram servers.</li>
+ *     <li>While updates are pending locally, buffered or being handled, the long poll is kept about as short as
+ *     the time the handlers need to work through them, so the next limit is sized as soon as they are done
+ *     instead of after a full long poll. When nothing is pending the configured timeout is used.</li>
+ *     <li>Empty responses are not followed by an extra wait, unless the configured timeout is 0 or the server
+ *     answered much earlier than the long poll timeout, which would otherwise turn into a busy loop.</li>
+ * </ul>
+ * Configured limit and timeout are used as upper bounds.
+ */
+@Slf4j
+public class AdaptivePollingController {
+    private static final long TARGET_BUFFERED_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MIN_BLOCKING_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final double SMOOTHING = 0.2;
+
+    private final int maxLimit;
+    private final int maxTimeout;
+    private final int lanes;
+    private final LatencyHistogram receiveToDispatch = new LatencyHistogram();
+
+    private volatile double nanosPerUpdate = -1;
+    private volatile int effectiveLimit;
+    private volatile int effectiveTimeout;
+
+    /**
+     * @param maxLimit Max number of updates per request
+     * @param maxTimeout Max long poll timeout in seconds
+     * @param lanes Number of updates that can be handled at the same time
+     */
+    public AdaptivePollingController(int maxLimit, int maxTimeout, int lanes) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.maxTimeout = Math.max(0, maxTimeout);
+        this.lanes = Math.max(1, lanes);
+        this.effectiveLimit = this.maxLimit;
+        this.effectiveTimeout = this.maxTimeout;
+    }
+
+    /**
+     * @return Limit used in the last request
+     */
+    public int getEffectiveLimit() {
+        return effectiveLimit;
+    }
+
+    /**
+     * @return Timeout in seconds used in the last request
+     */
+    public int getEffectiveTimeout() {
+        return effectiveTimeout;
+    }
+
+    /**
+     * @return Time from reception of updates until their handler starts
+     */
+    public LatencyHistogram getReceiveToDispatchLatency() {
+        return receiveToDispatch;
+    }
+
+    /**
+     * @param availableCapacity Room left in the updates buffer
+     * @param buffered Updates waiting in the buffer
+     * @return Limit for the next request
+     */
+    public int nextLimit(int availableCapacity, int buffered) {
+        int limit = Math.min(maxLimit, availableCapacity);
+        double perUpdate = nanosPerUpdate;
+        if (perUpdate > 0) {
+            long target = (long) Math.ceil(TARGET_BUFFERED_NANOS * lanes / perUpdate) - buffered;
+            limit = (int) Math.max(1, Math.min(limit, target));
+        }
+        if (limit != effectiveLimit) {
+            log.debug("getUpdates limit changed from {} to {}", effectiveLimit, limit);
+        }
+        effectiveLimit = limit;
+        return limit;
+    }
+
+    /**
+     * @param pending Updates received and not handled yet, buffered or being handled
+     * @return Timeout in seconds for the next request
+     */
+    public int nextTimeout(int pending) {
+        int timeout = maxTimeout;
+        double perUpdate = nanosPerUpdate;
+        if (pending > 0 && perUpdate > 0) {
+            long seconds = (long) Math.ceil(pending * perUpdate / lanes / TimeUnit.SECONDS.toNanos(1));
+            timeout = (int) Math.min(maxTimeout, Math.max(1, seconds));
+        }
+        if (timeout != effectiveTimeout) {
+            log.debug("getUpdates timeout changed from {} to {}", effectiveTimeout, timeout);
+        }
+        effectiveTimeout = timeout;
+        return timeout;
+    }
+
+    /**
+     * @param received Number of updates received
+     * @param limit Limit used in the request
+     * @param elapsedNanos Duration of the request
+     * @return True if the reader should wait before the next request
+     */
+    public boolean onResponse(int received, int limit, long elapsedNanos) {
+        if (received > 0) {
+            return false;
+        }
+        // An empty long poll already waited on the server, unless it returned way too early
+        return maxTimeout == 0 || (effectiveTimeout > 0 && elapsedNanos < MIN_BLOCKING_POLL_NANOS);
+    }
+
+    /**
+     * Called when handling of the updates starts
+     */
+    public void onDispatched(List<UpdateEnvelope> updates) {
+        long now = System.nanoTime();
+        for (UpdateEnvelope update : updates) {
+            receiveToDispatch.recordNanos(now - update.getReceivedAt());
+        }
+    }
+
+    /**
+     * Called when handling of the updates starts
+     */
+    public void onDispatched(ReceivedUpdates updates) {
+        long now = System.nanoTime();
+        for (int i = 0; i < updates.size(); i++) {
+            receiveToDispatch.recordNanos(now - updates.getReceivedAt(i));
+        }
+    }
+
+    /**
+     * Called when handling of the updates completes
+     */
+    public void onHandled(int count, long elapsedNanos) {
+        if (count == 0) {
+            return;
+        }
+        double sample = (double) elapsedNanos / count;
+        double current = nanosPerUpdate;
+        nanosPerUpdate = current < 0 ? sample : current + SMOOTHING * (sample - current);
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptivePollingController(limit=" + effectiveLimit + ", timeout=" + effectiveTimeout +
+                ", receiveToDispatchP50=" + receiveToDispatch.getPercentile(50, TimeUnit.MILLISECONDS) + "ms)";
+    }
+}
@@ -0,0 +1,72 @@
+package org.telegram.telegrambots.updatesreceivers;
+
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.User;
+
+/**
+ * Default {@link UpdateKeyExtractor}, orders updates by the chat they belong to.
+ * Updates without a chat (inline queries, payments, poll answers...) are ordered by the user that
+ * originated them, and updates without chat or user fall back to their own update id.
+ */
+public class ChatUpdateKeyExtractor implements UpdateKeyExtractor {
+    public static final ChatUpdateKeyExtractor INSTANCE = new ChatUpdateKeyExtractor();
+
+    @Override
+    public Object getKey(Update update) {
+        Message message = getMessage(update);
+        if (message != null && message.getChat() != null) {
+            return message.getChatId();
+        }
+        if (update.hasCallbackQuery()) {
+            return getUserId(update.getCallbackQuery().getFrom(), update);
+        }
+        if (update.hasMyChatMember()) {
+            return update.getMyChatMember().getChat().getId();
+        }
+        if (update.hasChatMember()) {
+            return update.getChatMember().getChat().getId();
+        }
+        if (update.hasChatJoinRequest()) {
+            return update.getChatJoinRequest().getChat().getId();
+        }
+        if (update.hasInlineQuery()) {
+            return getUserId(update.getInlineQuery().getFrom(), update);
+        }
+        if (update.hasChosenInlineQuery()) {
+            return getUserId(update.getChosenInlineQuery().getFrom(), update);
+        }
+        if (update.hasShippingQuery()) {
+            return getUserId(update.getShippingQuery().getFrom(), update);
+        }
+        if (update.hasPreCheckoutQuery()) {
+            return getUserId(update.getPreCheckoutQuery().getFrom(), update);
+        }
+        if (update.hasPollAnswer()) {
+            return getUserId(update.getPollAnswer().getUser(), update);
+        }
+        if (update.hasPoll()) {
+            return update.getPoll().getId();
+        }
+        return update.getUpdateId();
+    }
+
+    private static Message getMessage(Update update) {
+        if (update.hasMessage()) {
+            return update.getMessage();
+        } else if (update.hasEditedMessage()) {
+            return update.getEditedMessage();
+        } else if (update.hasChannelPost()) {
+            return update.getChannelPost();
+        } else if (update.hasEditedChannelPost()) {
+            return update.getEditedChannelPost();
+        } else if (update.hasCallbackQuery()) {
+            return update.getCallbackQuery().getMessage();
+        }
+        return null;
+    }
+
+    private static Object getUserId(User user, Update update) {
+        return user != null ? user.getId() : update.getUpdateId();
+    }
+}
@@ -12,25 +12,26 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.facilities.TelegramHttpClientBuilder;
+import org.telegram.telegrambots.facilities.VirtualThreads;
 import org.telegram.telegrambots.meta.api.methods.updates.GetUpdates;
 import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.UpdateEnvelope;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
 import org.telegram.telegrambots.meta.generics.*;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InvalidObjectException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidParameterException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.telegram.telegrambots.Constants.SOCKET_TIMEOUT;
 
@@ -43,15 +44,25 @@ public class DefaultBotSession implements BotSession {
     private static final Logger log = LoggerFactory.getLogger(DefaultBotSession.class);
 
     private AtomicBoolean running = new AtomicBoolean(false);
+    private volatile boolean draining = false;
 
-    private final ConcurrentLinkedDeque<Update> receivedUpdates = new ConcurrentLinkedDeque<>();
+    private UpdatesBuffer receivedUpdates;
+    private final PendingUpdatesTracker pendingUpdates = new PendingUpdatesTracker();
+    private final HandledOffsetTracker handledOffsets = new HandledOffsetTracker();
+    private final AtomicBoolean storingOffset = new AtomicBoolean(false);
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private ReaderThread readerThread;
     private HandlerThread handlerThread;
+    private OrderedUpdatesDispatcher dispatcher;
+    private OrderedUpdatesDispatcher priorityDispatcher;
+    private PriorityLanes priorityLanes;
+    private PriorityRouter priorityRouter;
+    private AdaptivePollingController pollingController;
     private LongPollingBot callback;
     private String token;
-    private int lastReceivedUpdate = 0;
+    private volatile int lastReceivedUpdate = 0;
+    private volatile int lastStoredUpdate = 0;
     private DefaultBotOptions options;
     private UpdatesSupplier updatesSupplier;
 
@@ -66,12 +77,28 @@ public class DefaultBotSession implements BotSession {
 
         running.set(true);
 
-        lastReceivedUpdate = 0;
+        lastReceivedUpdate = loadOffset();
+        lastStoredUpdate = lastReceivedUpdate;
+        priorityLanes = new PriorityLanes(options.getPriorityUpdateTypes());
+        receivedUpdates = new UpdatesBuffer(options.getUpdatesBufferCapacity(), priorityLanes);
+        priorityRouter = priorityLanes.isEnabled() ? new PriorityRouter(priorityLanes, options.getUpdateKeyExtractor()) : null;
+        pendingUpdates.reset();
+        handledOffsets.reset(lastReceivedUpdate);
+        pollingController = options.isAdaptivePolling() ? new AdaptivePollingController(options.getGetUpdatesLimit(),
+                options.getGetUpdatesTimeout(), Math.max(1, options.getUpdatesHandlerParallelism())) : null;
 
         readerThread = new ReaderThread(updatesSupplier, this);
         readerThread.setName(callback.getBotUsername() + " Telegram Connection");
         readerThread.start();
 
+        if (options.getUpdatesHandlerParallelism() > 0) {
+            dispatcher = newDispatcher(callback.getBotUsername() + " Telegram Executor-");
+            if (priorityLanes.isEnabled()) {
+                // Priority updates get their own lanes so they never wait behind other chats' bulk traffic
+                priorityDispatcher = newDispatcher(callback.getBotUsername() + " Telegram Priority Executor-");
+            }
+        }
+
         handlerThread = new HandlerThread();
         handlerThread.setName(callback.getBotUsername() + " Telegram Executor");
         handlerThread.start();
@@ -83,16 +110,35 @@ public class DefaultBotSession implements BotSession {
             throw new IllegalStateException("Session already stopped");
         }
 
+        // Keep the handler running while buffered updates are drained
+        draining = options.getShutdownDrainTimeout() > 0;
         running.set(false);
 
         if (readerThread != null) {
             readerThread.interrupt();
         }
 
+        if (draining) {
+            drain(options.getShutdownDrainTimeout());
+            draining = false;
+        }
+
         if (handlerThread != null) {
             handlerThread.interrupt();
         }
 
+        if (dispatcher != null) {
+            dispatcher.shutdownNow();
+        }
+
+        if (priorityDispatcher != null) {
+            priorityDispatcher.shutdownNow();
+        }
+
+        checkpointOffset();
+        receivedUpdates.clear();
+        pendingUpdates.reset();
+
         if (callback != null) {
             callback.onClosing();
         }
@@ -131,6 +177,131 @@ public class DefaultBotSession implements BotSession {
         return running.get();
     }
 
+    /**
+     * @return Buffer of received updates waiting to be handled, null if the session was never started
+     */
+    public UpdatesBuffer getUpdatesBuffer() {
+        return receivedUpdates;
+    }
+
+    /**
+     * @return Priority lanes of the session with their queue time metrics, null if the session was never started
+     */
+    public PriorityLanes getPriorityLanes() {
+        return priorityLanes;
+    }
+
+    /**
+     * @return Controller with the effective getUpdates limit and timeout, null if adaptive polling is disabled
+     */
+    public AdaptivePollingController getPollingController() {
+        return pollingController;
+    }
+
+    /**
+     * Wait for buffered updates to be handled and then for async executions of the bot to complete.
+     * The reader can't add updates meanwhile, it only does so holding the session lock.
+     */
+    private void drain(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            if (!pendingUpdates.awaitHandled(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                log.warn("Session stopped with {} updates not handled", pendingUpdates.getPending());
+            } else if (!UpdatesDelivery.awaitAsyncExecutions(callback, deadline - System.nanoTime())) {
+                log.warn("Session stopped before all async executions completed");
+            }
+        } catch (InterruptedException e) {
+            log.debug(e.getLocalizedMessage(), e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private OrderedUpdatesDispatcher newDispatcher(String namePrefix) {
+        return new OrderedUpdatesDispatcher(options.getUpdatesHandlerParallelism(),
+                options.getUpdatesHandlerQueueCapacity(), options.getUpdateKeyExtractor(),
+                newLaneThreadFactory(namePrefix, options.isUseVirtualThreads()), this::handle);
+    }
+
+    private void handle(ReceivedUpdates updates) {
+        AdaptivePollingController controller = pollingController;
+        long start = System.nanoTime();
+        try {
+            priorityLanes.recordHandlingStarted(updates);
+            if (controller != null) {
+                controller.onDispatched(updates);
+            }
+            UpdatesDelivery.deliver(callback, updates, options.isUseUpdateEnvelopes());
+        } finally {
+            if (controller != null) {
+                controller.onHandled(updates.size(), System.nanoTime() - start);
+            }
+            if (priorityRouter != null) {
+                priorityRouter.handled(updates);
+            }
+            pendingUpdates.handled(updates.size());
+            if (options.getOffsetStore() != null) {
+                boolean advanced = false;
+                for (int i = 0; i < updates.size(); i++) {
+                    advanced |= handledOffsets.handled(updates.getUpdateId(i));
+                }
+                if (advanced) {
+                    checkpointOffset();
+                }
+            }
+        }
+    }
+
+    private int loadOffset() {
+        OffsetStore offsetStore = options.getOffsetStore();
+        if (offsetStore != null) {
+            try {
+                return offsetStore.load();
+            } catch (IOException e) {
+                log.error("Unable to load the stored offset, starting from the first pending update", e);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Persist the handled offset if it moved. Stores are coalesced: a handler that finds one in progress leaves
+     * its offset to it instead of waiting, and the storing handler repeats until the stored offset is the latest.
+     */
+    private void checkpointOffset() {
+        OffsetStore offsetStore = options.getOffsetStore();
+        if (offsetStore == null) {
+            return;
+        }
+        while (handledOffsets.getHandledOffset() != lastStoredUpdate && storingOffset.compareAndSet(false, true)) {
+            try {
+                int handledUpdate = handledOffsets.getHandledOffset();
+                offsetStore.store(handledUpdate);
+                lastStoredUpdate = handledUpdate;
+            } catch (IOException e) {
+                log.error(e.getLocalizedMessage(), e);
+                return;
+            } finally {
+                storingOffset.set(false);
+            }
+        }
+    }
+
+    private static ThreadFactory newLaneThreadFactory(String namePrefix, boolean useVirtualThreads) {
+        if (useVirtualThreads) {
+            ThreadFactory virtualThreadFactory = VirtualThreads.newThreadFactory(namePrefix);
+            if (virtualThreadFactory != null) {
+                return virtualThreadFactory;
+            }
+            log.warn("Virtual threads are not supported by this JVM, using platform threads instead");
+        }
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + count.incrementAndGet());
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        };
+    }
+
     @SuppressWarnings("WeakerAccess")
     private class ReaderThread extends Thread implements UpdatesReader {
 
@@ -139,9 +310,11 @@ public class DefaultBotSession implements BotSession {
         private CloseableHttpClient httpclient;
         private BackOff backOff;
         private RequestConfig requestConfig;
+        private int availableCapacity;
+        private int accepted;
 
         public ReaderThread(UpdatesSupplier updatesSupplier, Object lock) {
-            this.updatesSupplier = Optional.ofNullable(updatesSupplier).orElse(this::getUpdatesFromServer);
+            this.updatesSupplier = updatesSupplier;
             this.lock = lock;
         }
 
@@ -182,29 +355,34 @@ public class DefaultBotSession implements BotSession {
         public void run() {
             setPriority(Thread.MIN_PRIORITY);
             while (running.get()) {
+                try {
+                    // Don't poll while the buffer is full, Telegram will keep the backlog for us
+                    availableCapacity = receivedUpdates.awaitCapacity();
+                } catch (InterruptedException e) {
+                    log.debug(e.getLocalizedMessage(), e);
+                    interrupt();
+                    continue;
+                }
                 synchronized (lock) {
                     if (running.get()) {
                         try {
-                            List<Update> updates = updatesSupplier.getUpdates();
-                            if (updates.isEmpty()) {
-                                lock.wait(500);
-                            } else {
-                                updates.removeIf(x -> x.getUpdateId() < lastReceivedUpdate);
-                                lastReceivedUpdate = updates.parallelStream()
-                                        .map(
-                                                Update::getUpdateId)
-                                        .max(Integer::compareTo)
-                                        .orElse(0);
-                                receivedUpdates.addAll(updates);
-
-                                synchronized (receivedUpdates) {
-                                    receivedUpdates.notifyAll();
+                            if (updatesSupplier != null) {
+                                if (getUpdatesFromSupplier() == 0) {
+                                    lock.wait(500);
+                                }
+                            } else if (pollingController != null) {
+                                int limit = pollingController.nextLimit(availableCapacity, receivedUpdates.size());
+                                int timeout = pollingController.nextTimeout(pendingUpdates.getPending());
+                                long start = System.nanoTime();
+                                int received = getUpdatesFromServer(limit, timeout);
+                                if (pollingController.onResponse(received, limit, System.nanoTime() - start)) {
+                                    lock.wait(500);
                                 }
+                            } else if (getUpdatesFromServer(Math.min(options.getGetUpdatesLimit(), availableCapacity),
+                                    options.getGetUpdatesTimeout()) == 0) {
+                                lock.wait(500);
                             }
                         } catch (InterruptedException e) {
-                            if (!running.get()) {
-                                receivedUpdates.clear();
-                            }
                             log.debug(e.getLocalizedMessage(), e);
                             interrupt();
                         } catch (Exception global) {
@@ -214,9 +392,6 @@ public class DefaultBotSession implements BotSession {
                                     lock.wait(backOff.nextBackOffMillis());
                                 }
                             } catch (InterruptedException e) {
-                                if (!running.get()) {
-                                    receivedUpdates.clear();
-                                }
                                 log.debug(e.getLocalizedMessage(), e);
                                 interrupt();
                             }
@@ -227,12 +402,63 @@ public class DefaultBotSession implements BotSession {
             log.debug("Reader thread has being closed");
         }
 
-        private List<Update> getUpdatesFromServer() throws IOException {
+        private int getUpdatesFromSupplier() throws Exception {
+            List<Update> updates = updatesSupplier.getUpdates();
+            if (!updates.isEmpty()) {
+                updates.removeIf(x -> x.getUpdateId() < lastReceivedUpdate);
+                lastReceivedUpdate = updates.parallelStream()
+                        .map(
+                                Update::getUpdateId)
+                        .max(Integer::compareTo)
+                        .orElse(lastReceivedUpdate);
+                pendingUpdates.added(updates.size());
+                if (options.getOffsetStore() != null) {
+                    for (Update update : updates) {
+                        handledOffsets.received(update.getUpdateId());
+                    }
+                }
+                receivedUpdates.addAll(updates);
+            }
+            return updates.size();
+        }
+
+        private void onUpdateReceived(Update update) {
+            if (accept(update.getUpdateId())) {
+                receivedUpdates.add(update);
+            }
+        }
+
+        private void onEnvelopeReceived(UpdateEnvelope envelope) {
+            if (accept(envelope.getUpdateId())) {
+                receivedUpdates.add(envelope);
+            }
+        }
+
+        /**
+         * @return True if the update is new and must be buffered
+         */
+        private boolean accept(int updateId) {
+            if (updateId <= lastReceivedUpdate) {
+                return false;
+            }
+            lastReceivedUpdate = updateId;
+            accepted++;
+            pendingUpdates.added(1);
+            if (options.getOffsetStore() != null) {
+                handledOffsets.received(updateId);
+            }
+            return true;
+        }
+
+        private int getUpdatesFromServer(int limit, int timeout) throws IOException {
+            // With an offset store, only handled updates are confirmed, the ones still being handled come again
+            // and are skipped as already received
+            int confirmed = options.getOffsetStore() != null ? handledOffsets.getHandledOffset() : lastReceivedUpdate;
             GetUpdates request = GetUpdates
                     .builder()
-                    .limit(options.getGetUpdatesLimit())
-                    .timeout(options.getGetUpdatesTimeout())
-                    .offset(lastReceivedUpdate + 1)
+                    .limit(limit)
+                    .timeout(timeout)
+                    .offset(confirmed + 1)
                     .build();
 
             if (options.getAllowedUpdates() != null) {
@@ -247,17 +473,28 @@ public class DefaultBotSession implements BotSession {
             httpPost.setEntity(new StringEntity(objectMapper.writeValueAsString(request), ContentType.APPLICATION_JSON));
 
             try (CloseableHttpResponse response = httpclient.execute(httpPost, options.getHttpContext())) {
-                String responseContent = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
-
                 if (response.getStatusLine().getStatusCode() >= 500) {
-                    log.warn(responseContent);
+                    log.warn(EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8));
                     synchronized (lock) {
                         lock.wait(500);
                     }
                 } else {
-                    List<Update> updates = request.deserializeResponse(responseContent);
+                    int received;
+                    accepted = 0;
+                    try (InputStream content = response.getEntity().getContent()) {
+                        if (options.isUseUpdateEnvelopes()) {
+                            received = request.deserializeEnvelopes(content, this::onEnvelopeReceived);
+                        } else {
+                            // Updates are buffered while the response is parsed, no need to wait for the full response
+                            received = request.deserializeResponse(content, this::onUpdateReceived);
+                        }
+                    }
                     backOff.reset();
-                    return updates;
+                    if (options.getOffsetStore() != null && received > 0 && accepted == 0) {
+                        // Nothing new until more updates are handled, don't poll for the same ones again meanwhile
+                        handledOffsets.awaitAdvance(confirmed, 500, TimeUnit.MILLISECONDS);
+                    }
+                    return received;
                 }
             } catch (SocketException | InvalidObjectException | TelegramApiRequestException e) {
                 log.error(e.getLocalizedMessage(), e);
@@ -275,7 +512,7 @@ public class DefaultBotSession implements BotSession {
                 } else throw e;
             }
 
-            return Collections.emptyList();
+            return 0;
         }
     }
 
@@ -284,32 +521,26 @@ public class DefaultBotSession implements BotSession {
         List<Update> getUpdates() throws Exception;
     }
 
-    private List<Update> getUpdateList() {
-        List<Update> updates = new ArrayList<>();
-        for (Iterator<Update> it = receivedUpdates.iterator(); it.hasNext();) {
-            updates.add(it.next());
-            it.remove();
-        }
-        return updates;
-    }
-
     private class HandlerThread extends Thread implements UpdatesHandler {
         @Override
         public void run() {
             setPriority(Thread.MIN_PRIORITY);
-            while (running.get()) {
+            while (running.get() || draining) {
                 try {
-                    List<Update> updates = getUpdateList();
-                    if (updates.isEmpty()) {
-                        synchronized (receivedUpdates) {
-                            receivedUpdates.wait();
-                            updates = getUpdateList();
-                            if (updates.isEmpty()) {
-                                continue;
-                            }
-                        }
+                    ReceivedUpdates updates = receivedUpdates.takeAll();
+                    ReceivedUpdates[] split = priorityRouter != null ? priorityRouter.split(updates) : null;
+                    if (priorityDispatcher != null) {
+                        priorityDispatcher.dispatch(split[0]);
+                        dispatcher.dispatch(split[1]);
+                    } else if (dispatcher != null) {
+                        dispatcher.dispatch(updates);
+                    } else if (split != null) {
+                        // Priority updates go first unless an earlier update of the same chat is waiting
+                        split[0].addAll(split[1]);
+                        handle(split[0]);
+                    } else {
+                        handle(updates);
                     }
-                    callback.onUpdatesReceived(updates);
                 } catch (InterruptedException e) {
                     log.debug(e.getLocalizedMessage(), e);
                     interrupt();
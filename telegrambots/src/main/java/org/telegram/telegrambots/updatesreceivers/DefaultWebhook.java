@@ -40,6 +40,13 @@ public class DefaultWebhook implements Webhook {
         validateServerKeystoreFile(keyStore);
     }
 
+    /**
+     * @param priorityGate Gate used to handle priority updates ahead of the rest, null to disable it
+     */
+    public void setPriorityGate(WebhookPriorityGate priorityGate) {
+        restApi.setPriorityGate(priorityGate);
+    }
+
     public void registerWebhook(WebhookBot callback) {
         restApi.registerCallback(callback);
     }
@@ -0,0 +1,66 @@
+package org.telegram.telegrambots.updatesreceivers;
+
+import org.telegram.telegrambots.meta.generics.OffsetStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link OffsetStore} keeping the offset in a file.
+ *
+ * Every store writes a temporary file next to the target, forces it to disk and then renames it over
+ * the previous one, so a crash never leaves a partially written offset behind.
+ */
+public class FileOffsetStore implements OffsetStore {
+    private final Path file;
+    private final Path tempFile;
+
+    public FileOffsetStore(Path file) {
+        this.file = file.toAbsolutePath();
+        this.tempFile = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+    }
+
+    @Override
+    public synchronized int load() throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+        if (content.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(content);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid offset in " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized void store(int updateId) throws IOException {
+        Path parent = file.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        ByteBuffer content = ByteBuffer.wrap(Integer.toString(updateId).getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.telegram.telegrambots.updatesreceivers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks received updates until they are handled, to find the handled offset: the highest update id whose handler
+ * completed along with the handlers of every update received before it.
+ *
+ * Updates handled out of order, i.e. in different dispatcher lanes, only move the offset once the older ones
+ * are handled too. Ids are kept in a ring of primitives, so tracking doesn't allocate per update.
+ */
+class HandledOffsetTracker {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition advanced = lock.newCondition();
+    private int[] ids = new int[64];
+    private boolean[] handled = new boolean[64];
+    private int head;
+    private int size;
+    private int lastReceived;
+    private int handledOffset;
+
+    /**
+     * Forget the tracked updates and start from the given offset
+     */
+    void reset(int offset) {
+        lock.lock();
+        try {
+            head = 0;
+            size = 0;
+            lastReceived = offset;
+            handledOffset = offset;
+            advanced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Track a received update, ids must be received in ascending order and older ones are ignored
+     */
+    void received(int updateId) {
+        lock.lock();
+        try {
+            if (updateId <= lastReceived) {
+                return;
+            }
+            if (size == ids.length) {
+                grow();
+            }
+            int index = (head + size) % ids.length;
+            ids[index] = updateId;
+            handled[index] = false;
+            size++;
+            lastReceived = updateId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mark an update as handled
+     * @return True if the handled offset moved forward
+     */
+    boolean handled(int updateId) {
+        lock.lock();
+        try {
+            int position = find(updateId);
+            if (position < 0) {
+                return false;
+            }
+            handled[(head + position) % ids.length] = true;
+            int previousOffset = handledOffset;
+            while (size > 0 && handled[head]) {
+                handledOffset = ids[head];
+                head = (head + 1) % ids.length;
+                size--;
+            }
+            if (handledOffset != previousOffset) {
+                advanced.signalAll();
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getHandledOffset() {
+        lock.lock();
+        try {
+            return handledOffset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of received updates not handled yet, or handled after one that isn't
+     */
+    int getTracked() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until the handled offset moves past the given one or the timeout expires
+     * @return True if it moved
+     */
+    boolean awaitAdvance(int offset, long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (handledOffset == offset) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = advanced.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Position of the id from the head, -1 if it is not tracked
+     */
+    private int find(int updateId) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int id = ids[(head + middle) % ids.length];
+            if (id < updateId) {
+                low = middle + 1;
+            } else if (id > updateId) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private void grow() {
+        int[] newIds = new int[ids.length * 2];
+        boolean[] newHandled = new boolean[ids.length * 2];
+        for (int i = 0; i < size; i++) {
+            newIds[i] = ids[(head + i) % ids.length];
+            newHandled[i] = handled[(head + i) % ids.length];
+        }
+        ids = newIds;
+        handled = newHandled;
+        head = 0;
+    }
+}
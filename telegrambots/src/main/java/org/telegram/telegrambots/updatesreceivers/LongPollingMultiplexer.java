@@ -0,0 +1,165 @@
+package org.telegram.telegrambots.updatesreceivers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the long polls of many {@link MultiplexedBotSession} on a single non-blocking http client.
+ *
+ * All the getUpdates requests share a few I/O threads, and the received batches are handled in a
+ * shared pool of workers, so the number of threads doesn't grow with the number of bots.
+ * Resources are created when the first session starts and released once the last one stops.
+ */
+@Slf4j
+public class LongPollingMultiplexer {
+    private static final int DEFAULT_IO_THREADS = 2;
+    private static final int DEFAULT_MAX_CONNECTIONS = 10000;
+    private static final LongPollingMultiplexer DEFAULT = new LongPollingMultiplexer();
+
+    private final int ioThreads;
+    private final int workerThreads;
+    private final int maxConnections;
+
+    private int sessions;
+    private volatile CloseableHttpAsyncClient httpClient;
+    private volatile ExecutorService workers;
+    private volatile ScheduledExecutorService scheduler;
+
+    public LongPollingMultiplexer() {
+        this(DEFAULT_IO_THREADS, Runtime.getRuntime().availableProcessors() * 2, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * @param ioThreads Number of threads running the I/O reactor
+     * @param workerThreads Number of threads handling received updates
+     * @param maxConnections Max number of open connections, at least one per running session
+     */
+    public LongPollingMultiplexer(int ioThreads, int workerThreads, int maxConnections) {
+        if (ioThreads < 1 || workerThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be bigger than 0");
+        }
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("Max connections must be bigger than 0");
+        }
+        this.ioThreads = ioThreads;
+        this.workerThreads = workerThreads;
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * @return Multiplexer used by sessions created without an explicit one
+     */
+    public static LongPollingMultiplexer getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return Number of sessions currently using this multiplexer
+     */
+    public synchronized int getSessions() {
+        return sessions;
+    }
+
+    synchronized void attach() {
+        if (sessions++ == 0) {
+            IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                    .setIoThreadCount(ioThreads)
+                    .setSoKeepAlive(true)
+                    .build();
+            httpClient = HttpAsyncClients.custom()
+                    .setDefaultIOReactorConfig(ioReactorConfig)
+                    .setSSLHostnameVerifier(new NoopHostnameVerifier())
+                    .setMaxConnTotal(maxConnections)
+                    // Every bot polls the same host
+                    .setMaxConnPerRoute(maxConnections)
+                    .setThreadFactory(newThreadFactory("Telegram Multiplexer Reactor-"))
+                    .build();
+            httpClient.start();
+            workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), newThreadFactory("Telegram Multiplexer Worker-"));
+            ScheduledThreadPoolExecutor scheduledExecutor = new ScheduledThreadPoolExecutor(1,
+                    newThreadFactory("Telegram Multiplexer Scheduler-"));
+            scheduledExecutor.setRemoveOnCancelPolicy(true);
+            scheduler = scheduledExecutor;
+        }
+    }
+
+    synchronized void detach() {
+        if (sessions > 0 && --sessions == 0) {
+            scheduler.shutdownNow();
+            workers.shutdown();
+            try {
+                httpClient.close();
+            } catch (IOException e) {
+                log.warn(e.getLocalizedMessage(), e);
+            }
+            httpClient = null;
+            workers = null;
+            scheduler = null;
+        }
+    }
+
+    Future<HttpResponse> execute(HttpUriRequest request, HttpContext context, FutureCallback<HttpResponse> callback) {
+        CloseableHttpAsyncClient client = httpClient;
+        if (client == null) {
+            throw new IllegalStateException("Multiplexer is not running");
+        }
+        return client.execute(request, context, callback);
+    }
+
+    /**
+     * Run a task in the worker pool. Tasks submitted after the last session stopped are discarded.
+     */
+    void submit(Runnable task) {
+        ExecutorService executor = workers;
+        if (executor == null) {
+            log.debug("Multiplexer is not running, discarding task");
+            return;
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.debug(e.getLocalizedMessage(), e);
+        }
+    }
+
+    /**
+     * Run a task in the worker pool after the given delay.
+     */
+    void schedule(Runnable task, long delayMillis) {
+        ScheduledExecutorService executor = scheduler;
+        if (executor == null) {
+            log.debug("Multiplexer is not running, discarding task");
+            return;
+        }
+        try {
+            executor.schedule(() -> submit(task), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug(e.getLocalizedMessage(), e);
+        }
+    }
+
+    private static ThreadFactory newThreadFactory(String namePrefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> new Thread(runnable, namePrefix + count.incrementAndGet());
+    }
+}
@@ -0,0 +1,350 @@
+package org.telegram.telegrambots.updatesreceivers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.meta.api.methods.updates.GetUpdates;
+import org.telegram.telegrambots.meta.api.objects.UpdateType;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.generics.BackOff;
+import org.telegram.telegrambots.meta.generics.BotOptions;
+import org.telegram.telegrambots.meta.generics.BotSession;
+import org.telegram.telegrambots.meta.generics.LongPollingBot;
+import org.telegram.telegrambots.meta.generics.OffsetStore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidParameterException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.telegram.telegrambots.Constants.SOCKET_TIMEOUT;
+
+/**
+ * Long polling session that doesn't own any thread: getUpdates requests run on the shared
+ * non-blocking client of a {@link LongPollingMultiplexer} and updates are handled in its worker pool.
+ *
+ * Only one request is in flight per session and the next one is sent once the previous batch
+ * has been handled, so updates of a bot are still received in order.
+ * Updates buffer and handler parallelism options are not used by this session, and SOCKS proxies
+ * are not supported.
+ */
+public class MultiplexedBotSession implements BotSession {
+    private static final Logger log = LoggerFactory.getLogger(MultiplexedBotSession.class);
+
+    private final LongPollingMultiplexer multiplexer;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Counts responses being handled, to drain them on stop
+    private final PendingUpdatesTracker pendingResponses = new PendingUpdatesTracker();
+
+    private LongPollingBot callback;
+    private String token;
+    private DefaultBotOptions options;
+    private RequestConfig requestConfig;
+    private BackOff backOff;
+    private PriorityLanes priorityLanes;
+    private volatile int lastReceivedUpdate = 0;
+    private int lastStoredUpdate = 0;
+    private volatile Future<HttpResponse> pendingRequest;
+
+    public MultiplexedBotSession() {
+        this(LongPollingMultiplexer.getDefault());
+    }
+
+    public MultiplexedBotSession(LongPollingMultiplexer multiplexer) {
+        this.multiplexer = multiplexer;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running.get()) {
+            throw new IllegalStateException("Session already running");
+        }
+        if (options.getProxyType() == DefaultBotOptions.ProxyType.SOCKS4 ||
+                options.getProxyType() == DefaultBotOptions.ProxyType.SOCKS5) {
+            throw new IllegalStateException("SOCKS proxies are not supported by this session");
+        }
+
+        requestConfig = options.getRequestConfig();
+        if (requestConfig == null) {
+            requestConfig = RequestConfig.copy(RequestConfig.custom().build())
+                    .setSocketTimeout(SOCKET_TIMEOUT)
+                    .setConnectTimeout(SOCKET_TIMEOUT)
+                    .setConnectionRequestTimeout(SOCKET_TIMEOUT).build();
+        }
+        if (options.getProxyType() == DefaultBotOptions.ProxyType.HTTP) {
+            requestConfig = RequestConfig.copy(requestConfig)
+                    .setProxy(new HttpHost(options.getProxyHost(), options.getProxyPort()))
+                    .build();
+        }
+
+        backOff = options.getBackOff();
+        // fall back to default exponential backoff strategy if no backoff specified
+        if (backOff == null) {
+            backOff = new ExponentialBackOff();
+        }
+
+        priorityLanes = new PriorityLanes(options.getPriorityUpdateTypes());
+        lastReceivedUpdate = loadOffset();
+        lastStoredUpdate = lastReceivedUpdate;
+
+        multiplexer.attach();
+        running.set(true);
+        poll();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running.get()) {
+            throw new IllegalStateException("Session already stopped");
+        }
+
+        running.set(false);
+
+        Future<HttpResponse> request = pendingRequest;
+        if (request != null) {
+            request.cancel(true);
+        }
+
+        if (options.getShutdownDrainTimeout() > 0) {
+            drain(options.getShutdownDrainTimeout());
+        }
+
+        multiplexer.detach();
+
+        if (callback != null) {
+            callback.onClosing();
+        }
+    }
+
+    @Override
+    public void setOptions(BotOptions options) {
+        if (this.options != null) {
+            throw new InvalidParameterException("BotOptions has already been set");
+        }
+        this.options = (DefaultBotOptions) options;
+    }
+
+    @Override
+    public void setToken(String token) {
+        if (this.token != null) {
+            throw new InvalidParameterException("Token has already been set");
+        }
+        this.token = token;
+    }
+
+    @Override
+    public void setCallback(LongPollingBot callback) {
+        if (this.callback != null) {
+            throw new InvalidParameterException("Callback has already been set");
+        }
+        this.callback = callback;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * @return Priority lanes of the session with their queue time metrics, null if the session was never started
+     */
+    public PriorityLanes getPriorityLanes() {
+        return priorityLanes;
+    }
+
+    private void poll() {
+        if (!running.get()) {
+            return;
+        }
+
+        GetUpdates request = GetUpdates
+                .builder()
+                .limit(options.getGetUpdatesLimit())
+                .timeout(options.getGetUpdatesTimeout())
+                .offset(lastReceivedUpdate + 1)
+                .build();
+
+        if (options.getAllowedUpdates() != null) {
+            request.setAllowedUpdates(options.getAllowedUpdates());
+        }
+
+        String url = options.getBaseUrl() + token + "/" + GetUpdates.PATH;
+        HttpPost httpPost = new HttpPost(url);
+        httpPost.addHeader("charset", StandardCharsets.UTF_8.name());
+        httpPost.setConfig(requestConfig);
+        try {
+            httpPost.setEntity(new StringEntity(objectMapper.writeValueAsString(request), ContentType.APPLICATION_JSON));
+            pendingRequest = multiplexer.execute(httpPost, options.getHttpContext(), new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(HttpResponse response) {
+                    // Keep the I/O threads free, parsing and handling happen in the workers
+                    multiplexer.submit(() -> onResponse(request, response));
+                }
+
+                @Override
+                public void failed(Exception ex) {
+                    onFailure(ex);
+                }
+
+                @Override
+                public void cancelled() {
+                    log.debug("getUpdates request cancelled");
+                }
+            });
+        } catch (JsonProcessingException | RuntimeException e) {
+            onFailure(e);
+        }
+    }
+
+    private void onResponse(GetUpdates request, HttpResponse response) {
+        // Counted before checking if the session is running, so a concurrent stop waits for it
+        pendingResponses.added(1);
+        try {
+            if (running.get()) {
+                schedulePoll(handleResponse(request, response));
+            } else {
+                EntityUtils.consumeQuietly(response.getEntity());
+            }
+        } finally {
+            pendingResponses.handled(1);
+        }
+    }
+
+    /**
+     * @return Delay before the next poll
+     */
+    private long handleResponse(GetUpdates request, HttpResponse response) {
+        long delay = 0;
+        try {
+            if (response.getStatusLine().getStatusCode() >= 500) {
+                log.warn(EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8));
+                delay = 500;
+            } else {
+                // Priority updates first and everything else in the order it was received
+                ReceivedUpdates updates = new ReceivedUpdates();
+                ReceivedUpdates normalUpdates = new ReceivedUpdates();
+                try (InputStream content = response.getEntity().getContent()) {
+                    if (options.isUseUpdateEnvelopes()) {
+                        request.deserializeEnvelopes(content, envelope -> {
+                            if (envelope.getUpdateId() >= lastReceivedUpdate) {
+                                (priorityLanes.isPriority(envelope.getType()) ? updates : normalUpdates).add(envelope);
+                            }
+                        });
+                    } else {
+                        request.deserializeResponse(content, update -> {
+                            if (update.getUpdateId() >= lastReceivedUpdate) {
+                                UpdateType type = UpdateType.of(update);
+                                (priorityLanes.isPriority(type) ? updates : normalUpdates).add(update, type, System.nanoTime());
+                            }
+                        });
+                    }
+                }
+                updates.addAll(normalUpdates);
+                backOff.reset();
+                if (updates.isEmpty()) {
+                    delay = 500;
+                } else {
+                    handle(updates);
+                }
+            }
+        } catch (IOException | TelegramApiRequestException e) {
+            log.error(e.getLocalizedMessage(), e);
+            delay = 500;
+        }
+        return delay;
+    }
+
+    private void onFailure(Exception e) {
+        if (!running.get()) {
+            log.debug(e.getLocalizedMessage(), e);
+            return;
+        }
+        long delay;
+        if (e instanceof SocketTimeoutException) {
+            log.info(e.getLocalizedMessage(), e);
+            delay = 500;
+        } else {
+            log.error(e.getLocalizedMessage(), e);
+            delay = backOff.nextBackOffMillis();
+        }
+        schedulePoll(delay);
+    }
+
+    private void handle(ReceivedUpdates updates) {
+        for (int i = 0; i < updates.size(); i++) {
+            lastReceivedUpdate = Math.max(lastReceivedUpdate, updates.getUpdateId(i));
+        }
+        try {
+            priorityLanes.recordHandlingStarted(updates);
+            UpdatesDelivery.deliver(callback, updates, options.isUseUpdateEnvelopes());
+        } catch (Exception e) {
+            log.error(e.getLocalizedMessage(), e);
+        }
+        storeOffset();
+    }
+
+    private void drain(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            if (!pendingResponses.awaitHandled(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                log.warn("Session stopped while updates were being handled");
+            } else if (!UpdatesDelivery.awaitAsyncExecutions(callback, deadline - System.nanoTime())) {
+                log.warn("Session stopped before all async executions completed");
+            }
+        } catch (InterruptedException e) {
+            log.debug(e.getLocalizedMessage(), e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void schedulePoll(long delay) {
+        if (delay > 0) {
+            multiplexer.schedule(this::poll, delay);
+        } else {
+            poll();
+        }
+    }
+
+    private int loadOffset() {
+        OffsetStore offsetStore = options.getOffsetStore();
+        if (offsetStore != null) {
+            try {
+                return offsetStore.load();
+            } catch (IOException e) {
+                log.error("Unable to load the stored offset, starting from the first pending update", e);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Persist the offset if it changed. Must only be called once all received updates have been handled.
+     */
+    private void storeOffset() {
+        OffsetStore offsetStore = options.getOffsetStore();
+        int handledUpdate = lastReceivedUpdate;
+        if (offsetStore != null && handledUpdate != lastStoredUpdate) {
+            try {
+                offsetStore.store(handledUpdate);
+                lastStoredUpdate = handledUpdate;
+            } catch (IOException e) {
+                log.error(e.getLocalizedMessage(), e);
+            }
+        }
+    }
+}
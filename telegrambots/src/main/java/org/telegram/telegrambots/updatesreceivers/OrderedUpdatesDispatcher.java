@@ -0,0 +1,159 @@
+package org.telegram.telegrambots.updatesreceivers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.UpdateEnvelope;
+import org.telegram.telegrambots.meta.generics.LongPollingBot;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches updates to a fixed number of worker lanes.
+ * Every lane is served by a single thread, and updates are assigned to a lane using the key
+ * returned by the {@link UpdateKeyExtractor}, so updates sharing a key (i.e. same chat) are
+ * handled in order while updates for different keys are handled in parallel.
+ *
+ * When the queue of a lane is full, {@link #dispatch(List)} blocks until there is room again.
+ */
+@Slf4j
+public class OrderedUpdatesDispatcher {
+    private final UpdateKeyExtractor keyExtractor;
+    private final Consumer<ReceivedUpdates> handler;
+    private final ThreadPoolExecutor[] lanes;
+
+    /**
+     * @param callback Bot that will receive the updates
+     * @param parallelism Number of lanes
+     * @param queueCapacity Max number of pending batches per lane
+     * @param keyExtractor Extractor used to assign updates to lanes
+     * @param threadFactory Factory for the lane threads
+     */
+    public OrderedUpdatesDispatcher(LongPollingBot callback, int parallelism, int queueCapacity,
+                                    UpdateKeyExtractor keyExtractor, ThreadFactory threadFactory) {
+        this(parallelism, queueCapacity, keyExtractor, threadFactory,
+                batch -> UpdatesDelivery.deliver(callback, batch, false));
+    }
+
+    /**
+     * @param parallelism Number of lanes
+     * @param queueCapacity Max number of pending batches per lane
+     * @param keyExtractor Extractor used to assign updates to lanes
+     * @param threadFactory Factory for the lane threads
+     * @param handler Handler called from the lanes with every batch
+     */
+    public OrderedUpdatesDispatcher(int parallelism, int queueCapacity, UpdateKeyExtractor keyExtractor,
+                                    ThreadFactory threadFactory, Consumer<ReceivedUpdates> handler) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be bigger than 0");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be bigger than 0");
+        }
+        this.keyExtractor = keyExtractor;
+        this.handler = handler;
+        this.lanes = new ThreadPoolExecutor[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), threadFactory, OrderedUpdatesDispatcher::waitForRoom);
+        }
+    }
+
+    /**
+     * Split the updates by lane, keeping their relative order, and queue each sub batch in its lane.
+     * @param updates Updates to dispatch
+     */
+    public void dispatch(List<Update> updates) {
+        dispatch(ReceivedUpdates.ofUpdates(updates));
+    }
+
+    /**
+     * Split the updates by lane, keeping their relative order, and queue each sub batch in its lane.
+     * @param updates Updates to dispatch
+     */
+    public void dispatchEnvelopes(List<UpdateEnvelope> updates) {
+        dispatch(ReceivedUpdates.ofEnvelopes(updates));
+    }
+
+    /**
+     * Split the updates by lane, keeping their relative order, and queue each sub batch in its lane.
+     * @param updates Updates to dispatch
+     */
+    public void dispatch(ReceivedUpdates updates) {
+        ReceivedUpdates[] batches = new ReceivedUpdates[lanes.length];
+        for (int i = 0; i < updates.size(); i++) {
+            int lane = getLane(updates.get(i));
+            if (batches[lane] == null) {
+                batches[lane] = new ReceivedUpdates();
+            }
+            batches[lane].add(updates, i);
+        }
+        for (int i = 0; i < lanes.length; i++) {
+            ReceivedUpdates batch = batches[i];
+            if (batch != null) {
+                lanes[i].execute(() -> handle(batch));
+            }
+        }
+    }
+
+    public int getParallelism() {
+        return lanes.length;
+    }
+
+    /**
+     * @return Number of batches waiting in all lanes
+     */
+    public int getQueuedBatches() {
+        int queued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queued += lane.getQueue().size();
+        }
+        return queued;
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    public void shutdownNow() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    private int getLane(Object update) {
+        Object key = update instanceof UpdateEnvelope ? keyExtractor.getKey((UpdateEnvelope) update)
+                : keyExtractor.getKey((Update) update);
+        int hash = key == null ? 0 : key.hashCode();
+        // Spread the hash so that sequential chat ids don't cluster in the same lanes
+        hash ^= (hash >>> 16);
+        return (hash & Integer.MAX_VALUE) % lanes.length;
+    }
+
+    private void handle(ReceivedUpdates batch) {
+        try {
+            handler.accept(batch);
+        } catch (Exception e) {
+            log.error(e.getLocalizedMessage(), e);
+        }
+    }
+
+    private static void waitForRoom(Runnable runnable, ThreadPoolExecutor lane) {
+        if (lane.isShutdown()) {
+            throw new RejectedExecutionException("Dispatcher has been shut down");
+        }
+        try {
+            lane.getQueue().put(runnable);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for room in the lane", e);
+        }
+    }
+}
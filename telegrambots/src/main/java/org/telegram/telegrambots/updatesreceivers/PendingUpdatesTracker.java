@@ -0,0 +1,88 @@
+package org.telegram.telegrambots.updatesreceivers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts the updates that have been received but whose handler has not completed yet.
+ */
+class PendingUpdatesTracker {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition allHandled = lock.newCondition();
+    private int pending;
+
+    void added(int count) {
+        lock.lock();
+        try {
+            pending += count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void handled(int count) {
+        lock.lock();
+        try {
+            pending = Math.max(0, pending - count);
+            if (pending == 0) {
+                allHandled.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getPending() {
+        lock.lock();
+        try {
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until every received update has been handled
+     */
+    void awaitHandled() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (pending > 0) {
+                allHandled.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until every received update has been handled or the timeout expires
+     * @return True if all the updates were handled
+     */
+    boolean awaitHandled(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (pending > 0) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = allHandled.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void reset() {
+        lock.lock();
+        try {
+            pending = 0;
+            allHandled.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
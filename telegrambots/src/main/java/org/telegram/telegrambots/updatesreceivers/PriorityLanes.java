@@ -0,0 +1,67 @@
+package org.telegram.telegrambots.updatesreceivers;
+
+import org.telegram.telegrambots.meta.api.objects.UpdateType;
+import org.telegram.telegrambots.util.LatencyHistogram;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Splits updates in a priority lane, for time critical types like {@link UpdateType#PRE_CHECKOUT_QUERY}
+ * or {@link UpdateType#CALLBACK_QUERY}, and a normal lane for everything else.
+ * Priority updates are handled ahead of the normal ones that were received before them, except those of the same chat.
+ *
+ * Every lane keeps a histogram of the time updates waited from being received until their handling started.
+ */
+public class PriorityLanes {
+    private final Set<UpdateType> priorityTypes;
+    private final LatencyHistogram priorityQueueTime = new LatencyHistogram();
+    private final LatencyHistogram normalQueueTime = new LatencyHistogram();
+
+    /**
+     * @param priorityTypes Types of updates handled in the priority lane, empty to disable it
+     */
+    public PriorityLanes(Collection<UpdateType> priorityTypes) {
+        this.priorityTypes = priorityTypes.isEmpty() ? EnumSet.noneOf(UpdateType.class) : EnumSet.copyOf(priorityTypes);
+    }
+
+    /**
+     * @return True if some types of updates use the priority lane
+     */
+    public boolean isEnabled() {
+        return !priorityTypes.isEmpty();
+    }
+
+    public boolean isPriority(UpdateType type) {
+        return priorityTypes.contains(type);
+    }
+
+    /**
+     * @return Time updates in the priority lane waited to be handled
+     */
+    public LatencyHistogram getPriorityQueueTime() {
+        return priorityQueueTime;
+    }
+
+    /**
+     * @return Time updates in the normal lane waited to be handled
+     */
+    public LatencyHistogram getNormalQueueTime() {
+        return normalQueueTime;
+    }
+
+    void recordQueueTime(UpdateType type, long nanos) {
+        (isPriority(type) ? priorityQueueTime : normalQueueTime).recordNanos(nanos);
+    }
+
+    /**
+     * Record the queue time of updates whose handling is starting now
+     */
+    void recordHandlingStarted(ReceivedUpdates updates) {
+        long now = System.nanoTime();
+        for (int i = 0; i < updates.size(); i++) {
+            recordQueueTime(updates.getType(i), now - updates.getReceivedAt(i));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.telegram.telegrambots.updatesreceivers;
+
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.UpdateEnvelope;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits received updates between the priority and the normal lanes without changing the order of the updates
+ * with the same key (see {@link UpdateKeyExtractor}), so priority only reorders updates of different chats.
+ *
+ * A priority update goes ahead of the rest unless an update with its key is still waiting in the normal lanes,
+ * then it waits behind it there. Likewise, updates whose key still has priority updates waiting follow them
+ * in the priority lanes. Updates without a key are split by their type alone.
+ */
+class PriorityRouter {
+    private final PriorityLanes priorityLanes;
+    private final UpdateKeyExtractor keyExtractor;
+    private final Map<Object, Pending> pending = new HashMap<>();
+
+    PriorityRouter(PriorityLanes priorityLanes, UpdateKeyExtractor keyExtractor) {
+        this.priorityLanes = priorityLanes;
+        this.keyExtractor = keyExtractor;
+    }
+
+    /**
+     * Split updates taken from an {@link UpdatesBuffer}, with the priority ones first, in the order they were received
+     * @return Updates for the priority lanes and updates for the normal ones, both in the order they were received
+     */
+    synchronized ReceivedUpdates[] split(ReceivedUpdates updates) {
+        ReceivedUpdates priorityUpdates = new ReceivedUpdates();
+        ReceivedUpdates normalUpdates = new ReceivedUpdates(updates.size());
+        int normalStart = 0;
+        while (normalStart < updates.size() && priorityLanes.isPriority(updates.getType(normalStart))) {
+            normalStart++;
+        }
+        // Both runs are in the order they were received, merge them back by update id
+        int nextPriority = 0;
+        int nextNormal = normalStart;
+        while (nextPriority < normalStart || nextNormal < updates.size()) {
+            int index;
+            if (nextNormal == updates.size()
+                    || nextPriority < normalStart && updates.getUpdateId(nextPriority) < updates.getUpdateId(nextNormal)) {
+                index = nextPriority++;
+            } else {
+                index = nextNormal++;
+            }
+            boolean priority = route(getKey(updates.get(index)), priorityLanes.isPriority(updates.getType(index)));
+            (priority ? priorityUpdates : normalUpdates).add(updates, index);
+        }
+        return new ReceivedUpdates[]{priorityUpdates, normalUpdates};
+    }
+
+    /**
+     * Forget the updates once their handling completed
+     */
+    synchronized void handled(ReceivedUpdates updates) {
+        for (int i = 0; i < updates.size(); i++) {
+            Object key = getKey(updates.get(i));
+            Pending keyPending = key == null ? null : pending.get(key);
+            if (keyPending != null && --keyPending.count == 0) {
+                pending.remove(key);
+            }
+        }
+    }
+
+    /**
+     * @return True if the update goes to the priority lanes
+     */
+    private boolean route(Object key, boolean priority) {
+        if (key == null) {
+            return priority;
+        }
+        Pending keyPending = pending.get(key);
+        if (keyPending == null) {
+            keyPending = new Pending(priority);
+            pending.put(key, keyPending);
+        }
+        keyPending.count++;
+        return keyPending.priority;
+    }
+
+    private Object getKey(Object update) {
+        return update instanceof UpdateEnvelope ? keyExtractor.getKey((UpdateEnvelope) update) : keyExtractor.getKey((Update) update);
+    }
+
+    private static class Pending {
+        private final boolean priority;
+        private int count;
+
+        private Pending(boolean priority) {
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.telegram.telegrambots.updatesreceivers;
+
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.UpdateEnvelope;
+import org.telegram.telegrambots.meta.api.objects.UpdateType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Batch of received updates waiting to be handled, with the type of every update and the time it was received.
+ *
+ * Updates are kept as they were received: parsed {@link Update}s, or {@link UpdateEnvelope}s when the session
+ * uses them, so sessions delivering parsed updates don't wrap every one of them.
+ */
+public final class ReceivedUpdates {
+    private Object[] updates;
+    private UpdateType[] types;
+    private long[] receivedAt;
+    private int size;
+
+    ReceivedUpdates() {
+        this(16);
+    }
+
+    ReceivedUpdates(int capacity) {
+        capacity = Math.max(1, capacity);
+        updates = new Object[capacity];
+        types = new UpdateType[capacity];
+        receivedAt = new long[capacity];
+    }
+
+    /**
+     * @param updates Parsed updates, all of them received now
+     * @return Batch with the updates
+     */
+    static ReceivedUpdates ofUpdates(List<Update> updates) {
+        ReceivedUpdates batch = new ReceivedUpdates(updates.size());
+        long now = System.nanoTime();
+        for (Update update : updates) {
+            batch.add(update, now);
+        }
+        return batch;
+    }
+
+    /**
+     * @param envelopes Envelopes of the updates
+     * @return Batch with the envelopes
+     */
+    static ReceivedUpdates ofEnvelopes(List<UpdateEnvelope> envelopes) {
+        ReceivedUpdates batch = new ReceivedUpdates(envelopes.size());
+        for (UpdateEnvelope envelope : envelopes) {
+            batch.add(envelope);
+        }
+        return batch;
+    }
+
+    void add(Update update, long receivedAt) {
+        add(update, UpdateType.of(update), receivedAt);
+    }
+
+    void add(Update update, UpdateType type, long receivedAt) {
+        add((Object) update, type, receivedAt);
+    }
+
+    void add(UpdateEnvelope envelope) {
+        add(envelope, envelope.getType(), envelope.getReceivedAt());
+    }
+
+    /**
+     * Add the update at the given position of another batch
+     */
+    void add(ReceivedUpdates batch, int index) {
+        add(batch.updates[index], batch.types[index], batch.receivedAt[index]);
+    }
+
+    void addAll(ReceivedUpdates batch) {
+        ensureCapacity(size + batch.size);
+        System.arraycopy(batch.updates, 0, updates, size, batch.size);
+        System.arraycopy(batch.types, 0, types, size, batch.size);
+        System.arraycopy(batch.receivedAt, 0, receivedAt, size, batch.size);
+        size += batch.size;
+    }
+
+    void clear() {
+        Arrays.fill(updates, 0, size, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getUpdateId(int index) {
+        Object update = get(index);
+        if (update instanceof UpdateEnvelope) {
+            return ((UpdateEnvelope) update).getUpdateId();
+        }
+        Integer updateId = ((Update) update).getUpdateId();
+        return updateId != null ? updateId : 0;
+    }
+
+    public UpdateType getType(int index) {
+        checkIndex(index);
+        return types[index];
+    }
+
+    /**
+     * @return Value of {@link System#nanoTime()} when the update was received
+     */
+    public long getReceivedAt(int index) {
+        checkIndex(index);
+        return receivedAt[index];
+    }
+
+    /**
+     * @return The update, parsed if it was received as an envelope
+     */
+    public Update getUpdate(int index) {
+        Object update = get(index);
+        return update instanceof UpdateEnvelope ? ((UpdateEnvelope) update).getUpdate() : (Update) update;
+    }
+
+    /**
+     * @return The envelope of the update, wrapping it if it was received parsed
+     */
+    public UpdateEnvelope getEnvelope(int index) {
+        Object update = get(index);
+        return update instanceof UpdateEnvelope ? (UpdateEnvelope) update : UpdateEnvelope.of((Update) update);
+    }
+
+    /**
+     * @return Updates of the batch, parsing the ones received as envelopes
+     */
+    public List<Update> toUpdates() {
+        List<Update> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(getUpdate(i));
+        }
+        return list;
+    }
+
+    /**
+     * @return Envelopes of the updates of the batch, wrapping the ones received parsed
+     */
+    public List<UpdateEnvelope> toEnvelopes() {
+        List<UpdateEnvelope> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(getEnvelope(i));
+        }
+        return list;
+    }
+
+    Object get(int index) {
+        checkIndex(index);
+        return updates[index];
+    }
+
+    private void add(Object update, UpdateType type, long receivedAt) {
+        ensureCapacity(size + 1);
+        this.updates[size] = update;
+        this.types[size] = type;
+        this.receivedAt[size] = receivedAt;
+        size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > updates.length) {
+            int newCapacity = Math.max(capacity, updates.length * 2);
+            updates = Arrays.copyOf(updates, newCapacity);
+            types = Arrays.copyOf(types, newCapacity);
+            receivedAt = Arrays.copyOf(receivedAt, newCapacity);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.telegram.telegrambots.Constants;
 import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.UpdateType;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiValidationException;
 import org.telegram.telegrambots.meta.generics.WebhookBot;
 
@@ -25,7 +26,10 @@ import java.util.concurrent.ConcurrentHashMap;
 @Path(Constants.WEBHOOK_URL_PATH)
 @Slf4j
 public class RestApi {
+    private static final int TOO_MANY_REQUESTS = 429;
+
     private final ConcurrentHashMap<String, WebhookBot> callbacks = new ConcurrentHashMap<>();
+    private volatile WebhookPriorityGate priorityGate;
 
     public RestApi() {
     }
@@ -36,12 +40,22 @@ public class RestApi {
         }
     }
 
+    public void setPriorityGate(WebhookPriorityGate priorityGate) {
+        this.priorityGate = priorityGate;
+    }
+
     @POST
     @Path("/{botPath}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     public Response updateReceived(@PathParam("botPath") String botPath, Update update) {
         if (callbacks.containsKey(botPath)) {
+            WebhookPriorityGate gate = priorityGate;
+            UpdateType type = UpdateType.of(update);
+            if (gate != null && !gate.enter(type)) {
+                // Telegram delivers the update again later
+                return Response.status(TOO_MANY_REQUESTS).build();
+            }
             try {
                 BotApiMethod<?> response = callbacks.get(botPath).onWebhookUpdateReceived(update);
                 if (response != null) {
@@ -51,6 +65,10 @@ public class RestApi {
             } catch (TelegramApiValidationException e) {
                 log.error(e.getLocalizedMessage(), e);
                 return Response.serverError().build();
+            } finally {
+                if (gate != null) {
+                    gate.exit(type);
+                }
             }
         }
 
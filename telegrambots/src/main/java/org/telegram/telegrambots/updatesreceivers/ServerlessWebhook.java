@@ -3,6 +3,7 @@ package org.telegram.telegrambots.updatesreceivers;
 import lombok.extern.slf4j.Slf4j;
 import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.UpdateType;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiValidationException;
 import org.telegram.telegrambots.meta.generics.Webhook;
@@ -10,14 +11,32 @@ import org.telegram.telegrambots.meta.generics.WebhookBot;
 
 import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 public class ServerlessWebhook implements Webhook {
 
     private final ConcurrentHashMap<String, WebhookBot> callbacks = new ConcurrentHashMap<>();
+    private volatile WebhookPriorityGate priorityGate;
 
+    /**
+     * @param priorityGate Gate used to handle priority updates ahead of the rest, null to disable it
+     */
+    public void setPriorityGate(WebhookPriorityGate priorityGate) {
+        this.priorityGate = priorityGate;
+    }
+
+    /**
+     * @throws RejectedExecutionException If the priority gate refused the update, it should be answered
+     * with an error status so Telegram delivers it again later
+     */
     public BotApiMethod<?> updateReceived(String botPath, Update update) throws TelegramApiValidationException {
         if (callbacks.containsKey(botPath)) {
+            WebhookPriorityGate gate = priorityGate;
+            UpdateType type = UpdateType.of(update);
+            if (gate != null && !gate.enter(type)) {
+                throw new RejectedExecutionException("Too many updates being handled");
+            }
             try {
                 BotApiMethod<?> response = callbacks.get(botPath).onWebhookUpdateReceived(update);
                 if (response != null) {
@@ -27,6 +46,10 @@ public class ServerlessWebhook implements Webhook {
             } catch (TelegramApiValidationException e) {
                 log.error(e.getLocalizedMessage(), e);
                 throw e;
+            } finally {
+                if (gate != null) {
+                    gate.exit(type);
+                }
             }
         } else {
             throw new NoSuchElementException(String.format("Callback '%s' not exist", botPath));
@@ -0,0 +1,30 @@
+package org.telegram.telegrambots.updatesreceivers;
+
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.UpdateEnvelope;
+
+/**
+ * Extracts the key used to order updates when they are dispatched in parallel.
+ * Updates with equal keys are always handled sequentially and in the order they were received,
+ * updates with different keys may be handled concurrently.
+ *
+ * @see ChatUpdateKeyExtractor
+ */
+@FunctionalInterface
+public interface UpdateKeyExtractor {
+    /**
+     * @param update Update received
+     * @return Ordering key for the update, never null
+     */
+    Object getKey(Update update);
+
+    /**
+     * Extractors that can find the key without the full update should override this method,
+     * by default the update is parsed.
+     * @param envelope Update received
+     * @return Ordering key for the update, never null
+     */
+    default Object getKey(UpdateEnvelope envelope) {
+        return getKey(envelope.getUpdate());
+    }
+}
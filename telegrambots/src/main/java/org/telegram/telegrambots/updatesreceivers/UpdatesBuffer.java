@@ -0,0 +1,192 @@
+package org.telegram.telegrambots.updatesreceivers;
+
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.UpdateEnvelope;
+import org.telegram.telegrambots.meta.api.objects.UpdateType;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffer of updates received from Telegram and waiting to be handled.
+ *
+ * The capacity is enforced by the reader: it waits for free room before calling getUpdates and never
+ * requests more updates than the room left, so when the handlers fall behind the backlog stays on
+ * Telegram servers instead of in memory.
+ *
+ * Updates in the priority lane are always taken before the rest, see {@link PriorityLanes}.
+ */
+public class UpdatesBuffer {
+    private final int capacity;
+    private final PriorityLanes priorityLanes;
+    private ReceivedUpdates priorityUpdates = new ReceivedUpdates();
+    private ReceivedUpdates updates = new ReceivedUpdates();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private int highWaterMark;
+
+    public UpdatesBuffer(int capacity) {
+        this(capacity, new PriorityLanes(EnumSet.noneOf(UpdateType.class)));
+    }
+
+    public UpdatesBuffer(int capacity, PriorityLanes priorityLanes) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be bigger than 0");
+        }
+        this.capacity = capacity;
+        this.priorityLanes = priorityLanes;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Number of updates currently buffered
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return sizeLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Max number of updates that have been buffered at the same time
+     */
+    public int getHighWaterMark() {
+        lock.lock();
+        try {
+            return highWaterMark;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Add an update to the buffer, never blocks.
+     */
+    void add(Update update) {
+        long now = System.nanoTime();
+        UpdateType type = UpdateType.of(update);
+        lock.lock();
+        try {
+            (priorityLanes.isPriority(type) ? priorityUpdates : updates).add(update, type, now);
+            addedLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Add an update to the buffer, never blocks.
+     */
+    void add(UpdateEnvelope update) {
+        lock.lock();
+        try {
+            (priorityLanes.isPriority(update.getType()) ? priorityUpdates : updates).add(update);
+            addedLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Add updates to the buffer, never blocks.
+     */
+    void addAll(List<Update> newUpdates) {
+        if (newUpdates.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            for (Update update : newUpdates) {
+                UpdateType type = UpdateType.of(update);
+                (priorityLanes.isPriority(type) ? priorityUpdates : updates).add(update, type, now);
+            }
+            addedLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until the buffer has room for more updates
+     * @return Number of updates that can be added before the buffer is full
+     */
+    int awaitCapacity() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (sizeLocked() >= capacity) {
+                notFull.await();
+            }
+            return capacity - sizeLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until there are updates and remove all of them from the buffer
+     * @return Buffered updates, priority ones first and otherwise in the order they were added
+     */
+    ReceivedUpdates takeAll() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (sizeLocked() == 0) {
+                notEmpty.await();
+            }
+            return drainLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove all the buffered updates without waiting
+     * @return Buffered updates, priority ones first and otherwise in the order they were added
+     */
+    ReceivedUpdates drain() {
+        lock.lock();
+        try {
+            return drainLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        drain();
+    }
+
+    private void addedLocked() {
+        highWaterMark = Math.max(highWaterMark, sizeLocked());
+        notEmpty.signalAll();
+    }
+
+    private int sizeLocked() {
+        return priorityUpdates.size() + updates.size();
+    }
+
+    private ReceivedUpdates drainLocked() {
+        ReceivedUpdates drained;
+        if (priorityUpdates.isEmpty()) {
+            // Hand over the batch as it is instead of copying it
+            drained = updates;
+            updates = new ReceivedUpdates();
+        } else {
+            drained = priorityUpdates;
+            drained.addAll(updates);
+            priorityUpdates = new ReceivedUpdates();
+            updates.clear();
+        }
+        notFull.signalAll();
+        return drained;
+    }
+}
@@ -0,0 +1,33 @@
+package org.telegram.telegrambots.updatesreceivers;
+
+import org.telegram.telegrambots.bots.DefaultAbsSender;
+import org.telegram.telegrambots.meta.generics.LongPollingBot;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands received updates to a bot, as envelopes or as fully parsed updates
+ */
+final class UpdatesDelivery {
+    private UpdatesDelivery() {
+    }
+
+    static void deliver(LongPollingBot callback, ReceivedUpdates updates, boolean asEnvelopes) {
+        if (asEnvelopes) {
+            callback.onEnvelopesReceived(updates.toEnvelopes());
+        } else {
+            callback.onUpdatesReceived(updates.toUpdates());
+        }
+    }
+
+    /**
+     * Wait for the async method executions of the bot, if it is a {@link DefaultAbsSender}
+     * @return True if they completed before the timeout
+     */
+    static boolean awaitAsyncExecutions(LongPollingBot callback, long timeoutNanos) throws InterruptedException {
+        if (callback instanceof DefaultAbsSender) {
+            return ((DefaultAbsSender) callback).awaitAsyncExecutions(timeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        return true;
+    }
+}
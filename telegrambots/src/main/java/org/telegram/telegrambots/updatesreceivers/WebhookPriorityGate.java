@@ -0,0 +1,101 @@
+package org.telegram.telegrambots.updatesreceivers;
+
+import org.telegram.telegrambots.meta.api.objects.UpdateType;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps webhook server threads available for priority updates.
+ *
+ * Webhook updates are handled in the threads of the http server, so a burst of ordinary messages can
+ * take all of them while a {@link UpdateType#PRE_CHECKOUT_QUERY} waits for its turn. The gate limits
+ * how many normal updates are handled at the same time, making the rest of them wait in arrival order,
+ * while updates in the priority lane go through immediately.
+ * The limit should be lower than the number of worker threads of the server.
+ *
+ * Normal updates only wait for a limited time, so waiting ones can't hold the server threads either.
+ * Updates that don't get in are refused, and Telegram delivers them again later.
+ */
+public class WebhookPriorityGate {
+    private static final long DEFAULT_MAX_WAIT = TimeUnit.SECONDS.toMillis(1);
+
+    private final PriorityLanes priorityLanes;
+    private final Semaphore normalPermits;
+    private final long maxWaitNanos;
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param priorityLanes Lanes of the updates, also used to record the time updates wait in the gate
+     * @param maxConcurrentNormalUpdates Max number of normal updates handled at the same time
+     */
+    public WebhookPriorityGate(PriorityLanes priorityLanes, int maxConcurrentNormalUpdates) {
+        this(priorityLanes, maxConcurrentNormalUpdates, DEFAULT_MAX_WAIT);
+    }
+
+    /**
+     * @param priorityLanes Lanes of the updates, also used to record the time updates wait in the gate
+     * @param maxConcurrentNormalUpdates Max number of normal updates handled at the same time
+     * @param maxWaitMillis Max time a normal update waits to be handled before it is refused
+     */
+    public WebhookPriorityGate(PriorityLanes priorityLanes, int maxConcurrentNormalUpdates, long maxWaitMillis) {
+        if (maxConcurrentNormalUpdates < 1) {
+            throw new IllegalArgumentException("Max concurrent updates must be bigger than 0");
+        }
+        if (maxWaitMillis < 0) {
+            throw new IllegalArgumentException("Max wait can't be negative");
+        }
+        this.priorityLanes = priorityLanes;
+        this.normalPermits = new Semaphore(maxConcurrentNormalUpdates, true);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    }
+
+    public PriorityLanes getPriorityLanes() {
+        return priorityLanes;
+    }
+
+    /**
+     * @return Number of normal updates waiting to be handled
+     */
+    public int getWaiting() {
+        return normalPermits.getQueueLength();
+    }
+
+    /**
+     * @return Number of normal updates refused because they waited too long
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Wait until an update of the given type can be handled. If it returns true, it must be followed by
+     * {@link #exit(UpdateType)}.
+     * @return False if the update waited for the max time, or was interrupted, and must be refused
+     */
+    public boolean enter(UpdateType type) {
+        long start = System.nanoTime();
+        if (!priorityLanes.isPriority(type)) {
+            boolean acquired;
+            try {
+                acquired = normalPermits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                rejected.incrementAndGet();
+                return false;
+            }
+        }
+        priorityLanes.recordQueueTime(type, System.nanoTime() - start);
+        return true;
+    }
+
+    public void exit(UpdateType type) {
+        if (!priorityLanes.isPriority(type)) {
+            normalPermits.release();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.telegram.telegrambots.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.methods.PartialBotApiMethod;
+
+import java.lang.reflect.Method;
+
+/**
+ * Access to the chat id of any api method. Methods don't share a type for it, so the
+ * getChatId and setChatId(String) accessors are looked up once per class.
+ * The chat id is never changed in place: methods belong to the caller, who may still use them.
+ */
+@Slf4j
+public final class ChatIds {
+    private static final ClassValue<Method> GETTERS = new ClassValue<Method>() {
+        @Override
+        protected Method computeValue(Class<?> type) {
+            try {
+                Method getter = type.getMethod("getChatId");
+                return getter.getReturnType() == String.class ? getter : null;
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    };
+    private static final ClassValue<Method> SETTERS = new ClassValue<Method>() {
+        @Override
+        protected Method computeValue(Class<?> type) {
+            try {
+                return type.getMethod("setChatId", String.class);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    };
+
+    private ChatIds() {
+    }
+
+    /**
+     * @return Chat id of the method, null if it has none
+     */
+    public static String get(PartialBotApiMethod<?> method) {
+        Method getter = GETTERS.get(method.getClass());
+        if (getter == null) {
+            return null;
+        }
+        try {
+            return (String) getter.invoke(method);
+        } catch (ReflectiveOperationException e) {
+            log.debug("Unable to read the chat id of {}", method.getClass().getSimpleName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * @return True if the chat id of the method can be changed in a copy of it
+     */
+    public static boolean isSettable(PartialBotApiMethod<?> method) {
+        return SETTERS.get(method.getClass()) != null;
+    }
+
+    /**
+     * Copy the method with another chat id. The copy is shallow: files and markups are shared with the method.
+     * @return Copy of the method, null if its chat id can't be changed
+     */
+    public static <M extends PartialBotApiMethod<?>> M withChatId(M method, String chatId) {
+        Method setter = SETTERS.get(method.getClass());
+        if (setter == null) {
+            return null;
+        }
+        M copy = MethodCopies.copy(method);
+        if (copy == null) {
+            return null;
+        }
+        try {
+            setter.invoke(copy, chatId);
+            return copy;
+        } catch (ReflectiveOperationException e) {
+            log.debug("Unable to change the chat id of {}", method.getClass().getSimpleName(), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.telegram.telegrambots.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.methods.PartialBotApiMethod;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shallow copies of api methods, used to send a method with a changed field while the method of the caller
+ * stays as it is. The fields of every class are looked up once.
+ */
+@Slf4j
+public final class MethodCopies {
+    private static final ClassValue<List<Field>> FIELDS = new ClassValue<List<Field>>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields;
+        }
+    };
+
+    private MethodCopies() {
+    }
+
+    /**
+     * Copy the fields of the method into a new instance of its class. Files, markups and other objects
+     * are shared with the method.
+     * @return Copy of the method, null if its class can't be instantiated
+     */
+    @SuppressWarnings("unchecked")
+    public static <M extends PartialBotApiMethod<?>> M copy(M method) {
+        try {
+            Constructor<?> constructor = method.getClass().getDeclaredConstructor();
+            constructor.setAccessible(true);
+            M copy = (M) constructor.newInstance();
+            for (Field field : FIELDS.get(method.getClass())) {
+                field.set(copy, field.get(method));
+            }
+            return copy;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Unable to copy {}", method.getClass().getSimpleName(), e);
+            return null;
+        }
+    }
+}
@@ -15,6 +15,7 @@ import org.telegram.telegrambots.Constants;
 import org.telegram.telegrambots.bots.DefaultAbsSender;
 import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.facilities.TelegramHttpClientBuilder;
+import org.telegram.telegrambots.facilities.transport.FileRegionBody;
 import org.telegram.telegrambots.meta.api.methods.updates.DeleteWebhook;
 import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
 import org.telegram.telegrambots.meta.api.objects.InputFile;
@@ -84,6 +85,11 @@ public final class WebhookUtils {
           builder.addBinaryBody(SetWebhook.CERTIFICATE_FIELD, webhookFile.getNewMediaFile(), ContentType.TEXT_PLAIN, webhookFile.getMediaName());
         } else if (webhookFile.getNewMediaStream() != null) {
           builder.addBinaryBody(SetWebhook.CERTIFICATE_FIELD, webhookFile.getNewMediaStream(), ContentType.TEXT_PLAIN, webhookFile.getMediaName());
+        } else if (webhookFile.getNewMediaChannel() != null) {
+          builder.addPart(SetWebhook.CERTIFICATE_FIELD, new FileRegionBody(webhookFile.getNewMediaChannel(), webhookFile.getNewMediaPosition(),
+              webhookFile.getNewMediaSize(), ContentType.TEXT_PLAIN, webhookFile.getMediaName()));
+        } else if (webhookFile.getNewMediaBuffer() != null) {
+          builder.addPart(SetWebhook.CERTIFICATE_FIELD, new FileRegionBody(webhookFile.getNewMediaBuffer(), ContentType.TEXT_PLAIN, webhookFile.getMediaName()));
         }
       }
 
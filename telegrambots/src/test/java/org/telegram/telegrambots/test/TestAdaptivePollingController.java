@@ -0,0 +1,69 @@
+package org.telegram.telegrambots.test;
+
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.UpdateEnvelope;
+import org.telegram.telegrambots.meta.api.objects.UpdateType;
+import org.telegram.telegrambots.updatesreceivers.AdaptivePollingController;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for AdaptivePollingController
+ */
+class TestAdaptivePollingController {
+    @Test
+    void testLimitFollowsHandlerThroughput() {
+        AdaptivePollingController controller = new AdaptivePollingController(100, 50, 2);
+        assertEquals(100, controller.nextLimit(Integer.MAX_VALUE, 0));
+        assertEquals(10, controller.nextLimit(10, 0));
+
+        // 2 lanes handling an update every 100ms can take 20 updates per second
+        controller.onHandled(5, TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(20, controller.nextLimit(Integer.MAX_VALUE, 0));
+        assertEquals(5, controller.nextLimit(Integer.MAX_VALUE, 15));
+        assertEquals(1, controller.nextLimit(Integer.MAX_VALUE, 50));
+        assertEquals(1, controller.getEffectiveLimit());
+    }
+
+    @Test
+    void testTimeoutFollowsPendingUpdates() {
+        AdaptivePollingController controller = new AdaptivePollingController(100, 50, 2);
+        assertEquals(50, controller.nextTimeout(0));
+        // Handling time is unknown yet
+        assertEquals(50, controller.nextTimeout(10));
+
+        // 2 lanes handling an update every 100ms need 3 seconds for 60 pending updates
+        controller.onHandled(5, TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(3, controller.nextTimeout(60));
+        assertEquals(3, controller.getEffectiveTimeout());
+        assertEquals(1, controller.nextTimeout(1));
+        assertEquals(50, controller.nextTimeout(10000));
+
+        // Nothing pending goes back to long polling
+        assertEquals(50, controller.nextTimeout(0));
+    }
+
+    @Test
+    void testWaitOnlyAfterPollsThatDidNotBlock() {
+        AdaptivePollingController controller = new AdaptivePollingController(100, 50, 1);
+        controller.nextTimeout(0);
+        assertFalse(controller.onResponse(0, 100, TimeUnit.SECONDS.toNanos(50)));
+        assertTrue(controller.onResponse(0, 100, TimeUnit.MILLISECONDS.toNanos(5)));
+
+        AdaptivePollingController shortPolling = new AdaptivePollingController(100, 0, 1);
+        shortPolling.nextTimeout(0);
+        assertTrue(shortPolling.onResponse(0, 100, TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    @Test
+    void testReceiveToDispatchLatencyIsRecorded() {
+        AdaptivePollingController controller = new AdaptivePollingController(100, 50, 1);
+        controller.onDispatched(Collections.singletonList(new UpdateEnvelope(1, UpdateType.MESSAGE, new byte[0])));
+        assertEquals(1, controller.getReceiveToDispatchLatency().getCount());
+    }
+}
@@ -0,0 +1,355 @@
+package org.telegram.telegrambots.test;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.bots.AsyncExecutionOptions;
+import org.telegram.telegrambots.bots.DefaultAbsSender;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.bots.TelegramLongPollingBot;
+import org.telegram.telegrambots.facilities.inflight.RequestPriority;
+import org.telegram.telegrambots.facilities.transport.JdkHttpTransport;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for DefaultAbsSender against a fake Telegram server
+ */
+class TestDefaultAbsSender {
+    private static final long RESPONSE_DELAY = 300;
+    private static final long SLOW_RESPONSE_DELAY = 5000;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final List<String> documents = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Every request takes a while to be answered, in parallel
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", exchange -> {
+            String body = new String(IOUtils.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8);
+            String text = body.replaceAll(".*\"text\":\"([^\"]*)\".*", "$1");
+            received.add(text);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(text.startsWith("slow") ? SLOW_RESPONSE_DELAY : RESPONSE_DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            byte[] bytes = ("{\"ok\":true,\"result\":{\"message_id\":1,\"date\":0,\"text\":\"" + text +
+                    "\",\"chat\":{\"id\":1,\"type\":\"private\"}}}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.createContext("/bottoken/senddocument", exchange -> {
+            documents.add(new String(IOUtils.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8));
+            byte[] bytes = ("{\"ok\":true,\"result\":{\"message_id\":1,\"date\":0,\"text\":\"document\"," +
+                    "\"chat\":{\"id\":1,\"type\":\"private\"}}}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void testAsyncHttpClientDoesNotNeedSenderThreads() throws Exception {
+        DefaultBotOptions options = createOptions();
+        options.setMaxThreads(1);
+        options.setUseAsyncHttpClient(true);
+        TelegramLongPollingBot sender = new TelegramLongPollingBot(options, "token") {
+            @Override
+            public void onUpdateReceived(Update update) {
+            }
+
+            @Override
+            public String getBotUsername() {
+                return "bot";
+            }
+        };
+
+        int requests = 20;
+        List<CompletableFuture<Message>> futures = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            futures.add(sender.executeAsync(new SendMessage(String.valueOf(i), "message " + i)));
+        }
+        for (int i = 0; i < requests; i++) {
+            assertEquals("message " + i, futures.get(i).get(10, TimeUnit.SECONDS).getText());
+        }
+
+        // A single sender thread would send them one at a time
+        assertTrue(maxInFlight.get() > 1, "Max in flight " + maxInFlight.get());
+        assertTrue(sender.awaitAsyncExecutions(1, TimeUnit.SECONDS));
+
+        // Closing releases the async client and the scheduler, synchronous methods still work
+        sender.onClosing();
+        CompletableFuture<Message> closed = sender.executeAsync(new SendMessage("1", "closed"));
+        assertThrows(ExecutionException.class, () -> closed.get(1, TimeUnit.SECONDS));
+        AsyncExecutionOptions executionOptions = new AsyncExecutionOptions();
+        executionOptions.setTimeout(1000);
+        CompletableFuture<Message> closedWithDeadline = sender.executeAsync(new SendMessage("1", "closed"), executionOptions);
+        ExecutionException error = assertThrows(ExecutionException.class, () -> closedWithDeadline.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(TelegramApiException.class, error.getCause());
+        assertEquals("sync", sender.execute(new SendMessage("1", "sync")).getText());
+    }
+
+    @Test
+    void testAsyncMethodsToTheSameChatAreOrdered() throws Exception {
+        DefaultBotOptions options = createOptions();
+        options.setMaxThreads(4);
+        options.setOrderedAsyncExecution(true);
+        DefaultAbsSender sender = new DefaultAbsSender(options, "token") {
+        };
+
+        int messages = 4;
+        List<CompletableFuture<Message>> futures = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            futures.add(sender.executeAsync(new SendMessage("1", "first " + i)));
+            futures.add(sender.executeAsync(new SendMessage("2", "second " + i)));
+        }
+        assertTrue(sender.awaitAsyncExecutions(10, TimeUnit.SECONDS));
+        for (CompletableFuture<Message> future : futures) {
+            assertTrue(future.isDone());
+        }
+
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        for (String text : received) {
+            (text.startsWith("first") ? first : second).add(text);
+        }
+        for (int i = 0; i < messages; i++) {
+            assertEquals("first " + i, first.get(i));
+            assertEquals("second " + i, second.get(i));
+        }
+        // Both chats were sent in parallel, each one a method at a time
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    void testMethodsWaitingForTheirChatDontHoldPermits() throws Exception {
+        DefaultBotOptions options = createOptions();
+        options.setUseAsyncHttpClient(true);
+        options.setOrderedAsyncExecution(true);
+        options.setMaxAsyncInFlight(2);
+        DefaultAbsSender sender = new DefaultAbsSender(options, "token") {
+        };
+
+        CompletableFuture<Message> slow = sender.executeAsync(new SendMessage("1", "slow"));
+        for (int i = 0; i < 3; i++) {
+            sender.executeAsync(new SendMessage("1", "queued " + i));
+        }
+        // Only the slow method to the first chat holds a permit, the other chat gets the second one
+        assertEquals("other", sender.executeAsync(new SendMessage("2", "other")).get(2, TimeUnit.SECONDS).getText());
+        assertEquals(0, sender.getInFlightLimiter().getQueued());
+
+        assertTrue(slow.cancel(false));
+        assertTrue(sender.awaitAsyncExecutions(5, TimeUnit.SECONDS));
+        // The two chats race each other, only the first chat's order is known
+        List<String> firstChat = new ArrayList<>(received);
+        assertTrue(firstChat.remove("other"));
+        assertEquals(Arrays.asList("slow", "queued 0", "queued 1", "queued 2"), firstChat);
+    }
+
+    @Test
+    void testJdkHttpTransport() throws Exception {
+        DefaultBotOptions options = createOptions();
+        options.setMaxThreads(1);
+        options.setTransportFactory(JdkHttpTransport::new);
+        DefaultAbsSender sender = new DefaultAbsSender(options, "token") {
+        };
+
+        assertEquals("sync", sender.execute(new SendMessage("1", "sync")).getText());
+        int requests = 20;
+        List<CompletableFuture<Message>> futures = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            futures.add(sender.executeAsync(new SendMessage(String.valueOf(i), "message " + i)));
+        }
+        for (int i = 0; i < requests; i++) {
+            assertEquals("message " + i, futures.get(i).get(10, TimeUnit.SECONDS).getText());
+        }
+        assertTrue(maxInFlight.get() > 1, "Max in flight " + maxInFlight.get());
+
+        // Multipart bodies are streamed to the client
+        byte[] content = new byte[100 * 1024];
+        Arrays.fill(content, (byte) 'x');
+        SendDocument sendDocument = new SendDocument("1", new InputFile(new ByteArrayInputStream(content), "document.txt"));
+        assertEquals("document", sender.executeAsync(sendDocument).get(10, TimeUnit.SECONDS).getText());
+        assertTrue(documents.get(0).contains(new String(content, StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testConnectionsArePrewarmed() throws Exception {
+        DefaultBotOptions options = createOptions();
+        DefaultAbsSender sender = new DefaultAbsSender(options, "token") {
+        };
+        assertEquals(0, sender.prewarmConnections());
+
+        options.setPrewarmConnections(3);
+        sender = new DefaultAbsSender(options, "token") {
+        };
+        assertEquals(3, sender.prewarmConnections());
+        // The pooled connections are open already
+        assertEquals(0, sender.prewarmConnections());
+        assertEquals("text", sender.execute(new SendMessage("1", "text")).getText());
+    }
+
+    @Test
+    void testPrioritiesAreKeptInSenderThreads() throws Exception {
+        DefaultBotOptions options = createOptions();
+        options.setMaxThreads(1);
+        options.setMaxAsyncInFlight(4);
+        DefaultAbsSender sender = new DefaultAbsSender(options, "token") {
+        };
+        // More methods in flight than threads would wait for the thread in arrival order
+        assertEquals(1, sender.getInFlightLimiter().getMaxInFlight());
+
+        List<CompletableFuture<Message>> futures = new ArrayList<>();
+        futures.add(sender.executeAsync(new SendMessage("1", "first"), RequestPriority.NORMAL));
+        futures.add(sender.executeAsync(new SendMessage("2", "bulk"), RequestPriority.BULK));
+        futures.add(sender.executeAsync(new SendMessage("3", "interactive"), RequestPriority.INTERACTIVE));
+        for (CompletableFuture<Message> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(Arrays.asList("first", "interactive", "bulk"), received);
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> sender.executeAsync(null, RequestPriority.NORMAL).get(1, TimeUnit.SECONDS));
+        assertInstanceOf(TelegramApiException.class, error.getCause());
+    }
+
+    @Test
+    void testDeadlineAbortsTheRequest() throws Exception {
+        DefaultBotOptions options = createOptions();
+        options.setUseAsyncHttpClient(true);
+        options.setMaxConnectionsPerRoute(1);
+        DefaultAbsSender sender = new DefaultAbsSender(options, "token") {
+        };
+        AsyncExecutionOptions executionOptions = new AsyncExecutionOptions();
+        executionOptions.setTimeout(100);
+
+        CompletableFuture<Message> slow = sender.executeAsync(new SendMessage("1", "slow"), executionOptions);
+        ExecutionException error = assertThrows(ExecutionException.class, () -> slow.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(TelegramApiException.class, error.getCause());
+        assertInstanceOf(TimeoutException.class, error.getCause().getCause());
+
+        // The only connection was released by the aborted request
+        assertEquals("fast", sender.executeAsync(new SendMessage("1", "fast")).get(2, TimeUnit.SECONDS).getText());
+        assertTrue(sender.awaitAsyncExecutions(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testBlockingRequestsAreAborted() throws Exception {
+        DefaultBotOptions options = createOptions();
+        options.setMaxThreads(2);
+        options.setMaxConnectionsPerRoute(1);
+        DefaultAbsSender sender = new DefaultAbsSender(options, "token") {
+        };
+
+        CompletableFuture<Message> cancelled = sender.executeAsync(new SendMessage("1", "slow"));
+        awaitInFlight();
+        assertTrue(cancelled.cancel(false));
+        // The only connection of the pool was released by the aborted request
+        assertEquals("fast", sender.executeAsync(new SendMessage("1", "fast")).get(2, TimeUnit.SECONDS).getText());
+
+        AsyncExecutionOptions executionOptions = new AsyncExecutionOptions();
+        executionOptions.setTimeout(500);
+        CompletableFuture<Message> late = sender.executeAsync(new SendMessage("1", "slow"), executionOptions);
+        ExecutionException error = assertThrows(ExecutionException.class, () -> late.get(2, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, error.getCause().getCause());
+        assertEquals("fast", sender.executeAsync(new SendMessage("1", "fast")).get(2, TimeUnit.SECONDS).getText());
+        assertTrue(sender.awaitAsyncExecutions(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testUploadsHaveExecutionOptions() throws Exception {
+        DefaultAbsSender sender = new DefaultAbsSender(createOptions(), "token") {
+        };
+        AsyncExecutionOptions executionOptions = new AsyncExecutionOptions();
+        executionOptions.setTimeout(5000);
+
+        SendDocument sendDocument = new SendDocument("1", new InputFile(new ByteArrayInputStream(new byte[]{'x'}), "document.txt"));
+        assertEquals("document", sender.executeAsync(sendDocument, executionOptions).get(5, TimeUnit.SECONDS).getText());
+        assertEquals(1, documents.size());
+    }
+
+    @Test
+    void testCancelledMethodsAreAborted() throws Exception {
+        DefaultBotOptions options = createOptions();
+        options.setUseAsyncHttpClient(true);
+        options.setMaxConnectionsPerRoute(1);
+        options.setMaxAsyncInFlight(1);
+        DefaultAbsSender sender = new DefaultAbsSender(options, "token") {
+        };
+
+        CompletableFuture<Message> slow = sender.executeAsync(new SendMessage("1", "slow"));
+        CompletableFuture<Message> queued = sender.executeAsync(new SendMessage("1", "queued"));
+        Thread.sleep(100);
+        assertTrue(queued.cancel(false));
+        assertTrue(slow.cancel(false));
+
+        assertEquals("fast", sender.executeAsync(new SendMessage("1", "fast")).get(2, TimeUnit.SECONDS).getText());
+        assertTrue(sender.awaitAsyncExecutions(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("slow", "fast"), received);
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (inFlight.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, inFlight.get());
+    }
+
+    private DefaultBotOptions createOptions() {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl("http://localhost:" + server.getAddress().getPort() + "/bot");
+        return options;
+    }
+}
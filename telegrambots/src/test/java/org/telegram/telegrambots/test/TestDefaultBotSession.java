@@ -15,15 +15,21 @@ import org.mockito.Mockito;
 import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
 import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.UpdateType;
 import org.telegram.telegrambots.meta.generics.BackOff;
 import org.telegram.telegrambots.meta.generics.LongPollingBot;
+import org.telegram.telegrambots.meta.generics.OffsetStore;
 import org.telegram.telegrambots.test.Fakes.FakeLongPollingBot;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 import org.telegram.telegrambots.updatesreceivers.ExponentialBackOff;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
@@ -141,6 +147,153 @@ public class TestDefaultBotSession {
         session.stop();
     }
 
+    /**
+     * Stopping the session waits for the updates already received to be handled before closing the bot
+     */
+    @Test
+    public void testStopDrainsReceivedUpdates() throws Exception {
+        List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger handledWhenClosing = new AtomicInteger(-1);
+        CountDownLatch firstHandled = new CountDownLatch(1);
+        LongPollingBot bot = new FakeLongPollingBot() {
+            @Override
+            public void onUpdateReceived(Update update) {
+                firstHandled.countDown();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                handled.add(update.getUpdateId());
+            }
+
+            @Override
+            public void onClosing() {
+                handledWhenClosing.set(handled.size());
+            }
+        };
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setShutdownDrainTimeout(5000);
+        session = new DefaultBotSession();
+        session.setCallback(bot);
+        session.setOptions(options);
+        AtomicInteger flag = new AtomicInteger();
+        Update[] updates = createFakeUpdates(9);
+        session.setUpdatesSupplier(createFakeUpdatesSupplier(flag, updates));
+        session.start();
+        flag.set(5);
+        Assert.assertTrue(firstHandled.await(5, TimeUnit.SECONDS));
+        session.stop();
+        Assert.assertEquals(Arrays.asList(5, 6, 7, 8), handled);
+        Assert.assertEquals(4, handledWhenClosing.get());
+    }
+
+    /**
+     * A priority update goes ahead of other chats' updates, but not of the updates of its chat received before it
+     */
+    @Test
+    public void testPriorityUpdatesKeepTheirChatOrder() throws Exception {
+        Update message = createFakeUpdate(0, UpdateType.MESSAGE);
+        Update sameChatCallback = createFakeUpdate(1, UpdateType.CALLBACK_QUERY);
+        Update otherChatCallback = createFakeUpdate(2, UpdateType.CALLBACK_QUERY);
+        List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch messageReleased = new CountDownLatch(1);
+        CountDownLatch allHandled = new CountDownLatch(3);
+        LongPollingBot bot = new FakeLongPollingBot() {
+            @Override
+            public void onUpdateReceived(Update update) {
+                try {
+                    if (update == message) {
+                        messageReleased.await(5, TimeUnit.SECONDS);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                handled.add(update.getUpdateId());
+                allHandled.countDown();
+            }
+        };
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setUpdatesHandlerParallelism(2);
+        options.setPriorityUpdateTypes(Collections.singleton(UpdateType.CALLBACK_QUERY));
+        options.setUpdateKeyExtractor(update -> update == otherChatCallback ? "other" : "chat");
+        session = new DefaultBotSession();
+        session.setCallback(bot);
+        session.setOptions(options);
+        AtomicInteger flag = new AtomicInteger(1);
+        session.setUpdatesSupplier(() -> flag.compareAndSet(1, 2)
+                ? Arrays.asList(message, sameChatCallback, otherChatCallback) : Collections.emptyList());
+        session.start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (handled.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(100);
+        Assert.assertEquals(Collections.singletonList(2), handled);
+
+        messageReleased.countDown();
+        Assert.assertTrue(allHandled.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(2, 0, 1), handled);
+    }
+
+    /**
+     * With an offset store, polling goes on while an update is handled and the offset is stored once it is
+     */
+    @Test
+    public void testOffsetIsStoredWithoutBlockingPolling() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch secondPolled = new CountDownLatch(1);
+        List<Integer> stored = Collections.synchronizedList(new ArrayList<>());
+        LongPollingBot bot = new FakeLongPollingBot() {
+            @Override
+            public void onUpdateReceived(Update update) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setOffsetStore(new OffsetStore() {
+            @Override
+            public int load() {
+                return 0;
+            }
+
+            @Override
+            public void store(int updateId) {
+                stored.add(updateId);
+            }
+        });
+        session = new DefaultBotSession();
+        session.setCallback(bot);
+        session.setOptions(options);
+        Update[] updates = createFakeUpdates(3);
+        AtomicInteger polls = new AtomicInteger();
+        session.setUpdatesSupplier(() -> {
+            int poll = polls.incrementAndGet();
+            if (poll == 1) {
+                return new ArrayList<>(Arrays.asList(updates[1]));
+            } else if (poll == 2) {
+                secondPolled.countDown();
+                return new ArrayList<>(Arrays.asList(updates[2]));
+            }
+            return new ArrayList<>();
+        });
+        session.start();
+        Assert.assertTrue(secondPolled.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(stored.isEmpty());
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!stored.contains(2) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(2, stored.get(stored.size() - 1).intValue());
+    }
+
     @Test
     public void testDefaultBotSessionWithCustomExponentialBackOff() {
         ExponentialBackOff ex = new ExponentialBackOff.Builder()
@@ -173,6 +326,14 @@ public class TestDefaultBotSession {
         }).toArray(Update[]::new);
     }
 
+    private Update createFakeUpdate(int updateId, UpdateType type) {
+        Update mock = Mockito.mock(Update.class);
+        Mockito.when(mock.getUpdateId()).thenReturn(updateId);
+        Mockito.when(mock.hasMessage()).thenReturn(type == UpdateType.MESSAGE);
+        Mockito.when(mock.hasCallbackQuery()).thenReturn(type == UpdateType.CALLBACK_QUERY);
+        return mock;
+    }
+
     private DefaultBotSession.UpdatesSupplier createFakeUpdatesSupplier(AtomicInteger flag, Update[] updates) {
         return () -> {
             if (flag.compareAndSet(1, 2)) {
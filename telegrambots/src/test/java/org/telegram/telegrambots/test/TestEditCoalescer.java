@@ -0,0 +1,101 @@
+package org.telegram.telegrambots.test;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.facilities.coalescing.EditCoalescedException;
+import org.telegram.telegrambots.facilities.coalescing.EditCoalescer;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageReplyMarkup;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for EditCoalescer
+ */
+class TestEditCoalescer {
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void testOnlyLatestWaitingEditIsSent() throws Exception {
+        EditCoalescer coalescer = new EditCoalescer(10, scheduler);
+        CompletableFuture<String> first = new CompletableFuture<>();
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        results.add(coalescer.submit("message", () -> send("edit 0", first)));
+        for (int i = 1; i < 4; i++) {
+            String text = "edit " + i;
+            results.add(coalescer.submit("message", () -> send(text, CompletableFuture.completedFuture(text))));
+        }
+        assertEquals(1, sent.size());
+
+        long start = System.nanoTime();
+        first.complete("edit 0");
+        assertEquals("edit 0", results.get(0).get(1, TimeUnit.SECONDS));
+        assertEquals("edit 3", results.get(3).get(1, TimeUnit.SECONDS));
+        for (int i = 1; i < 3; i++) {
+            ExecutionException error = assertThrows(ExecutionException.class, results.get(i)::get);
+            assertInstanceOf(EditCoalescedException.class, error.getCause());
+        }
+        assertEquals(2, sent.size());
+        assertEquals("edit 3", sent.get(1));
+        assertEquals(2, coalescer.getCoalesced());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    void testEditsOfTheSameMessageAreSpaced() throws Exception {
+        EditCoalescer coalescer = new EditCoalescer(10, scheduler);
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            String text = "edit " + i;
+            coalescer.submit("message", () -> send(text, CompletableFuture.completedFuture(text))).get(1, TimeUnit.SECONDS);
+        }
+        // The first one is sent right away, the next ones 100ms after the previous one
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(3, sent.size());
+        assertEquals(0, coalescer.getCoalesced());
+
+        coalescer.submit("other message", () -> send("other", CompletableFuture.completedFuture("other")));
+        assertEquals(4, sent.size());
+    }
+
+    @Test
+    void testKeysAreByMethodAndMessage() {
+        EditMessageText text = EditMessageText.builder().chatId("1").messageId(1).text("text").build();
+        EditMessageText otherMessage = EditMessageText.builder().chatId("1").messageId(2).text("text").build();
+        EditMessageReplyMarkup markup = EditMessageReplyMarkup.builder().chatId("1").messageId(1).build();
+        EditMessageText inline = EditMessageText.builder().inlineMessageId("inline").text("text").build();
+
+        assertEquals(EditCoalescer.getKey(text), EditCoalescer.getKey(EditMessageText.builder().chatId("1").messageId(1).text("new").build()));
+        assertNotEquals(EditCoalescer.getKey(text), EditCoalescer.getKey(otherMessage));
+        assertNotEquals(EditCoalescer.getKey(text), EditCoalescer.getKey(markup));
+        assertEquals("editmessagetext:inline", EditCoalescer.getKey(inline));
+        assertNull(EditCoalescer.getKey(new SendMessage("1", "text")));
+    }
+
+    private CompletableFuture<String> send(String text, CompletableFuture<String> result) {
+        sent.add(text);
+        return result;
+    }
+}
@@ -0,0 +1,36 @@
+package org.telegram.telegrambots.test;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.telegram.telegrambots.updatesreceivers.FileOffsetStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Test for FileOffsetStore
+ */
+class TestFileOffsetStore {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testLoadWithoutFileReturnsZero() throws IOException {
+        FileOffsetStore store = new FileOffsetStore(tempDir.resolve("offset"));
+        assertEquals(0, store.load());
+    }
+
+    @Test
+    void testStoredOffsetIsLoadedByNewInstance() throws IOException {
+        Path file = tempDir.resolve("bot").resolve("offset");
+        new FileOffsetStore(file).store(1234);
+        new FileOffsetStore(file).store(5678);
+
+        assertEquals(5678, new FileOffsetStore(file).load());
+        assertFalse(Files.exists(tempDir.resolve("bot").resolve("offset.tmp")));
+    }
+}
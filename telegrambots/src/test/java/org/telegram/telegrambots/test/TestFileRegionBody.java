@@ -0,0 +1,119 @@
+package org.telegram.telegrambots.test;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.entity.ContentType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.telegram.telegrambots.bots.DefaultAbsSender;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.facilities.transport.FileRegionBody;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for FileRegionBody, alone and in DefaultAbsSender
+ */
+class TestFileRegionBody {
+    private static final String CONTENT = "header|file content|footer";
+
+    @TempDir
+    File folder;
+
+    @Test
+    void testRegionIsWritten() throws IOException {
+        try (FileChannel channel = openFile()) {
+            FileRegionBody body = new FileRegionBody(channel, 7, 12, ContentType.APPLICATION_OCTET_STREAM, "file.txt");
+            assertEquals(12, body.getContentLength());
+            assertEquals("file content", write(body));
+            // The position of the channel is not used, so the region can be written again
+            assertEquals("file content", write(body));
+            assertEquals(0, channel.position());
+
+            File copy = new File(folder, "copy.txt");
+            try (FileChannel target = FileChannel.open(copy.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                body.writeTo(target);
+            }
+            assertEquals("file content", new String(Files.readAllBytes(copy.toPath()), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testBufferIsWritten() throws IOException {
+        try (FileChannel channel = openFile()) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 7, 12);
+            FileRegionBody body = new FileRegionBody(mapped, ContentType.APPLICATION_OCTET_STREAM, "file.txt");
+            assertEquals("file content", write(body));
+            assertEquals("file content", write(body));
+            assertEquals(0, mapped.position());
+        }
+        ByteBuffer heap = ByteBuffer.wrap(CONTENT.getBytes(StandardCharsets.UTF_8));
+        heap.position(7);
+        heap.limit(19);
+        assertEquals("file content", write(new FileRegionBody(heap, ContentType.APPLICATION_OCTET_STREAM, "file.txt")));
+    }
+
+    @Test
+    void testSenderUploadsRegions() throws Exception {
+        List<String> requests = new CopyOnWriteArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.add(new String(IOUtils.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8));
+            byte[] bytes = "{\"ok\":true,\"result\":{\"message_id\":1,\"date\":0,\"chat\":{\"id\":1,\"type\":\"private\"}}}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+        try (FileChannel channel = openFile()) {
+            DefaultBotOptions options = new DefaultBotOptions();
+            options.setBaseUrl("http://localhost:" + server.getAddress().getPort() + "/bot");
+            DefaultAbsSender sender = new DefaultAbsSender(options, "token") {
+            };
+
+            for (int i = 0; i < 2; i++) {
+                sender.execute(new SendDocument(String.valueOf(i), new InputFile(channel, 7, 12, "file.txt")));
+            }
+            assertEquals(2, requests.size());
+            for (String request : requests) {
+                assertTrue(request.contains("filename=\"file.txt\""));
+                assertTrue(request.contains("file content"));
+                assertFalse(request.contains("header"));
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private FileChannel openFile() throws IOException {
+        File file = new File(folder, "file.txt");
+        Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+        return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    }
+
+    private static String write(FileRegionBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,198 @@
+package org.telegram.telegrambots.test;
+
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.facilities.inflight.InFlightLimiter;
+import org.telegram.telegrambots.facilities.inflight.OverflowPolicy;
+import org.telegram.telegrambots.facilities.inflight.QueueFullException;
+import org.telegram.telegrambots.facilities.inflight.RequestPriority;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for InFlightLimiter
+ */
+class TestInFlightLimiter {
+    private final List<CompletableFuture<Integer>> running = new ArrayList<>();
+
+    @Test
+    void testTasksOverTheLimitAreQueued() throws Exception {
+        InFlightLimiter limiter = new InFlightLimiter(2, 10, OverflowPolicy.FAIL);
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(limiter.submit(this::startTask));
+        }
+        assertEquals(2, running.size());
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(3, limiter.getQueued());
+
+        for (int i = 0; i < 5; i++) {
+            running.get(i).complete(i);
+            assertEquals(i, results.get(i).get(1, TimeUnit.SECONDS));
+        }
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    void testNewTasksFailWhenTheQueueIsFull() throws Exception {
+        InFlightLimiter limiter = new InFlightLimiter(1, 1, OverflowPolicy.FAIL);
+        limiter.submit(this::startTask);
+        CompletableFuture<Integer> queued = limiter.submit(this::startTask);
+        CompletableFuture<Integer> rejected = limiter.submit(this::startTask);
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(QueueFullException.class, error.getCause());
+        assertEquals(1, limiter.getRejected());
+        assertFalse(queued.isDone());
+    }
+
+    @Test
+    void testOldestTasksAreDroppedWhenTheQueueIsFull() throws Exception {
+        InFlightLimiter limiter = new InFlightLimiter(1, 1, OverflowPolicy.DROP_OLDEST);
+        limiter.submit(this::startTask);
+        CompletableFuture<Integer> oldest = limiter.submit(this::startTask);
+        CompletableFuture<Integer> newest = limiter.submit(this::startTask);
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> oldest.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(QueueFullException.class, error.getCause());
+        assertEquals(1, limiter.getDropped());
+
+        running.get(0).complete(0);
+        running.get(1).complete(2);
+        assertEquals(2, newest.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testCallerWaitsWhenTheQueueIsFull() throws Exception {
+        InFlightLimiter limiter = new InFlightLimiter(1, 1, OverflowPolicy.BLOCK);
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        limiter.submit(() -> first);
+        limiter.submit(() -> CompletableFuture.completedFuture(2));
+
+        CountDownLatch submitted = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            try {
+                limiter.submit(() -> CompletableFuture.completedFuture(3));
+                submitted.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+
+        first.complete(1);
+        assertTrue(submitted.await(1, TimeUnit.SECONDS));
+        thread.join();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testCallbacksDontWaitForRoomInTheQueue() throws Exception {
+        InFlightLimiter limiter = new InFlightLimiter(1, 1, OverflowPolicy.BLOCK);
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        List<CompletableFuture<Integer>> fromCallback = new ArrayList<>();
+        limiter.submit(() -> first).whenComplete((result, error) -> {
+            try {
+                // The second one finds the queue full, and waiting would hold this thread completing the first task
+                fromCallback.add(limiter.submit(this::startTask));
+                fromCallback.add(limiter.submit(this::startTask));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        limiter.submit(this::startTask);
+
+        first.complete(1);
+        assertEquals(2, fromCallback.size());
+        assertFalse(fromCallback.get(0).isDone());
+        ExecutionException error = assertThrows(ExecutionException.class, () -> fromCallback.get(1).get(1, TimeUnit.SECONDS));
+        assertInstanceOf(QueueFullException.class, error.getCause());
+        assertEquals(1, limiter.getRejected());
+        assertEquals(1, limiter.getQueued());
+    }
+
+    @Test
+    void testHigherClassesAreStartedFirst() throws Exception {
+        InFlightLimiter limiter = new InFlightLimiter(1, 10, OverflowPolicy.FAIL, 60_000);
+        List<String> started = new ArrayList<>();
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        limiter.submit(() -> first);
+        for (RequestPriority priority : new RequestPriority[]{RequestPriority.BULK, RequestPriority.NORMAL, RequestPriority.INTERACTIVE}) {
+            for (int i = 0; i < 2; i++) {
+                String name = priority + " " + i;
+                limiter.submit(priority, () -> {
+                    started.add(name);
+                    return CompletableFuture.completedFuture(0);
+                });
+            }
+        }
+        assertEquals(2, limiter.getQueued(RequestPriority.INTERACTIVE));
+
+        first.complete(0);
+        assertEquals(Arrays.asList("INTERACTIVE 0", "INTERACTIVE 1", "NORMAL 0", "NORMAL 1", "BULK 0", "BULK 1"), started);
+        assertEquals(2, limiter.getQueueTime(RequestPriority.BULK).getCount());
+        assertEquals(3, limiter.getQueueTime(RequestPriority.NORMAL).getCount());
+    }
+
+    @Test
+    void testWaitingClassesAreAged() throws Exception {
+        InFlightLimiter limiter = new InFlightLimiter(1, 10, OverflowPolicy.FAIL, 50);
+        List<RequestPriority> started = new ArrayList<>();
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        limiter.submit(() -> first);
+        limiter.submit(RequestPriority.BULK, () -> {
+            started.add(RequestPriority.BULK);
+            return CompletableFuture.completedFuture(0);
+        });
+        // Waiting 4 aging intervals moves bulk methods ahead of interactive ones that just arrived
+        Thread.sleep(200);
+        limiter.submit(RequestPriority.INTERACTIVE, () -> {
+            started.add(RequestPriority.INTERACTIVE);
+            return CompletableFuture.completedFuture(0);
+        });
+
+        first.complete(0);
+        assertEquals(Arrays.asList(RequestPriority.BULK, RequestPriority.INTERACTIVE), started);
+        assertTrue(limiter.getQueueTime(RequestPriority.BULK).getMax(TimeUnit.MILLISECONDS) >= 200);
+    }
+
+    @Test
+    void testLowerClassesAreDroppedFirst() throws Exception {
+        InFlightLimiter limiter = new InFlightLimiter(1, 1, OverflowPolicy.DROP_OLDEST);
+        limiter.submit(this::startTask);
+        CompletableFuture<Integer> interactive = limiter.submit(RequestPriority.INTERACTIVE, this::startTask);
+        CompletableFuture<Integer> bulk = limiter.submit(RequestPriority.BULK, this::startTask);
+
+        // The new bulk task is the lowest one
+        ExecutionException error = assertThrows(ExecutionException.class, () -> bulk.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(QueueFullException.class, error.getCause());
+        assertEquals(1, limiter.getDropped());
+        assertFalse(interactive.isDone());
+
+        CompletableFuture<Integer> newerInteractive = limiter.submit(RequestPriority.INTERACTIVE, this::startTask);
+        error = assertThrows(ExecutionException.class, () -> interactive.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(QueueFullException.class, error.getCause());
+        assertEquals(2, limiter.getDropped());
+        assertEquals(0, limiter.getRejected());
+        assertFalse(newerInteractive.isDone());
+    }
+
+    private CompletableFuture<Integer> startTask() {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        running.add(future);
+        return future;
+    }
+}
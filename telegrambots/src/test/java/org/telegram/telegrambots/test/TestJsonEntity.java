@@ -0,0 +1,70 @@
+package org.telegram.telegrambots.test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.facilities.transport.JsonEntity;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for JsonEntity
+ */
+class TestJsonEntity {
+    @Test
+    void testEntityIsTheJsonOfTheMethod() throws IOException {
+        List<List<InlineKeyboardButton>> keyboard = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            keyboard.add(Collections.singletonList(InlineKeyboardButton.builder().text("Button " + i).callbackData("data" + i).build()));
+        }
+        SendMessage sendMessage = new SendMessage("1", "text");
+        sendMessage.setReplyMarkup(new InlineKeyboardMarkup(keyboard));
+        byte[] expected = new ObjectMapper().writeValueAsBytes(sendMessage);
+
+        JsonEntity entity = new JsonEntity(sendMessage);
+        assertEquals("application/json; charset=UTF-8", entity.getContentType().getValue());
+        assertTrue(entity.isRepeatable());
+        assertEquals(expected.length, entity.getContentLength());
+        for (int i = 0; i < 2; i++) {
+            ClosingCheckOutputStream out = new ClosingCheckOutputStream();
+            entity.writeTo(out);
+            assertArrayEquals(expected, out.toByteArray());
+            assertFalse(out.closed);
+        }
+        assertArrayEquals(expected, IOUtils.toByteArray(entity.getContent()));
+    }
+
+    @Test
+    void testSerializationErrorsAreThrownWhenTheEntityIsCreated() {
+        assertThrows(JsonProcessingException.class, () -> new JsonEntity(new Unserializable()));
+    }
+
+    private static class ClosingCheckOutputStream extends ByteArrayOutputStream {
+        private boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static class Unserializable {
+        public String getValue() {
+            throw new IllegalStateException("Not serializable");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.telegram.telegrambots.test;
+
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.facilities.KeyedExecutor;
+import org.telegram.telegrambots.facilities.inflight.QueueFullException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for KeyedExecutor
+ */
+class TestKeyedExecutor {
+    @Test
+    void testTasksWithTheSameKeyRunInOrder() throws Exception {
+        KeyedExecutor executor = new KeyedExecutor(10);
+        List<CompletableFuture<Integer>> running = new ArrayList<>();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(executor.submit("chat", () -> {
+                CompletableFuture<Integer> future = new CompletableFuture<>();
+                running.add(future);
+                return future;
+            }));
+        }
+        // Other keys don't wait
+        CompletableFuture<Integer> otherChat = new CompletableFuture<>();
+        executor.submit("other", () -> otherChat);
+        assertEquals(2, executor.getActiveKeys());
+        assertEquals(2, executor.getQueuedTasks());
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i + 1, running.size());
+            running.get(i).complete(i);
+            assertEquals(i, results.get(i).get(1, TimeUnit.SECONDS));
+        }
+        otherChat.complete(0);
+        assertEquals(0, executor.getActiveKeys());
+    }
+
+    @Test
+    void testFailedTasksDontStopTheQueue() throws Exception {
+        KeyedExecutor executor = new KeyedExecutor(10);
+        CompletableFuture<Integer> failed = executor.submit("chat", () -> {
+            throw new IllegalStateException("Failed");
+        });
+        CompletableFuture<Integer> next = executor.submit("chat", () -> CompletableFuture.completedFuture(1));
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals(1, next.get(1, TimeUnit.SECONDS));
+        assertEquals(0, executor.getActiveKeys());
+    }
+
+    @Test
+    void testFullQueuesFailNewTasks() throws Exception {
+        KeyedExecutor executor = new KeyedExecutor(1);
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        executor.submit("chat", () -> first);
+        CompletableFuture<Integer> queued = executor.submit("chat", () -> CompletableFuture.completedFuture(2));
+
+        // Fails without blocking the caller, other keys are not affected
+        CompletableFuture<Integer> rejected = executor.submit("chat", () -> CompletableFuture.completedFuture(3));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(QueueFullException.class, error.getCause());
+        assertEquals(1, executor.getRejected());
+        assertEquals(4, executor.submit("other", () -> CompletableFuture.completedFuture(4)).get(1, TimeUnit.SECONDS));
+
+        first.complete(1);
+        assertEquals(2, queued.get(1, TimeUnit.SECONDS));
+        assertEquals(0, executor.getActiveKeys());
+    }
+}
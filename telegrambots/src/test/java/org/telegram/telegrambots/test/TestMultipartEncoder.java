@@ -0,0 +1,209 @@
+package org.telegram.telegrambots.test;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.http.HttpEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.telegram.telegrambots.facilities.transport.MultipartEncoder;
+import org.telegram.telegrambots.meta.api.methods.PartialBotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendMediaGroup;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.methods.stickers.AddStickerToSet;
+import org.telegram.telegrambots.meta.api.methods.stickers.CreateNewStickerSet;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.media.InputMedia;
+import org.telegram.telegrambots.meta.api.objects.media.InputMediaPhoto;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+import org.telegram.telegrambots.meta.api.objects.stickers.InputSticker;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for MultipartEncoder
+ */
+class TestMultipartEncoder {
+    private static final Pattern PART_NAME = Pattern.compile("name=\"([^\"]*)\"");
+
+    @TempDir
+    File folder;
+
+    @Test
+    void testFieldsAndFilesAreEncoded() throws IOException {
+        SendDocument sendDocument = new SendDocument("1", new InputFile(createFile("document.txt", "document content")));
+        sendDocument.setThumbnail(new InputFile(createFile("thumbnail.jpg", "thumbnail content")));
+        sendDocument.setCaption("caption");
+        sendDocument.setDisableNotification(true);
+        sendDocument.setReplyToMessageId(10);
+        sendDocument.setReplyMarkup(new InlineKeyboardMarkup(Collections.singletonList(
+                Collections.singletonList(InlineKeyboardButton.builder().text("button").callbackData("data").build()))));
+
+        HttpEntity entity = MultipartEncoder.encode(sendDocument);
+        Map<String, String> parts = readParts(entity);
+
+        assertEquals("1", parts.get("chat_id"));
+        assertEquals("attach://document.txt", parts.get("document"));
+        assertEquals("document content", parts.get("document.txt"));
+        assertEquals("attach://thumbnail.jpg", parts.get("thumbnail"));
+        assertEquals("thumbnail content", parts.get("thumbnail.jpg"));
+        assertEquals("caption", parts.get("caption"));
+        assertEquals("true", parts.get("disable_notification"));
+        assertEquals("10", parts.get("reply_to_message_id"));
+        assertEquals("{\"inline_keyboard\":[[{\"text\":\"button\",\"callback_data\":\"data\"}]]}", parts.get("reply_markup"));
+        // Null fields are not sent
+        assertEquals(9, parts.size(), parts.keySet().toString());
+        assertTrue(entity.isRepeatable());
+    }
+
+    @Test
+    void testParseModeIsOnlySentWithACaption() throws IOException {
+        SendPhoto sendPhoto = new SendPhoto("1", new InputFile("file_id"));
+        sendPhoto.setParseMode("HTML");
+        sendPhoto.setCaptionEntities(Collections.emptyList());
+
+        Map<String, String> parts = readParts(MultipartEncoder.encode(sendPhoto));
+        assertFalse(parts.containsKey("parse_mode"));
+        assertEquals("[]", parts.get("caption_entities"));
+
+        sendPhoto.setCaption("caption");
+        assertEquals("HTML", readParts(MultipartEncoder.encode(sendPhoto)).get("parse_mode"));
+    }
+
+    @Test
+    void testMediaAreEncoded() throws IOException {
+        List<InputMedia> medias = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            InputMediaPhoto photo = new InputMediaPhoto();
+            photo.setMedia(createFile("photo" + i + ".jpg", "photo " + i), "photo" + i + ".jpg");
+            medias.add(photo);
+        }
+        medias.add(new InputMediaPhoto("file_id"));
+        SendMediaGroup sendMediaGroup = new SendMediaGroup("1", medias);
+
+        Map<String, String> parts = readParts(MultipartEncoder.encode(sendMediaGroup));
+
+        assertEquals("photo 0", parts.get("photo0.jpg"));
+        assertEquals("photo 1", parts.get("photo1.jpg"));
+        assertTrue(parts.get("media").contains("\"media\":\"attach://photo0.jpg\""));
+        assertTrue(parts.get("media").contains("\"media\":\"file_id\""));
+        assertEquals(4, parts.size(), parts.keySet().toString());
+    }
+
+    @Test
+    void testStickersAreEncoded() throws IOException {
+        InputSticker sticker = new InputSticker(new InputFile(createFile("sticker.png", "sticker")), Arrays.asList("😀"), null, Collections.emptyList());
+        CreateNewStickerSet createNewStickerSet = CreateNewStickerSet.builder()
+                .userId(1L).name("name").title("title").stickerFormat("static").emojis("😀")
+                .sticker(sticker)
+                .build();
+
+        Map<String, String> parts = readParts(MultipartEncoder.encode(createNewStickerSet));
+
+        assertEquals("1", parts.get("user_id"));
+        assertEquals("regular", parts.get("sticker_type"));
+        assertEquals("sticker", parts.get("sticker.png"));
+        assertTrue(parts.get("stickers").startsWith("[{\"sticker\":\"attach://sticker.png\""));
+        assertFalse(parts.containsKey("png_sticker"));
+    }
+
+    @Test
+    void testAddedStickerIsAList() throws IOException {
+        InputSticker sticker = new InputSticker(new InputFile(createFile("sticker.png", "sticker")), Arrays.asList("😀"), null, Collections.emptyList());
+        AddStickerToSet addStickerToSet = AddStickerToSet.builder().userId(1L).name("name").emojis("😀").sticker(sticker).build();
+
+        Map<String, String> parts = readParts(MultipartEncoder.encode(addStickerToSet));
+
+        assertEquals("sticker", parts.get("sticker.png"));
+        assertTrue(parts.get("sticker").startsWith("[{\"sticker\":\"attach://sticker.png\""));
+        // Deprecated fields are only sent without a sticker
+        assertFalse(parts.containsKey("emojis"));
+    }
+
+    @Test
+    void testNewMethodsAreEncodedFromTheirFields() throws IOException {
+        SendSomething sendSomething = new SendSomething();
+        sendSomething.chatId = "1";
+        sendSomething.something = new InputFile(createFile("something.txt", "something"));
+        sendSomething.caption = "caption";
+        sendSomething.unknownField = "not sent";
+
+        Map<String, String> parts = readParts(MultipartEncoder.encode(sendSomething));
+
+        assertEquals("1", parts.get("chat_id"));
+        assertEquals("attach://something.txt", parts.get("something"));
+        assertEquals("something", parts.get("something.txt"));
+        assertEquals("caption", parts.get("custom_caption"));
+        assertEquals(4, parts.size(), parts.keySet().toString());
+        // Methods without files are sent as JSON
+        assertFalse(MultipartEncoder.canEncode(new SetWebhook()));
+        assertFalse(MultipartEncoder.canEncode(new SendMessage()));
+    }
+
+    private File createFile(String name, String content) throws IOException {
+        File file = new File(folder, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static class SendSomething extends PartialBotApiMethod<Message> {
+        public static final String CHATID_FIELD = "chat_id";
+        public static final String SOMETHING_FIELD = "something";
+        public static final String CAPTION_FIELD = "custom_caption";
+
+        private String chatId;
+        private InputFile something;
+        @JsonProperty(CAPTION_FIELD)
+        private String caption;
+        private String unknownField;
+
+        @Override
+        public Message deserializeResponse(String answer) throws TelegramApiRequestException {
+            return deserializeResponse(answer, Message.class);
+        }
+
+        @Override
+        public String getMethod() {
+            return "sendsomething";
+        }
+
+        @Override
+        public void validate() {
+        }
+    }
+
+    private static Map<String, String> readParts(HttpEntity entity) throws IOException {
+        String boundary = entity.getContentType().getValue().replaceAll(".*boundary=([^;]+).*", "$1");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        Map<String, String> parts = new LinkedHashMap<>();
+        for (String part : new String(out.toByteArray(), StandardCharsets.UTF_8).split("--" + boundary)) {
+            int body = part.indexOf("\r\n\r\n");
+            Matcher name = PART_NAME.matcher(part);
+            if (body >= 0 && name.find()) {
+                parts.put(name.group(1), part.substring(body + 4, part.length() - 2));
+            }
+        }
+        return parts;
+    }
+}
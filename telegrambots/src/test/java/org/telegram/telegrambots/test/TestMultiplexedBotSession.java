@@ -0,0 +1,108 @@
+package org.telegram.telegrambots.test;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.test.Fakes.FakeLongPollingBot;
+import org.telegram.telegrambots.updatesreceivers.LongPollingMultiplexer;
+import org.telegram.telegrambots.updatesreceivers.MultiplexedBotSession;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for MultiplexedBotSession
+ */
+class TestMultiplexedBotSession {
+    private HttpServer server;
+    private LongPollingMultiplexer multiplexer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Every bot gets two updates, identified by its token, and then empty responses
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String token = path.substring(path.indexOf("bot") + 3, path.lastIndexOf('/'));
+            String body = new String(IOUtils.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8);
+            String response;
+            if (body.matches(".*\"offset\":1[,}].*")) {
+                int id = Integer.parseInt(token) * 10;
+                response = "{\"ok\":true,\"result\":[{\"update_id\":" + (id + 1) + "},{\"update_id\":" + (id + 2) + "}]}";
+            } else {
+                response = "{\"ok\":true,\"result\":[]}";
+            }
+            byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+        multiplexer = new LongPollingMultiplexer(1, 2, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testBotsShareTheMultiplexer() throws InterruptedException {
+        int bots = 20;
+        CountDownLatch latch = new CountDownLatch(bots * 2);
+        List<MultiplexedBotSession> sessions = new ArrayList<>();
+        List<List<Integer>> received = new ArrayList<>();
+        for (int i = 1; i <= bots; i++) {
+            List<Integer> updateIds = Collections.synchronizedList(new ArrayList<>());
+            received.add(updateIds);
+            MultiplexedBotSession session = new MultiplexedBotSession(multiplexer);
+            session.setOptions(createOptions());
+            session.setToken(String.valueOf(i));
+            session.setCallback(new FakeLongPollingBot() {
+                @Override
+                public void onUpdateReceived(Update update) {
+                    updateIds.add(update.getUpdateId());
+                    latch.countDown();
+                }
+            });
+            session.start();
+            sessions.add(session);
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(bots, multiplexer.getSessions());
+        for (int i = 0; i < bots; i++) {
+            int id = (i + 1) * 10;
+            assertEquals(Arrays.asList(id + 1, id + 2), received.get(i));
+        }
+
+        for (MultiplexedBotSession session : sessions) {
+            session.stop();
+        }
+        assertEquals(0, multiplexer.getSessions());
+    }
+
+    private DefaultBotOptions createOptions() {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl("http://localhost:" + server.getAddress().getPort() + "/bot");
+        options.setGetUpdatesTimeout(0);
+        return options;
+    }
+}
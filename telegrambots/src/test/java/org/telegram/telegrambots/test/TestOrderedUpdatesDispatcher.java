@@ -0,0 +1,94 @@
+package org.telegram.telegrambots.test;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.test.Fakes.FakeLongPollingBot;
+import org.telegram.telegrambots.updatesreceivers.OrderedUpdatesDispatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for OrderedUpdatesDispatcher
+ */
+class TestOrderedUpdatesDispatcher {
+    private OrderedUpdatesDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdownNow();
+        }
+    }
+
+    @Test
+    void testUpdatesForSameKeyAreHandledInOrder() throws InterruptedException {
+        Map<Integer, List<Integer>> handled = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(100);
+        dispatcher = new OrderedUpdatesDispatcher(new FakeLongPollingBot() {
+            @Override
+            public void onUpdateReceived(Update update) {
+                handled.computeIfAbsent(update.getUpdateId() % 5, k -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(update.getUpdateId());
+                latch.countDown();
+            }
+        }, 3, 10, update -> update.getUpdateId() % 5, Executors.defaultThreadFactory());
+
+        for (int i = 0; i < 10; i++) {
+            List<Update> batch = new ArrayList<>();
+            for (int j = 0; j < 10; j++) {
+                batch.add(createUpdate(i * 10 + j));
+            }
+            dispatcher.dispatch(batch);
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (List<Integer> ids : handled.values()) {
+            List<Integer> sorted = new ArrayList<>(ids);
+            Collections.sort(sorted);
+            assertEquals(sorted, ids);
+        }
+    }
+
+    @Test
+    void testDifferentKeysAreHandledInParallel() throws InterruptedException {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(2);
+        dispatcher = new OrderedUpdatesDispatcher(new FakeLongPollingBot() {
+            @Override
+            public void onUpdateReceived(Update update) {
+                bothRunning.countDown();
+                try {
+                    bothRunning.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            }
+        }, 2, 10, Update::getUpdateId, Executors.defaultThreadFactory());
+
+        List<Update> batch = new ArrayList<>();
+        batch.add(createUpdate(0));
+        batch.add(createUpdate(1));
+        dispatcher.dispatch(batch);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, bothRunning.getCount());
+    }
+
+    private static Update createUpdate(int updateId) {
+        Update update = new Update();
+        update.setUpdateId(updateId);
+        return update;
+    }
+}
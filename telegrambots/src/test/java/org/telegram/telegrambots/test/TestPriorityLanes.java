@@ -0,0 +1,87 @@
+package org.telegram.telegrambots.test;
+
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.UpdateType;
+import org.telegram.telegrambots.updatesreceivers.PriorityLanes;
+import org.telegram.telegrambots.updatesreceivers.WebhookPriorityGate;
+import org.telegram.telegrambots.util.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for PriorityLanes, WebhookPriorityGate and LatencyHistogram
+ */
+class TestPriorityLanes {
+    @Test
+    void testPriorityUpdatesBypassTheGate() throws InterruptedException {
+        PriorityLanes lanes = new PriorityLanes(Collections.singleton(UpdateType.PRE_CHECKOUT_QUERY));
+        WebhookPriorityGate gate = new WebhookPriorityGate(lanes, 1, 5000);
+        assertTrue(gate.enter(UpdateType.MESSAGE));
+
+        CountDownLatch normalEntered = new CountDownLatch(1);
+        Thread normal = new Thread(() -> {
+            if (gate.enter(UpdateType.MESSAGE)) {
+                normalEntered.countDown();
+                gate.exit(UpdateType.MESSAGE);
+            }
+        });
+        normal.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (gate.getWaiting() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, gate.getWaiting());
+
+        // The only normal slot is taken, but priority updates don't need it
+        assertTrue(gate.enter(UpdateType.PRE_CHECKOUT_QUERY));
+        gate.exit(UpdateType.PRE_CHECKOUT_QUERY);
+        assertFalse(normalEntered.await(100, TimeUnit.MILLISECONDS));
+
+        gate.exit(UpdateType.MESSAGE);
+        assertTrue(normalEntered.await(5, TimeUnit.SECONDS));
+        normal.join();
+
+        assertEquals(1, lanes.getPriorityQueueTime().getCount());
+        assertEquals(2, lanes.getNormalQueueTime().getCount());
+        assertTrue(lanes.getNormalQueueTime().getMax(TimeUnit.MILLISECONDS) >= 100);
+    }
+
+    @Test
+    void testNormalUpdatesWaitingTooLongAreRefused() {
+        PriorityLanes lanes = new PriorityLanes(Collections.singleton(UpdateType.PRE_CHECKOUT_QUERY));
+        WebhookPriorityGate gate = new WebhookPriorityGate(lanes, 1, 50);
+        assertTrue(gate.enter(UpdateType.MESSAGE));
+
+        assertFalse(gate.enter(UpdateType.MESSAGE));
+        assertEquals(1, gate.getRejected());
+        assertEquals(1, lanes.getNormalQueueTime().getCount());
+
+        gate.exit(UpdateType.MESSAGE);
+        assertTrue(gate.enter(UpdateType.MESSAGE));
+        gate.exit(UpdateType.MESSAGE);
+    }
+
+    @Test
+    void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMax(TimeUnit.MILLISECONDS));
+        long p50 = histogram.getPercentile(50, TimeUnit.MILLISECONDS);
+        long p99 = histogram.getPercentile(99, TimeUnit.MILLISECONDS);
+        assertTrue(p50 >= 500 && p50 <= 500 * 1.125, "p50 was " + p50);
+        assertTrue(p99 >= 990 && p99 <= 1000, "p99 was " + p99);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50, TimeUnit.MILLISECONDS));
+    }
+}
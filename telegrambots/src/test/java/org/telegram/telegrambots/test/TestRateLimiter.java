@@ -0,0 +1,114 @@
+package org.telegram.telegrambots.test;
+
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.facilities.ratelimiter.RateLimiter;
+import org.telegram.telegrambots.facilities.ratelimiter.TokenBucket;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.GetMe;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.GetChat;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for RateLimiter and TokenBucket
+ */
+class TestRateLimiter {
+    @Test
+    void testTokenBucketAllowsBurstThenSpacesPermits() {
+        TokenBucket bucket = new TokenBucket(3, 3, TimeUnit.SECONDS);
+        long now = System.nanoTime();
+        assertEquals(now, bucket.reserve(now));
+        assertEquals(now, bucket.reserve(now));
+        assertEquals(now, bucket.reserve(now));
+        long grantedAt = bucket.reserve(now);
+        assertTrue(grantedAt - now > TimeUnit.MILLISECONDS.toNanos(900), "Granted after " + (grantedAt - now));
+        assertFalse(bucket.isIdle(now));
+    }
+
+    @Test
+    void testPrivateAndGroupChatsHaveTheirOwnLimits() {
+        RateLimiter rateLimiter = new RateLimiter(30, 1, 20);
+        assertEquals(0, rateLimiter.reserve(new SendMessage("1", "first")).next());
+        long privateWait = rateLimiter.reserve(new SendMessage("1", "second")).next();
+        assertTrue(privateWait > TimeUnit.MILLISECONDS.toNanos(900) && privateWait <= TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(0, rateLimiter.reserve(new SendMessage("-100", "first")).next());
+        long groupWait = rateLimiter.reserve(new SendMessage("-100", "second")).next();
+        assertTrue(groupWait > TimeUnit.MILLISECONDS.toNanos(2900) && groupWait <= TimeUnit.SECONDS.toNanos(3));
+
+        assertEquals(0, rateLimiter.reserve(new SendMessage("2", "other chat")).next());
+        // Waits are recorded once both permits are taken
+        assertEquals(0, rateLimiter.getWaitTime().getCount());
+    }
+
+    @Test
+    void testGlobalLimitAppliesAcrossChats() {
+        RateLimiter rateLimiter = new RateLimiter(2, 1, 20);
+        assertEquals(0, rateLimiter.reserve("1").next());
+        assertEquals(0, rateLimiter.reserve("2").next());
+        assertTrue(rateLimiter.reserve("3").next() > 0);
+    }
+
+    @Test
+    void testGlobalPermitIsReservedWhenTheChatPermitIsGranted() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try (RateLimiter rateLimiter = new RateLimiter(2, 1, 20, scheduler)) {
+            assertEquals(0, rateLimiter.reserve("1").next());
+            long chatWait = rateLimiter.reserve("1").next();
+            assertTrue(chatWait > TimeUnit.MILLISECONDS.toNanos(900) && chatWait <= TimeUnit.SECONDS.toNanos(1));
+            // The second request to chat 1 takes its global permit a second from now, so another chat can use it now
+            assertEquals(0, rateLimiter.reserve("2").next());
+        }
+        assertFalse(scheduler.isShutdown());
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void testChatPermitMovesToALaterGlobalPermit() {
+        try (RateLimiter rateLimiter = new RateLimiter(1, 1, 20)) {
+            assertEquals(0, rateLimiter.reserve("1").next());
+            long globalWait = rateLimiter.reserve("2").next();
+            assertTrue(globalWait > TimeUnit.MILLISECONDS.toNanos(900) && globalWait <= TimeUnit.SECONDS.toNanos(1));
+            assertEquals(1, rateLimiter.getWaitTime().getCount());
+            // The previous request to chat 2 is sent in a second, so the next one waits a second more
+            long chatWait = rateLimiter.reserve("2").next();
+            assertTrue(chatWait > TimeUnit.MILLISECONDS.toNanos(1900) && chatWait <= TimeUnit.SECONDS.toNanos(2));
+        }
+    }
+
+    @Test
+    void testMethodsWithoutChatTakeAGlobalPermit() {
+        RateLimiter rateLimiter = new RateLimiter(2, 1, 20);
+        AnswerCallbackQuery answer = new AnswerCallbackQuery("query");
+        EditMessageText inlineEdit = EditMessageText.builder().inlineMessageId("inline").text("text").build();
+        assertTrue(rateLimiter.isLimited(answer));
+        assertTrue(rateLimiter.isLimited(inlineEdit));
+
+        assertEquals(0, rateLimiter.reserve(answer).next());
+        assertEquals(0, rateLimiter.reserve(inlineEdit).next());
+        // Both took the global permits of this second
+        long globalWait = rateLimiter.reserve(new SendMessage("1", "text")).next();
+        assertTrue(globalWait > 0 && globalWait <= TimeUnit.SECONDS.toNanos(1));
+        assertTrue(rateLimiter.reserve(answer).next() > 0);
+    }
+
+    @Test
+    void testGetMethodsAreNotLimited() {
+        RateLimiter rateLimiter = new RateLimiter(1, 1, 1);
+        assertFalse(rateLimiter.isLimited(new GetMe()));
+        assertFalse(rateLimiter.isLimited(new GetChat("1")));
+        assertTrue(rateLimiter.isLimited(new SendMessage("1", "text")));
+        for (int i = 0; i < 5; i++) {
+            assertNull(rateLimiter.reserve(new GetMe()));
+        }
+    }
+}
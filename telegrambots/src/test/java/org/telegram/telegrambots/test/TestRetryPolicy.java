@@ -0,0 +1,144 @@
+package org.telegram.telegrambots.test;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.bots.DefaultAbsSender;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.facilities.retry.RetryPolicy;
+import org.telegram.telegrambots.meta.api.methods.groupadministration.GetChat;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for RetryPolicy, alone and in DefaultAbsSender
+ */
+class TestRetryPolicy {
+    private static final String SENT = "{\"ok\":true,\"result\":{\"message_id\":1,\"date\":0,\"chat\":{\"id\":-1002,\"type\":\"supergroup\"}}}";
+    private static final String FLOOD = "{\"ok\":false,\"error_code\":429,\"description\":\"Too Many Requests\",\"parameters\":{\"retry_after\":1}}";
+    private static final String MIGRATED = "{\"ok\":false,\"error_code\":400,\"description\":\"Bad Request: group chat was upgraded\",\"parameters\":{\"migrate_to_chat_id\":-1002}}";
+
+    private HttpServer server;
+    private final List<String> responses = new CopyOnWriteArrayList<>();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Answers with the queued responses, then with a sent message
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.add(new String(IOUtils.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8));
+            byte[] bytes = (responses.isEmpty() ? SENT : responses.remove(0)).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testRetryAfterIsHonored() throws TelegramApiException {
+        RetryPolicy retryPolicy = new RetryPolicy();
+        List<Long> sleeps = new CopyOnWriteArrayList<>();
+        retryPolicy.setSleeper(sleeps::add);
+        responses.add(FLOOD);
+
+        Message message = createSender(retryPolicy).execute(new SendMessage("1", "text"));
+
+        assertEquals(1, message.getMessageId());
+        assertEquals(2, requests.size());
+        assertEquals(Collections.singletonList(1000L), sleeps);
+        assertEquals(1, retryPolicy.getRetryAfterRetries());
+    }
+
+    @Test
+    void testMigratedChatsAreRetargeted() throws Exception {
+        RetryPolicy retryPolicy = new RetryPolicy();
+        responses.add(MIGRATED);
+        DefaultAbsSender sender = createSender(retryPolicy);
+
+        SendMessage first = new SendMessage("-1", "first");
+        sender.executeAsync(first).get(5, TimeUnit.SECONDS);
+        assertTrue(requests.get(1).contains("\"chat_id\":\"-1002\""));
+        // The retry is sent with a copy, the method of the caller is left as it is
+        assertEquals("-1", first.getChatId());
+        SendMessage other = new SendMessage("-5", "other");
+        assertSame(other, retryPolicy.retarget(other));
+
+        // Later requests to the old chat go straight to the new one
+        sender.execute(new SendMessage("-1", "second"));
+        assertEquals(3, requests.size());
+        assertTrue(requests.get(2).contains("\"chat_id\":\"-1002\""));
+        assertEquals(1, retryPolicy.getMigrationRetries());
+    }
+
+    @Test
+    void testAttemptsAreLimited() {
+        RetryPolicy retryPolicy = new RetryPolicy();
+        retryPolicy.setMaxAttempts(2);
+        responses.add(FLOOD);
+        responses.add(FLOOD);
+
+        assertThrows(TelegramApiRequestException.class, () -> createSender(retryPolicy).execute(new SendMessage("1", "text")));
+        assertEquals(2, requests.size());
+        assertEquals(1, retryPolicy.getRetryAfterRetries());
+        assertEquals(1, retryPolicy.getExhaustedRetries());
+    }
+
+    @Test
+    void testOnlyIdempotentMethodsAreRetriedAfterErrors() {
+        RetryPolicy retryPolicy = new RetryPolicy();
+        retryPolicy.setErrorBackOff(10);
+        TelegramApiException networkError = new TelegramApiException("Unable to execute", new IOException("Connection reset"));
+
+        assertEquals(-1, retryPolicy.getRetryDelay(new SendMessage("1", "text"), networkError, 1, true));
+        assertEquals(10, retryPolicy.getRetryDelay(new GetChat("1"), networkError, 1, true));
+        assertEquals(20, retryPolicy.getRetryDelay(new GetChat("1"), networkError, 2, true));
+        assertEquals(-1, retryPolicy.getRetryDelay(new GetChat("1"), networkError, 1, false));
+        assertEquals(-1, retryPolicy.getRetryDelay(new GetChat("1"), networkError, 3, true));
+        assertEquals(2, retryPolicy.getErrorRetries());
+    }
+
+    @Test
+    void testLongRetryAfterIsNotAwaited() {
+        RetryPolicy retryPolicy = new RetryPolicy();
+        retryPolicy.setMaxRetryAfter(0);
+        responses.add(FLOOD);
+
+        assertThrows(TelegramApiRequestException.class, () -> createSender(retryPolicy).execute(new SendMessage("1", "text")));
+        assertEquals(1, requests.size());
+    }
+
+    private DefaultAbsSender createSender(RetryPolicy retryPolicy) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl("http://localhost:" + server.getAddress().getPort() + "/bot");
+        options.setRetryPolicy(retryPolicy);
+        return new DefaultAbsSender(options, "token") {
+        };
+    }
+}
@@ -0,0 +1,285 @@
+package org.telegram.telegrambots.test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.telegram.telegrambots.bots.DefaultAbsSender;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.facilities.uploadcache.UploadCache;
+import org.telegram.telegrambots.facilities.uploadcache.UploadCacheStore;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.ApiResponse;
+import org.telegram.telegrambots.meta.api.objects.Document;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.updateshandlers.SentCallback;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for UploadCache, alone and in DefaultAbsSender
+ */
+class TestUploadCache {
+    private static final String REJECTED = "{\"ok\":false,\"error_code\":400,\"description\":\"Bad Request: chat not found\"}";
+    private static final String SENT = "{\"ok\":true,\"result\":{\"message_id\":1,\"date\":0,\"chat\":{\"id\":1,\"type\":\"private\"}," +
+            "\"document\":{\"file_id\":\"uploaded\",\"file_unique_id\":\"unique\"}}}";
+
+    @TempDir
+    File folder;
+
+    private HttpServer server;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.add(new String(IOUtils.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8));
+            byte[] bytes = SENT.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.createContext("/botrejected/", exchange -> {
+            IOUtils.toByteArray(exchange.getRequestBody());
+            byte[] bytes = REJECTED.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(400, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testFileIdIsReused() throws Exception {
+        UploadCache uploadCache = new UploadCache();
+        File file = createFile("file.txt", "content");
+
+        SendDocument first = new SendDocument("1", new InputFile(file));
+        UploadCache.Upload upload = uploadCache.prepare(first).get();
+        assertFalse(upload.isCached());
+        assertSame(first, upload.getMethod());
+        assertTrue(first.getDocument().isNew());
+        upload.completed(createMessage("id"));
+
+        SendDocument second = new SendDocument("1", new InputFile(file));
+        UploadCache.Upload cached = uploadCache.prepare(second).get();
+        assertTrue(cached.isCached());
+        assertNotSame(second, cached.getMethod());
+        assertEquals("id", getDocument(cached).getAttachName());
+        assertFalse(getDocument(cached).isNew());
+        // The method of the caller is left as it is
+        assertTrue(second.getDocument().isNew());
+        assertEquals(1, uploadCache.getUploads());
+        assertEquals(1, uploadCache.getHits());
+    }
+
+    @Test
+    void testChangedFilesAreUploadedAgain() throws Exception {
+        UploadCache uploadCache = new UploadCache();
+        File file = createFile("file.txt", "content");
+        uploadCache.prepare(new SendDocument("1", new InputFile(file))).get().completed(createMessage("id"));
+
+        Files.write(file.toPath(), "new content".getBytes(StandardCharsets.UTF_8));
+        SendDocument changed = new SendDocument("1", new InputFile(file));
+        assertFalse(uploadCache.prepare(changed).get().isCached());
+        assertTrue(changed.getDocument().isNew());
+    }
+
+    @Test
+    void testRejectedFileIdsAreEvicted() throws Exception {
+        UploadCache uploadCache = new UploadCache();
+        File file = createFile("file.txt", "content");
+        uploadCache.prepare(new SendDocument("1", new InputFile(file))).get().completed(createMessage("id"));
+
+        UploadCache.Upload upload = uploadCache.prepare(new SendDocument("1", new InputFile(file))).get();
+        upload.failed(new TelegramApiRequestException("Bad Request: wrong file identifier"));
+        assertEquals(1, uploadCache.size());
+        upload.failed(createRequestException(400, "Bad Request: message caption is too long"));
+        assertEquals(1, uploadCache.size());
+        upload.failed(createRequestException(400, "Bad Request: wrong file identifier/HTTP URL specified"));
+        assertEquals(0, uploadCache.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedFileIdsAreEvicted() throws Exception {
+        Map<String, String> stored = new HashMap<>();
+        UploadCache uploadCache = new UploadCache(2, createStore(stored));
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            files.add(createFile("file" + i, "content " + i));
+            uploadCache.prepare(new SendDocument("1", new InputFile(files.get(i)))).get().completed(createMessage("id" + i));
+        }
+        assertEquals(2, uploadCache.size());
+        assertEquals(3, stored.size());
+
+        // The evicted file id is loaded from the store
+        UploadCache.Upload first = uploadCache.prepare(new SendDocument("1", new InputFile(files.get(0)))).get();
+        assertTrue(first.isCached());
+        assertEquals("id0", getDocument(first).getAttachName());
+    }
+
+    @Test
+    void testSameFileIsUploadedOnce() throws Exception {
+        UploadCache uploadCache = new UploadCache();
+        File file = createFile("file.txt", "content");
+
+        UploadCache.Upload upload = uploadCache.prepare(new SendDocument("1", new InputFile(file))).get();
+        SendDocument waiting = new SendDocument("2", new InputFile(file));
+        CompletableFuture<UploadCache.Upload> prepared = uploadCache.prepare(waiting);
+        assertFalse(prepared.isDone());
+
+        upload.completed(createMessage("id"));
+        UploadCache.Upload cached = prepared.get(1, TimeUnit.SECONDS);
+        assertTrue(cached.isCached());
+        assertEquals("id", getDocument(cached).getAttachName());
+    }
+
+    @Test
+    void testStreamsAreNotCached() throws Exception {
+        UploadCache uploadCache = new UploadCache();
+        SendDocument sendDocument = new SendDocument("1", new InputFile(IOUtils.toInputStream("content", StandardCharsets.UTF_8), "file.txt"));
+        assertNull(uploadCache.prepare(sendDocument).get());
+    }
+
+    @Test
+    void testSenderUploadsFilesOnce() throws Exception {
+        UploadCache uploadCache = new UploadCache();
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl("http://localhost:" + server.getAddress().getPort() + "/bot");
+        options.setUploadCache(uploadCache);
+        DefaultAbsSender sender = new DefaultAbsSender(options, "token") {
+        };
+        File file = createFile("file.txt", "file content");
+
+        sender.execute(new SendDocument("1", new InputFile(file)));
+        sender.executeAsync(new SendDocument("2", new InputFile(file))).get(5, TimeUnit.SECONDS);
+        sender.execute(new SendDocument("3", new InputFile(file)));
+
+        assertEquals(3, requests.size());
+        assertTrue(requests.get(0).contains("file content"));
+        for (String request : requests.subList(1, 3)) {
+            assertFalse(request.contains("file content"));
+            assertTrue(request.contains("uploaded"));
+        }
+        assertEquals(2, uploadCache.getHits());
+    }
+
+    @Test
+    void testSenderReportsApiErrorsAsTheyAre() throws Exception {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl("http://localhost:" + server.getAddress().getPort() + "/bot");
+        options.setUploadCache(new UploadCache());
+        DefaultAbsSender sender = new DefaultAbsSender(options, "rejected") {
+        };
+        CompletableFuture<Exception> reported = new CompletableFuture<>();
+        CompletableFuture<TelegramApiRequestException> rejected = new CompletableFuture<>();
+
+        sender.executeAsync(new SendMessage("1", "text"), new SentCallback<Message>() {
+            @Override
+            public void onResult(BotApiMethod<Message> method, Message response) {
+                reported.complete(null);
+            }
+
+            @Override
+            public void onError(BotApiMethod<Message> method, TelegramApiRequestException apiException) {
+                rejected.complete(apiException);
+            }
+
+            @Override
+            public void onException(BotApiMethod<Message> method, Exception exception) {
+                reported.complete(exception);
+            }
+        });
+
+        assertEquals(400, rejected.get(5, TimeUnit.SECONDS).getErrorCode());
+        assertFalse(reported.isDone());
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> sender.executeAsync(new SendMessage("1", "text")).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TelegramApiRequestException.class, exception.getCause());
+    }
+
+    private File createFile(String name, String content) throws IOException {
+        File file = new File(folder, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static InputFile getDocument(UploadCache.Upload upload) {
+        return ((SendDocument) upload.getMethod()).getDocument();
+    }
+
+    private static Message createMessage(String fileId) {
+        Message message = new Message();
+        Document document = new Document();
+        document.setFileId(fileId);
+        message.setDocument(document);
+        return message;
+    }
+
+    private static TelegramApiRequestException createRequestException(int errorCode, String description) throws IOException {
+        ApiResponse<Object> response = new ObjectMapper().readValue(
+                "{\"ok\":false,\"error_code\":" + errorCode + ",\"description\":\"" + description + "\"}",
+                new TypeReference<ApiResponse<Object>>() {
+                });
+        return new TelegramApiRequestException("Error sending document", response);
+    }
+
+    private static UploadCacheStore createStore(Map<String, String> stored) {
+        return new UploadCacheStore() {
+            @Override
+            public String get(String key) {
+                return stored.get(key);
+            }
+
+            @Override
+            public void put(String key, String fileId) {
+                stored.put(key, fileId);
+            }
+
+            @Override
+            public void remove(String key) {
+                stored.remove(key);
+            }
+        };
+    }
+}